@@ -0,0 +1,87 @@
+package com.alexsys.smartmarket.product.cache;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.datasource.ReadYourWrites;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response bodies serialized once per version of the table they are read from. A hit hands
+ * back the JSON and a gzip copy compressed ahead of time, so neither the database nor Jackson
+ * nor a compressor runs for it. Entries of older versions are never asked for again and age out.
+ */
+@Component
+public class ResponseBodyCache {
+
+    /** Ready-to-send bodies; the arrays are shared between requests and never modified. */
+    public record CachedBody(byte[] json, byte[] gzip, String etag) {
+    }
+
+    private record Key(Class<?> table, long version, String query) {
+    }
+
+    private final TableVersions tableVersions;
+    private final Cache cache;
+    private final ObjectWriter writer;
+
+    public ResponseBodyCache(TableVersions tableVersions, CacheManager cacheManager, ObjectMapper objectMapper) {
+        this.tableVersions = tableVersions;
+        this.cache = cacheManager.getCache(CacheConfig.RESPONSE_BODIES);
+        this.writer = objectMapper.writer();
+    }
+
+    /**
+     * The body for {@code query} against the current version of {@code table}, loading and
+     * serializing it on a miss. The version is read first, so a write that lands during the load
+     * leaves the entry under a version nobody asks for anymore. The load reads from the primary:
+     * the version moves at commit there, and a lagging replica would put the old rows under it.
+     */
+    public CachedBody get(Class<?> table, String query, Supplier<?> loader) {
+        var key = new Key(table, tableVersions.current(table), query);
+        try {
+            return cache.get(key, () -> serialize(ReadYourWrites.onPrimary(loader)));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CachedBody serialize(Object value) throws IOException {
+        byte[] json = writer.writeValueAsBytes(value);
+        var compressed = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (var gzip = new BestGzipOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        return new CachedBody(json, compressed.toByteArray(), hash(json));
+    }
+
+    // Each body is compressed once and sent many times, so the slowest level pays off
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+        private BestGzipOutputStream(ByteArrayOutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
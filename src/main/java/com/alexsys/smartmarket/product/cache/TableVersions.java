@@ -0,0 +1,38 @@
+package com.alexsys.smartmarket.product.cache;
+
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter per entity type that every local write bumps, through the
+ * {@link EntityChangedEvent} the service write paths publish. Anything derived from a whole
+ * table can be keyed on its counter and is outdated the moment the counter moves. Counters are
+ * per pod; writes made elsewhere bump them once the change feed replays them.
+ */
+@Component
+public class TableVersions {
+
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long current(Class<?> table) {
+        return counter(table).get();
+    }
+
+    public void bump(Class<?> table) {
+        counter(table).incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        bump(event.entityType());
+    }
+
+    private AtomicLong counter(Class<?> table) {
+        return versions.computeIfAbsent(table, t -> new AtomicLong());
+    }
+}
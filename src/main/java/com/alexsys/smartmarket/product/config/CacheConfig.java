@@ -0,0 +1,30 @@
+package com.alexsys.smartmarket.product.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+// Wrap the transaction advice so evictions and puts happen after commit, never before
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_SKUS = "productSkus";
+    public static final String RESPONSE_BODIES = "responseBodies";
+
+    // Stats are always recorded so hits, misses and evictions show up under /actuator/metrics/cache.*
+    @Bean
+    public CacheManager cacheManager(@Value("${smartmarket.cache.spec:maximumSize=10000,expireAfterWrite=10m}") String spec,
+                                     @Value("${smartmarket.response-cache.spec:maximumSize=2000,expireAfterWrite=30s}") String responseSpec) {
+        var cacheManager = new CaffeineCacheManager(PRODUCTS, PRODUCT_SKUS);
+        cacheManager.setCaffeine(Caffeine.from(spec).recordStats());
+        cacheManager.registerCustomCache(RESPONSE_BODIES, Caffeine.from(responseSpec).recordStats().build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,34 @@
+package com.alexsys.smartmarket.product.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    public static final String VIRTUAL_THREAD_EXECUTOR = "virtualThreadExecutor";
+
+    // Fan-out of blocking repository calls; one cheap virtual thread per task
+    @Bean(name = VIRTUAL_THREAD_EXECUTOR, destroyMethod = "close")
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Replaces Boot's JPA transaction manager so each outermost transaction takes a limiter permit
+    @Bean
+    @ConditionalOnProperty("smartmarket.repository.max-concurrency")
+    public JpaTransactionManager transactionManager(RepositoryConcurrencyLimiter limiter,
+                                                    ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new LimitedJpaTransactionManager(limiter);
+        customizers.ifAvailable(c -> c.customize((TransactionManager) transactionManager));
+        return transactionManager;
+    }
+}
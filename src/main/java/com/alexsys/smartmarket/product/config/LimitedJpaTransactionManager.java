@@ -0,0 +1,38 @@
+package com.alexsys.smartmarket.product.config;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Takes a {@link RepositoryConcurrencyLimiter} permit when a new transaction begins, before a
+ * connection is borrowed, and gives it back once the transaction completes. Participating
+ * transactions never begin here, so a whole service call costs one permit.
+ */
+public class LimitedJpaTransactionManager extends JpaTransactionManager {
+
+    private final RepositoryConcurrencyLimiter limiter;
+
+    public LimitedJpaTransactionManager(RepositoryConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        limiter.acquire(definition::getName);
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            limiter.release();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            limiter.release();
+        }
+    }
+}
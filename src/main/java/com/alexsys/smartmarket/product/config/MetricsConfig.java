@@ -0,0 +1,19 @@
+package com.alexsys.smartmarket.product.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Timer behind the class-level @Timed on every service; tagged with class and method.
+    // Percentiles and histogram buckets are set under management.metrics.distribution.
+    public static final String SERVICE_TIMER = "smartmarket.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
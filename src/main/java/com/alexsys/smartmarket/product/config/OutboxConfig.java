@@ -0,0 +1,29 @@
+package com.alexsys.smartmarket.product.config;
+
+import com.alexsys.smartmarket.product.outbox.FileOutboxSink;
+import com.alexsys.smartmarket.product.outbox.InMemoryOutboxSink;
+import com.alexsys.smartmarket.product.outbox.OutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+// smartmarket.outbox.sink picks the sink; any other value leaves it to a bean declared elsewhere
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "smartmarket.outbox.sink", havingValue = "memory", matchIfMissing = true)
+    public OutboxSink inMemoryOutboxSink(@Value("${smartmarket.outbox.memory-capacity:10000}") int capacity) {
+        return new InMemoryOutboxSink(capacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "smartmarket.outbox.sink", havingValue = "file")
+    public OutboxSink fileOutboxSink(@Value("${smartmarket.outbox.file:outbox-events.ndjson}") Path file, ObjectMapper objectMapper) {
+        return new FileOutboxSink(file, objectMapper);
+    }
+}
@@ -0,0 +1,84 @@
+package com.alexsys.smartmarket.product.config;
+
+import com.alexsys.smartmarket.product.datasource.ReadYourWritesFilter;
+import com.alexsys.smartmarket.product.datasource.ReplicaDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work, which includes every Spring Data read,
+ * to MySQL replicas and everything else to the primary. The {@code dataSource} the application
+ * uses is a {@link LazyConnectionDataSourceProxy}: it only fetches a physical connection at the
+ * first statement, after the transaction manager has marked it read-only, and then picks the
+ * pool accordingly. Active when {@code smartmarket.datasource.replica-urls} is set.
+ */
+@Configuration
+@ConditionalOnProperty("smartmarket.datasource.replica-urls")
+public class ReplicaRoutingConfig {
+
+    public static final String HEALTHY_REPLICAS = "smartmarket.datasource.replicas.healthy";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * One pool per replica, configured like the primary's but quick to give up on connecting,
+     * and allowed to start while its replica is down.
+     */
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                               @Value("${smartmarket.datasource.replica-urls}") List<String> replicaUrls,
+                                               @Value("${smartmarket.datasource.replica-connection-timeout:PT1S}") Duration connectionTimeout,
+                                               @Value("${smartmarket.datasource.replica-retry-interval:PT30S}") Duration retryInterval) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls.get(i).trim());
+            config.setPoolName("replica-" + (i + 1));
+            config.setReadOnly(true);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, retryInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${smartmarket.datasource.read-your-writes-window:PT5S}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaDataSource replicaDataSource) {
+        return registry -> Gauge.builder(HEALTHY_REPLICAS, replicaDataSource, ReplicaDataSource::healthyReplicas)
+                .register(registry);
+    }
+}
@@ -0,0 +1,89 @@
+package com.alexsys.smartmarket.product.config;
+
+import com.alexsys.smartmarket.product.exception.RepositoryBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps concurrent repository calls with a fair semaphore. With virtual threads nothing else
+ * bounds how many requests reach the database at once, and thousands of them queueing inside
+ * HikariCP all time out together. Here they wait in order, and a call that can't get a permit
+ * within {@code acquire-timeout} fails with 503.
+ * <p>
+ * The permit is taken at the outermost boundary: when a transaction begins (see
+ * {@link LimitedJpaTransactionManager}) or, for repository calls outside any transaction, around
+ * the call. Anything the thread does while it holds a permit goes straight through, so it never
+ * waits for a permit while holding a connection it got under its own.
+ * Enabled by {@code smartmarket.repository.max-concurrency}, which the virtual-threads profile sets.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty("smartmarket.repository.max-concurrency")
+public class RepositoryConcurrencyLimiter {
+
+    public static final String PERMITS_AVAILABLE = "smartmarket.repository.permits.available";
+    public static final String WAITING = "smartmarket.repository.permits.waiting";
+    public static final String REJECTED = "smartmarket.repository.permits.rejected";
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+
+    public RepositoryConcurrencyLimiter(@Value("${smartmarket.repository.max-concurrency}") int maxConcurrency,
+                                       @Value("${smartmarket.repository.acquire-timeout:PT2S}") Duration acquireTimeout,
+                                       MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        Gauge.builder(PERMITS_AVAILABLE, permits, Semaphore::availablePermits).register(meterRegistry);
+        Gauge.builder(WAITING, permits, Semaphore::getQueueLength).register(meterRegistry);
+        this.rejected = meterRegistry.counter(REJECTED);
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object limit(ProceedingJoinPoint call) throws Throwable {
+        acquire(() -> call.getSignature().toShortString());
+        try {
+            return call.proceed();
+        } finally {
+            release();
+        }
+    }
+
+    // Re-entrant per thread: only the outermost acquire waits for a permit
+    void acquire(Supplier<String> caller) {
+        int[] depth = held.get();
+        if (depth[0] == 0) {
+            try {
+                if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    rejected.increment();
+                    throw new RepositoryBusyException(caller.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RepositoryBusyException(caller.get());
+            }
+        }
+        depth[0]++;
+    }
+
+    void release() {
+        int[] depth = held.get();
+        if (--depth[0] == 0) {
+            held.remove();
+            permits.release();
+        }
+    }
+}
@@ -1,27 +1,55 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.product.cache.ResponseBodyCache;
 import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.service.CategoryService;
+import com.alexsys.smartmarket.product.service.TaxonomyService;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
-import java.util.Optional;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/smartmarket/categories")
 public class CategoryController {
     private final CategoryService categoryService;
-    public CategoryController(CategoryService categoryService) { this.categoryService = categoryService; }
+    private final TaxonomyService taxonomyService;
+    private final ResponseBodyCache responseBodyCache;
+    public CategoryController(CategoryService categoryService, TaxonomyService taxonomyService,
+                              ResponseBodyCache responseBodyCache) {
+        this.categoryService = categoryService;
+        this.taxonomyService = taxonomyService;
+        this.responseBodyCache = responseBodyCache;
+    }
 
+    // Called on every page view: serialized and gzipped once per version of the categories table
     @GetMapping
-    public List<Category> getAllCategories() { return categoryService.getAllCategories(); }
+    public ResponseEntity<byte[]> getAllCategories(@RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "50") int limit, WebRequest request) {
+        Integer afterId = CursorPage.decodeCursor(after);
+        var body = responseBodyCache.get(Category.class, afterId + ":" + CursorPage.clampLimit(limit),
+                () -> categoryService.getCategoriesPage(afterId, limit));
+        return ConditionalGet.cached(body, request);
+    }
+
+    // Categories with their subcategories, served from memory; 304 when the client's ETag is current
+    @GetMapping("/tree")
+    public ResponseEntity<byte[]> getCategoryTree(WebRequest request) {
+        var snapshot = taxonomyService.getSnapshot();
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategoryById(@PathVariable("id") Integer id) {
-        Optional<Category> category = categoryService.getCategoryById(id);
-        return category.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Category> getCategoryById(@PathVariable("id") Integer id, WebRequest request) {
+        return ConditionalGet.entity(categoryService.getCategoryById(id), request);
     }
 
     @PostMapping
@@ -35,6 +63,12 @@ public class CategoryController {
         return updatedCategory.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    // Writes just the fields present in the body, in one UPDATE without a prior SELECT; no body on success
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchCategory(@PathVariable("id") Integer id, @RequestBody Category changes) {
+        return categoryService.patchCategory(id, changes) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCategory(@PathVariable("id") Integer id) {
         categoryService.deleteCategory(id);
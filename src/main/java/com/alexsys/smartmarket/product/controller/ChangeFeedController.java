@@ -0,0 +1,24 @@
+package com.alexsys.smartmarket.product.controller;
+
+import com.alexsys.smartmarket.product.pagination.ChangePage;
+import com.alexsys.smartmarket.product.service.ChangeFeedService;
+
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/smartmarket/changes")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    //  Rows changed since the cursor, in commit order; without one, the cursor to start from
+    @GetMapping
+    public ChangePage getChanges(@RequestParam(name = "since", required = false) String since,
+                                 @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return changeFeedService.getChanges(since, limit);
+    }
+}
@@ -0,0 +1,141 @@
+package com.alexsys.smartmarket.product.controller;
+
+import com.alexsys.smartmarket.product.cache.ResponseBodyCache;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.Versioned;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Conditional GETs answered from version columns. The entity tag is known before the body is
+ * written, so a client holding the current one gets 304 without Jackson touching the payload.
+ */
+final class ConditionalGet {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ConditionalGet() {
+    }
+
+    static <T extends Versioned> ResponseEntity<T> entity(Optional<T> found, WebRequest request) {
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        T entity = found.get();
+        return respond(entity, request, String.valueOf(entity.getVersion()), entity.getUpdatedAt());
+    }
+
+    // Flash-sale stock lives in buckets that change without touching the SKU row, so the
+    // quantity is part of the tag and updatedAt can't serve as Last-Modified
+    static ResponseEntity<ProductsSku> sku(Optional<ProductsSku> found, WebRequest request) {
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ProductsSku sku = found.get();
+        return respond(sku, request, sku.getVersion() + "-" + sku.getQuantity(), null);
+    }
+
+    /**
+     * A page tagged like a list whose last tag is its cursor, so a row appended after a full page
+     * changes the tag of that page too: its {@code nextCursor} is no longer null.
+     */
+    static <T> ResponseEntity<CursorPage<T>> page(CursorPage<T> page, Function<? super T, String> rowTag, WebRequest request) {
+        return collection(page, Stream.concat(page.items().stream().map(rowTag),
+                Stream.of("next=" + page.nextCursor())), request);
+    }
+
+    /** A list tagged with a hash of its rows' tags; any row added, removed or changed changes it. */
+    static <T> ResponseEntity<T> collection(T body, Stream<String> rowTags, WebRequest request) {
+        long hash = FNV_OFFSET;
+        for (var iterator = rowTags.iterator(); iterator.hasNext(); ) {
+            String tag = iterator.next();
+            for (int i = 0; i < tag.length(); i++) {
+                hash = (hash ^ tag.charAt(i)) * FNV_PRIME;
+            }
+            hash = (hash ^ '|') * FNV_PRIME;
+        }
+        return respond(body, request, Long.toHexString(hash), null);
+    }
+
+    /**
+     * Bytes from the response cache, gzipped when the client accepts it and that is smaller.
+     * The two encodings are different representations, so they carry different tags.
+     */
+    static ResponseEntity<byte[]> cached(ResponseBodyCache.CachedBody body, WebRequest request) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)) && body.gzip().length < body.json().length;
+        String etag = '"' + body.etag() + (gzip ? "-gzip" : "") + '"';
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        var response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? body.gzip() : body.json());
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                // q=0 means "not acceptable"; so does a q we can't read
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].replace(" ", "");
+                    if (param.startsWith("q=") && quality(param.substring(2)) == 0) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double quality(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static String rowTag(Versioned row) {
+        return row.getId() + ":" + row.getVersion();
+    }
+
+    static String rowTag(ProductsSku sku) {
+        return sku.getId() + ":" + sku.getVersion() + "-" + sku.getQuantity();
+    }
+
+    // Null once checkNotModified has answered 304, as Spring MVC expects
+    private static <T> ResponseEntity<T> respond(T body, WebRequest request, String tag, Instant lastModified) {
+        String etag = '"' + tag + '"';
+        boolean notModified = lastModified == null
+                ? request.checkNotModified(etag)
+                : request.checkNotModified(etag, lastModified.toEpochMilli());
+        if (notModified) {
+            return null;
+        }
+        var response = ResponseEntity.ok().eTag(etag);
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return response.body(body);
+    }
+}
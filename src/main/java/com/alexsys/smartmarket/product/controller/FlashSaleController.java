@@ -0,0 +1,41 @@
+package com.alexsys.smartmarket.product.controller;
+
+import com.alexsys.smartmarket.product.service.FlashSaleStockService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/smartmarket/admin/flash-sale/product-skus")
+public class FlashSaleController {
+
+    private final FlashSaleStockService flashSaleStockService;
+
+    public FlashSaleController(FlashSaleStockService flashSaleStockService) {
+        this.flashSaleStockService = flashSaleStockService;
+    }
+
+    //  SKUs currently split into stock buckets
+    @GetMapping
+    public List<FlashSaleStockService.HotSku> getHotSkus() {
+        return flashSaleStockService.getHotSkus();
+    }
+
+    //  Switch a SKU into flash-sale mode, or re-split it
+    @PutMapping("/{id}")
+    public ResponseEntity<FlashSaleStockService.HotSku> enable(@PathVariable("id") Integer id, @RequestBody FlashSaleSettings settings) {
+        return flashSaleStockService.enable(id, settings.buckets()).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    //  Fold the buckets back into the SKU row
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ProductsSkuService.StockLevel> disable(@PathVariable("id") Integer id) {
+        return flashSaleStockService.disable(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    public record FlashSaleSettings(int buckets) {
+    }
+}
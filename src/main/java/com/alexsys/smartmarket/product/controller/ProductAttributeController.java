@@ -1,27 +1,42 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.product.export.NdjsonExporter;
 import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.service.ProductAttributeService;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
-import java.util.Optional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/smartmarket/product-attributes")
 public class ProductAttributeController {
     private final ProductAttributeService productAttributeService;
-    public ProductAttributeController(ProductAttributeService productAttributeService) { this.productAttributeService = productAttributeService; }
+    private final NdjsonExporter ndjsonExporter;
+    public ProductAttributeController(ProductAttributeService productAttributeService, NdjsonExporter ndjsonExporter) {
+        this.productAttributeService = productAttributeService;
+        this.ndjsonExporter = ndjsonExporter;
+    }
 
     @GetMapping
-    public List<ProductAttribute> getAllProductAttributes() { return productAttributeService.getAllProductAttributes(); }
+    public ResponseEntity<CursorPage<ProductAttribute>> getAllProductAttributes(@RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "50") int limit, WebRequest request) {
+        var page = productAttributeService.getProductAttributesPage(CursorPage.decodeCursor(after), limit);
+        return ConditionalGet.page(page, ConditionalGet::rowTag, request);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProductAttributes() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(out -> ndjsonExporter.export(productAttributeService::streamAllProductAttributes, out));
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductAttribute> getProductAttributeById(@PathVariable Integer id) {
-        Optional<ProductAttribute> attribute = productAttributeService.getProductAttributeById(id);
-        return attribute.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ProductAttribute> getProductAttributeById(@PathVariable Integer id, WebRequest request) {
+        return ConditionalGet.entity(productAttributeService.getProductAttributeById(id), request);
     }
 
     @PostMapping
@@ -33,6 +48,11 @@ public class ProductAttributeController {
         return updatedProductAttribute.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchProductAttribute(@PathVariable("id") Integer id, @RequestBody ProductAttribute changes) {
+        return productAttributeService.patchProductAttribute(id, changes) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProductAttribute(@PathVariable Integer id) {
         productAttributeService.deleteProductAttribute(id);
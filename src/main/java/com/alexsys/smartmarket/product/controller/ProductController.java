@@ -1,27 +1,107 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.enums.ProductAttributeType;
+import com.alexsys.smartmarket.product.export.NdjsonExporter;
 import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.search.ProductFacetIndex;
+import com.alexsys.smartmarket.product.search.ProductSearchIndex;
+import com.alexsys.smartmarket.product.search.ProductSuggester;
+import com.alexsys.smartmarket.product.service.ProductDetailService;
+import com.alexsys.smartmarket.product.service.ProductFacetService;
+import com.alexsys.smartmarket.product.service.ProductSearchService;
 import com.alexsys.smartmarket.product.service.ProductService;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/smartmarket/products")
 public class ProductController {
     private final ProductService productService;
-    public ProductController(ProductService productService) { this.productService = productService; }
+    private final ProductDetailService productDetailService;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
+    private final NdjsonExporter ndjsonExporter;
+    public ProductController(ProductService productService, ProductDetailService productDetailService,
+                             ProductSearchService productSearchService, ProductFacetService productFacetService,
+                             NdjsonExporter ndjsonExporter) {
+        this.productService = productService;
+        this.productDetailService = productDetailService;
+        this.productSearchService = productSearchService;
+        this.productFacetService = productFacetService;
+        this.ndjsonExporter = ndjsonExporter;
+    }
 
     @GetMapping
-    public List<Product> getAllProducts() { return productService.getAllProducts(); }
+    public ResponseEntity<CursorPage<Product>> getAllProducts(@RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "50") int limit, WebRequest request) {
+        var page = productService.getProductsPage(CursorPage.decodeCursor(after), limit);
+        return ConditionalGet.page(page, ConditionalGet::rowTag, request);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(out -> ndjsonExporter.export(productService::streamAllProducts, out));
+    }
+
+    // Ranked full-text search over name, summary and description; fuzzy=true matches names despite typos
+    @GetMapping("/search")
+    public List<ProductSearchIndex.Hit> searchProducts(@RequestParam("q") String query,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "fuzzy", defaultValue = "false") boolean fuzzy) {
+        return fuzzy ? productSearchService.fuzzySearch(query, limit) : productSearchService.search(query, limit);
+    }
+
+    // Listing filters with facet counts; repeat a parameter to OR its values, maxPrice is exclusive
+    @GetMapping("/filter")
+    public ProductFacetService.FacetedPage filterProducts(
+            @RequestParam(name = "categoryId", required = false) Set<Integer> categoryIds,
+            @RequestParam(name = "color", required = false) Set<String> colors,
+            @RequestParam(name = "size", required = false) Set<String> sizes,
+            @RequestParam(name = "minPrice", required = false) Double minPrice,
+            @RequestParam(name = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        var query = new ProductFacetIndex.Query(categoryIds, Map.of(
+                ProductAttributeType.COLOR, colors == null ? Set.of() : colors,
+                ProductAttributeType.SIZE, sizes == null ? Set.of() : sizes), minPrice, maxPrice);
+        return productFacetService.filter(query, CursorPage.decodeCursor(after), limit);
+    }
+
+    // Typeahead on product names, most popular first
+    @GetMapping("/suggest")
+    public List<ProductSuggester.Suggestion> suggestProducts(@RequestParam("prefix") String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        return productSearchService.suggest(prefix, limit);
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Integer id) {
-        Optional<Product> product = productService.getProductById(id);
-        return product.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Product> getProductById(@PathVariable Integer id, WebRequest request) {
+        return ConditionalGet.entity(productService.getProductById(id), request);
+    }
+
+    // Product with its attributes and SKUs in one round trip
+    @GetMapping("/{id}/detail")
+    public ResponseEntity<ProductDetailService.ProductDetail> getProductDetail(@PathVariable Integer id, WebRequest request) {
+        var found = productDetailService.getProductDetail(id);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var detail = found.get();
+        return ConditionalGet.collection(detail, Stream.concat(
+                Stream.of(ConditionalGet.rowTag(detail.product())),
+                Stream.concat(detail.attributes().stream().map(ConditionalGet::rowTag),
+                        detail.skus().stream().map(ConditionalGet::rowTag))), request);
     }
 
     @PostMapping
@@ -33,6 +113,11 @@ public class ProductController {
         return updatedProduct.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchProduct(@PathVariable("id") Integer id, @RequestBody Product changes) {
+        return productService.patchProduct(id, changes) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Integer id) {
         productService.deleteProduct(id);
@@ -1,35 +1,91 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.product.export.NdjsonExporter;
 import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.service.ProductsSkuBulkService;
 import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import com.alexsys.smartmarket.product.service.SkuAvailabilityService;
+import com.alexsys.smartmarket.product.service.SkuLookupService;
+import com.alexsys.smartmarket.product.store.SkuColumnStore;
+import com.alexsys.smartmarket.product.stream.SkuChangeBroadcaster;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/smartmarket/product-skus")
 public class ProductsSkuController {
 
     private final ProductsSkuService productSkuService;
+    private final ProductsSkuBulkService productSkuBulkService;
+    private final SkuAvailabilityService skuAvailabilityService;
+    private final SkuLookupService skuLookupService;
+    private final NdjsonExporter ndjsonExporter;
+    private final SkuChangeBroadcaster skuChangeBroadcaster;
 
-    public ProductsSkuController(ProductsSkuService productSkuService) {
+    public ProductsSkuController(ProductsSkuService productSkuService, ProductsSkuBulkService productSkuBulkService,
+                                 SkuAvailabilityService skuAvailabilityService, SkuLookupService skuLookupService,
+                                 NdjsonExporter ndjsonExporter, SkuChangeBroadcaster skuChangeBroadcaster) {
         this.productSkuService = productSkuService;
+        this.productSkuBulkService = productSkuBulkService;
+        this.skuAvailabilityService = skuAvailabilityService;
+        this.skuLookupService = skuLookupService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.skuChangeBroadcaster = skuChangeBroadcaster;
     }
 
-    //  Get all SKUs
+    //  Get SKUs, one keyset page at a time
     @GetMapping
-    public List<ProductsSku> getAllProductSkus() {
-        return productSkuService.getAllProductsSkus();
+    public ResponseEntity<CursorPage<ProductsSku>> getAllProductSkus(@RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "50") int limit, WebRequest request) {
+        var page = productSkuService.getProductsSkusPage(CursorPage.decodeCursor(after), limit);
+        return ConditionalGet.page(page, ConditionalGet::rowTag, request);
+    }
+
+    //  Stream every SKU as NDJSON
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProductSkus() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(out -> ndjsonExporter.export(productSkuService::streamAllProductsSkus, out));
+    }
+
+    //  Live price and stock of some SKUs as Server-Sent Events, starting with their current levels
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProductSkus(@RequestParam("ids") List<Integer> ids) {
+        return skuChangeBroadcaster.subscribe(ids);
+    }
+
+    //  SKUs of a product that are in stock, optionally under a price
+    @GetMapping("/in-stock")
+    public List<SkuColumnStore.Row> getInStockProductSkus(@RequestParam("productId") Integer productId,
+            @RequestParam(name = "maxPrice", required = false) Double maxPrice) {
+        return skuAvailabilityService.getInStock(productId, maxPrice);
+    }
+
+    //  Get SKU by its code
+    @GetMapping("/by-code/{sku}")
+    public ResponseEntity<ProductsSku> getProductSkuByCode(@PathVariable("sku") String sku, WebRequest request) {
+        return ConditionalGet.sku(skuLookupService.getBySku(sku), request);
+    }
+
+    //  Get many SKUs by code; unknown codes are left out
+    @PostMapping("/by-code")
+    public List<ProductsSku> getProductSkusByCode(@RequestBody List<String> skus) {
+        return skuLookupService.getBySkus(skus);
     }
 
     //  Get SKU by ID
     @GetMapping("/{id}")
-    public ResponseEntity<ProductsSku> getProductSkuById(@PathVariable Integer id) {
-        Optional<ProductsSku> sku = productSkuService.getProductsSkuById(id);
-        return sku.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ProductsSku> getProductSkuById(@PathVariable Integer id, WebRequest request) {
+        return ConditionalGet.sku(productSkuService.getProductsSkuById(id), request);
     }
 
     //  Create SKU
@@ -38,6 +94,27 @@ public class ProductsSkuController {
         return productSkuService.saveProductsSku(productSku);
     }
 
+    //  Create or update many SKUs by sku code
+    @PostMapping("/bulk")
+    public List<ProductsSkuBulkService.RowResult> bulkUpsertProductSkus(@RequestBody List<ProductsSku> productSkus) {
+        return productSkuBulkService.upsertProductsSkus(productSkus);
+    }
+
+    //  Take stock atomically; 409 when there isn't enough left
+    @PostMapping("/{id}/stock/decrement")
+    public ResponseEntity<ProductsSkuService.StockLevel> decrementStock(@PathVariable("id") Integer id, @RequestBody StockAdjustment adjustment) {
+        return productSkuService.decrementStock(id, adjustment.amount()).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    //  Put stock back atomically
+    @PostMapping("/{id}/stock/increment")
+    public ResponseEntity<ProductsSkuService.StockLevel> incrementStock(@PathVariable("id") Integer id, @RequestBody StockAdjustment adjustment) {
+        return productSkuService.incrementStock(id, adjustment.amount()).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    public record StockAdjustment(int amount) {
+    }
+
     //  Update SKU
     @PutMapping("/{id}")
     public ResponseEntity<ProductsSku> updateProductsSku(@PathVariable("id") Integer id, @RequestBody ProductsSku productsSkuDetails) {
@@ -45,6 +122,12 @@ public class ProductsSkuController {
         return updatedProductsSku.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    //  Update only the fields sent, e.g. just the price
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchProductsSku(@PathVariable("id") Integer id, @RequestBody ProductsSku changes) {
+        return productSkuService.patchProductsSku(id, changes) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     //  Delete SKU
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProductSku(@PathVariable Integer id) {
@@ -0,0 +1,25 @@
+package com.alexsys.smartmarket.product.controller;
+
+import com.alexsys.smartmarket.product.model.PendingPurge;
+import com.alexsys.smartmarket.product.service.CatalogPurgeService;
+
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/smartmarket/admin/purges")
+public class PurgeController {
+
+    private final CatalogPurgeService catalogPurgeService;
+
+    public PurgeController(CatalogPurgeService catalogPurgeService) {
+        this.catalogPurgeService = catalogPurgeService;
+    }
+
+    //  Deleted products and categories whose dependent rows are still being removed, oldest first
+    @GetMapping
+    public List<PendingPurge> getPendingPurges() {
+        return catalogPurgeService.getPendingPurges();
+    }
+}
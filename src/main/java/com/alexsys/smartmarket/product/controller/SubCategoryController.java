@@ -1,27 +1,37 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.product.cache.ResponseBodyCache;
 import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.service.SubCategoryService;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
-import java.util.Optional;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/smartmarket/subcategories")
 public class SubCategoryController {
     private final SubCategoryService subCategoryService;
-    public SubCategoryController(SubCategoryService subCategoryService) { this.subCategoryService = subCategoryService; }
+    private final ResponseBodyCache responseBodyCache;
+    public SubCategoryController(SubCategoryService subCategoryService, ResponseBodyCache responseBodyCache) {
+        this.subCategoryService = subCategoryService;
+        this.responseBodyCache = responseBodyCache;
+    }
 
+    // Served from the response cache, like the category list
     @GetMapping
-    public List<SubCategory> getAllSubCategories() { return subCategoryService.getAllSubCategories(); }
+    public ResponseEntity<byte[]> getAllSubCategories(@RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "50") int limit, WebRequest request) {
+        Integer afterId = CursorPage.decodeCursor(after);
+        var body = responseBodyCache.get(SubCategory.class, afterId + ":" + CursorPage.clampLimit(limit),
+                () -> subCategoryService.getSubCategoriesPage(afterId, limit));
+        return ConditionalGet.cached(body, request);
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<SubCategory> getSubCategoryById(@PathVariable Integer id) {
-        Optional<SubCategory> subCategory = subCategoryService.getSubCategoryById(id);
-        return subCategory.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<SubCategory> getSubCategoryById(@PathVariable Integer id, WebRequest request) {
+        return ConditionalGet.entity(subCategoryService.getSubCategoryById(id), request);
     }
 
     @PostMapping
@@ -33,6 +43,11 @@ public class SubCategoryController {
         return updatedSubCategory.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchSubCategory(@PathVariable("id") Integer id, @RequestBody SubCategory changes) {
+        return subCategoryService.patchSubCategory(id, changes) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteSubCategory(@PathVariable Integer id) {
         subCategoryService.deleteSubCategory(id);
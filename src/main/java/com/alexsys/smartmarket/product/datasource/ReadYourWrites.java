@@ -0,0 +1,56 @@
+package com.alexsys.smartmarket.product.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current thread's work as following a write by the same client, so
+ * {@link ReplicaDataSource} serves its reads from the primary instead of a replica that may
+ * not have caught up yet. Set and cleared around each request by {@link ReadYourWritesFilter}.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    /** Runs {@code task} with its reads on the primary, keeping any pin the caller already has. */
+    public static <T> T onPrimary(Supplier<T> task) {
+        if (isPinnedToPrimary()) {
+            return task.get();
+        }
+        pinToPrimary();
+        try {
+            return task.get();
+        } finally {
+            clear();
+        }
+    }
+
+    /** Carries the caller's pin over to a task that runs on another thread. */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        if (!isPinnedToPrimary()) {
+            return task;
+        }
+        return () -> {
+            pinToPrimary();
+            try {
+                return task.get();
+            } finally {
+                clear();
+            }
+        };
+    }
+}
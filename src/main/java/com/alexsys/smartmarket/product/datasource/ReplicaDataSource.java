@@ -0,0 +1,109 @@
+package com.alexsys.smartmarket.product.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Connections for read-only transactions. Replicas take turns; one that can't be reached is
+ * skipped for {@code retryInterval} and then tried again. A replica whose pool is only busy stays
+ * in: the request moves on to the next one, but later requests still try it. With no replica
+ * handing out a connection, or while {@link ReadYourWrites} pins the thread, connections come
+ * from the primary.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile boolean down;
+        private volatile long retryAt;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean skip(long now) {
+            return down && retryAt - now > 0;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long retryIntervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<? extends DataSource> replicas, Duration retryInterval) {
+        this(primary, replicas, retryInterval, System::nanoTime);
+    }
+
+    ReplicaDataSource(DataSource primary, List<? extends DataSource> replicas, Duration retryInterval, LongSupplier nanoClock) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadYourWrites.isPinnedToPrimary() && !replicas.isEmpty()) {
+            int first = next.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(first + i, replicas.size()));
+                long now = nanoClock.getAsLong();
+                if (replica.skip(now)) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.down = false;
+                    return connection;
+                } catch (SQLException e) {
+                    if (unreachable(e)) {
+                        replica.retryAt = now + retryIntervalNanos;
+                        replica.down = true;
+                    }
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // SQLState class 08 is a connection failure. Hikari's acquisition timeout has none of its own
+    // and carries the state of the last failed connect, if any, so a pool that is merely busy
+    // doesn't count.
+    private static boolean unreachable(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the pool's credentials");
+    }
+
+    public int healthyReplicas() {
+        long now = nanoClock.getAsLong();
+        return (int) replicas.stream().filter(replica -> !replica.skip(now)).count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.alexsys.smartmarket.product.event;
+
+/**
+ * Published by the services after a write. {@code entity} is the saved state, or null when the
+ * row with {@code id} was deleted. {@code replayed} marks a change read back from the change feed,
+ * usually one made on another instance; it is already in the outbox.
+ */
+public record EntityChangedEvent<T>(Class<T> entityType, Integer id, T entity, boolean replayed) {
+
+    public static <T> EntityChangedEvent<T> saved(Class<T> entityType, Integer id, T entity) {
+        return new EntityChangedEvent<>(entityType, id, entity, false);
+    }
+
+    public static <T> EntityChangedEvent<T> deleted(Class<T> entityType, Integer id) {
+        return new EntityChangedEvent<>(entityType, id, null, false);
+    }
+
+    public static <T> EntityChangedEvent<T> replayed(Class<T> entityType, Integer id, T entity) {
+        return new EntityChangedEvent<>(entityType, id, entity, true);
+    }
+
+    public boolean isDeleted() {
+        return entity == null;
+    }
+
+    public boolean concerns(Class<?> type) {
+        return entityType == type;
+    }
+}
@@ -0,0 +1,8 @@
+package com.alexsys.smartmarket.product.event;
+
+/**
+ * Published after a stock adjustment with the quantity it left, flash-sale buckets included.
+ * Adjustments update a single column, so they don't go through {@link EntityChangedEvent}.
+ */
+public record StockChangedEvent(Integer skuId, Integer quantity) {
+}
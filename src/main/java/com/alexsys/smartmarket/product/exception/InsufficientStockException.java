@@ -0,0 +1,21 @@
+package com.alexsys.smartmarket.product.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+@Getter
+public class InsufficientStockException extends RuntimeException {
+
+    private final Integer skuId;
+    private final int requested;
+    private final Integer available;
+
+    public InsufficientStockException(Integer skuId, int requested, Integer available) {
+        super("SKU " + skuId + " has " + available + " in stock, " + requested + " requested");
+        this.skuId = skuId;
+        this.requested = requested;
+        this.available = available;
+    }
+}
@@ -0,0 +1,12 @@
+package com.alexsys.smartmarket.product.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RepositoryBusyException extends RuntimeException {
+
+    public RepositoryBusyException(String repositoryMethod) {
+        super("Too many concurrent database calls; gave up waiting to run " + repositoryMethod);
+    }
+}
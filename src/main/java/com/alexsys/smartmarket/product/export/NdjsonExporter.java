@@ -0,0 +1,56 @@
+package com.alexsys.smartmarket.product.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository stream as newline-delimited JSON. Each entity is detached once written so
+ * the persistence context stays empty and heap use is flat whatever the row count.
+ */
+@Component
+public class NdjsonExporter {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public NdjsonExporter(ObjectMapper objectMapper, EntityManager entityManager) {
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    // The stream must be opened inside this read-only transaction, hence the supplier
+    @Transactional(readOnly = true)
+    public <T> long export(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<T> stream = rows.get();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            var iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                generator.writeObject(row);
+                generator.writeRaw('\n');
+                entityManager.detach(row);
+                // Flush the first row right away so clients see bytes before the scan finishes
+                if (++written % FLUSH_EVERY == 1) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return written;
+    }
+}
@@ -9,5 +9,8 @@ public interface CategoryMapper {
 
     // Update existing category (ignore null values)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
     void update(@MappingTarget Category target, Category source);
 }
@@ -9,5 +9,7 @@ public interface ProductAttributeMapper {
 
     // Update existing (ignore nulls)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     void update(@MappingTarget ProductAttribute target, ProductAttribute source);
 }
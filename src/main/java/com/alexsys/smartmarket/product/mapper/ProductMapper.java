@@ -11,5 +11,8 @@ public interface ProductMapper {
 
     // Update ignoring nulls
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
     void update(@MappingTarget Product target, Product source);
 }
@@ -11,5 +11,7 @@ public interface ProductsSkuMapper {
 
     // Update sans écraser les nulls
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     void update(@MappingTarget ProductsSku target, ProductsSku source);
 }
@@ -11,5 +11,7 @@ public interface SubCategoryMapper {
 
     // Update sans écraser les nulls
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     void update(@MappingTarget SubCategory target, SubCategory source);
 }
\ No newline at end of file
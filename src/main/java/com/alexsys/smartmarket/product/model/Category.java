@@ -1,5 +1,7 @@
 package com.alexsys.smartmarket.product.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -7,12 +9,16 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.Instant;
 
 @Entity
 @Table(name = "categories")
+@SQLRestriction("deleted_at is null")
 @Setter
 @Getter
-public class Category {
+public class Category extends Versioned {
   
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,4 +27,9 @@ public class Category {
   private String name;
   private String description;
 
+  // Tombstone; CatalogPurgeService removes the subcategories and products of a deleted category
+  @JsonIgnore
+  @Column(name = "deleted_at")
+  private Instant deletedAt;
+
 }
@@ -0,0 +1,35 @@
+package com.alexsys.smartmarket.product.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Which instance runs a scheduled job that must not run on two at once, and until when; see JobLeaseRepository
+@Entity
+@Table(name = "job_leases")
+@Setter
+@Getter
+public class JobLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 64)
+    private String owner;
+
+    @Column(name = "lease_until", nullable = false)
+    private Instant leaseUntil;
+
+    public static JobLease expired(String name) {
+        var lease = new JobLease();
+        lease.setName(name);
+        lease.setLeaseUntil(Instant.EPOCH);
+        return lease;
+    }
+}
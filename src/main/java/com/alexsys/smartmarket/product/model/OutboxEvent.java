@@ -0,0 +1,74 @@
+package com.alexsys.smartmarket.product.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * A catalog write, recorded in the transaction that made it: which row changed and how, not its
+ * new state. Consumers fetch the row if they need it. Stays IDENTITY-keyed even under the
+ * pooled-ids profile, so ids at least follow insert order, which pooled blocks handed to different
+ * pods would not. Insert order is not commit order, not even for one row: the event is inserted
+ * when it is published, often before the row's UPDATE takes its lock, and flash-sale decrements
+ * lock a bucket rather than the row. Only {@code sequence} follows commits.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_published_at", columnList = "published_at"),
+        @Index(name = "idx_outbox_events_commit_sequence", columnList = "commit_sequence", unique = true)})
+@Setter
+@Getter
+public class OutboxEvent {
+
+    public enum Change { SAVED, DELETED, STOCK }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Entity class name, e.g. ProductsSku
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Integer aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 8)
+    private Change change;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Commit order for the change feed, set by OutboxSequencer once the write committed; usually
+    // still unset when the relay picks an event up, so not part of what sinks receive
+    @JsonIgnore
+    @Column(name = "commit_sequence")
+    private Long sequence;
+
+    // Set by OutboxRelay once a sink took the event
+    @JsonIgnore
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    public static OutboxEvent of(Class<?> aggregateType, Integer aggregateId, Change change) {
+        var event = new OutboxEvent();
+        event.setAggregateType(aggregateType.getSimpleName());
+        event.setAggregateId(aggregateId);
+        event.setChange(change);
+        return event;
+    }
+}
@@ -0,0 +1,63 @@
+package com.alexsys.smartmarket.product.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+// A soft-deleted product or category whose dependent rows are still being removed; see CatalogPurgeService
+@Entity
+@Table(name = "pending_purges")
+@Setter
+@Getter
+public class PendingPurge {
+
+    public enum Target { PRODUCT, CATEGORY }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Target target;
+
+    @Column(name = "target_id", nullable = false)
+    private Integer targetId;
+
+    @CreationTimestamp
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    // Dependent rows removed so far, and when the last chunk went
+    @Column(name = "purged_rows", nullable = false)
+    @ColumnDefault("0")
+    private long purgedRows;
+
+    @Column(name = "last_chunk_at")
+    private Instant lastChunkAt;
+
+    // The instance working the entry, until its claim runs out; see PendingPurgeRepository#claim
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private Instant claimedUntil;
+
+    public static PendingPurge of(Target target, Integer targetId) {
+        var purge = new PendingPurge();
+        purge.setTarget(target);
+        purge.setTargetId(targetId);
+        return purge;
+    }
+}
@@ -1,19 +1,25 @@
 package com.alexsys.smartmarket.product.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.Instant;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_category_id", columnList = "category_id"))
+@SQLRestriction("deleted_at is null")
 @Setter
 @Getter
-public class Product {
+public class Product extends Versioned {
   
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,4 +38,13 @@ public class Product {
   @Column(name = "category_id", nullable = false)
   private Integer categoryId;
 
+  // Ranks typeahead suggestions; higher first, null counts as 0
+  private Integer popularity;
+
+  // Tombstone: set on delete, after which the row is invisible to every query and
+  // CatalogPurgeService removes its attributes and SKUs
+  @JsonIgnore
+  @Column(name = "deleted_at")
+  private Instant deletedAt;
+
 }
@@ -9,15 +9,16 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "product_attributes")
+@Table(name = "product_attributes", indexes = @Index(name = "idx_product_attributes_product_id", columnList = "product_id"))
 @Setter
 @Getter
-public class ProductAttribute {
+public class ProductAttribute extends Versioned {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -5,15 +5,18 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "products_skus")
+@Table(name = "products_skus", indexes = {
+        @Index(name = "idx_products_skus_product_id", columnList = "product_id"),
+        @Index(name = "uk_products_skus_sku", columnList = "sku", unique = true)})
 @Setter
 @Getter
-public class ProductsSku {
+public class ProductsSku extends Versioned {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
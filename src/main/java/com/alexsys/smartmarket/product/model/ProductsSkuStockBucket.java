@@ -0,0 +1,33 @@
+package com.alexsys.smartmarket.product.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+// One slice of a flash-sale SKU's stock; see FlashSaleStockService
+@Entity
+@Table(name = "products_sku_stock_buckets",
+       uniqueConstraints = @UniqueConstraint(name = "uk_products_sku_stock_buckets_sku_bucket", columnNames = {"sku_id", "bucket"}))
+@Setter
+@Getter
+public class ProductsSkuStockBucket extends Versioned {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "sku_id", nullable = false)
+    private Integer skuId;
+
+    @Column(nullable = false)
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
@@ -5,15 +5,16 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Column;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "sub_categories")
+@Table(name = "sub_categories", indexes = @Index(name = "idx_sub_categories_category_id", columnList = "category_id"))
 @Setter
 @Getter
-public class SubCategory {
+public class SubCategory extends Versioned {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
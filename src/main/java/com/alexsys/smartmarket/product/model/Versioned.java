@@ -0,0 +1,35 @@
+package com.alexsys.smartmarket.product.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Columns every table carries for conditional GETs: {@code version} is bumped on each write and
+ * becomes the entity tag, {@code updatedAt} the Last-Modified date. Bulk JPQL updates must set
+ * both themselves.
+ */
+@MappedSuperclass
+@Getter
+@Setter
+public abstract class Versioned {
+
+    // Defaulted so ddl-auto can add the column to tables that already hold rows
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    // Null on rows written before the column existed
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public abstract Integer getId();
+}
@@ -0,0 +1,103 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.pagination.ChangePage;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.service.ChangeFeedService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the in-memory indexes of this instance in step with writes made on the others. Reads the
+ * change feed from where it stood at startup and republishes each change as a replayed
+ * {@link EntityChangedEvent}, which the indexes apply like a local write and the outbox skips.
+ * The cached row of a replayed change is evicted first, so the next read here sees the write.
+ * <p>
+ * Changes arrive once {@link OutboxSequencer} has numbered them. This instance's own writes come
+ * back too; applying the current state of a row again is harmless.
+ */
+@Component
+public class ChangeFeedFollower {
+
+    private static final Map<String, Class<?>> TYPES = Stream.of(Product.class, ProductAttribute.class,
+                    ProductsSku.class, Category.class, SubCategory.class)
+            .collect(Collectors.toUnmodifiableMap(Class::getSimpleName, Function.identity()));
+
+    private final ChangeFeedService changeFeedService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<Class<?>, Cache> caches;
+    private final ReentrantLock running = new ReentrantLock();
+    private volatile String cursor;
+
+    public ChangeFeedFollower(ChangeFeedService changeFeedService, ApplicationEventPublisher eventPublisher,
+                              CacheManager cacheManager) {
+        this.changeFeedService = changeFeedService;
+        this.eventPublisher = eventPublisher;
+        this.caches = Map.of(Product.class, cacheManager.getCache(CacheConfig.PRODUCTS),
+                ProductsSku.class, cacheManager.getCache(CacheConfig.PRODUCT_SKUS));
+    }
+
+    // Before the first poll; anything written while the indexes load is replayed over them
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        cursor = changeFeedService.getChanges(null, 0).cursor();
+    }
+
+    @Scheduled(initialDelayString = "${smartmarket.changes.follow-interval:PT1S}",
+               fixedDelayString = "${smartmarket.changes.follow-interval:PT1S}")
+    public void follow() {
+        if (cursor == null || !running.tryLock()) {
+            return;
+        }
+        try {
+            ChangePage page;
+            do {
+                page = changeFeedService.getChanges(cursor, CursorPage.MAX_LIMIT);
+                page.changes().forEach(this::replay);
+                cursor = page.cursor();
+            } while (page.hasMore());
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode() != HttpStatus.GONE) {
+                throw e;
+            }
+            // Stopped for longer than the outbox keeps tombstones: the gap is lost, carry on from now
+            start();
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void replay(ChangePage.Change change) {
+        var type = TYPES.get(change.type());
+        if (type != null) {
+            var cache = caches.get(type);
+            if (cache != null) {
+                cache.evict(change.id());
+            }
+            eventPublisher.publishEvent(replayed(type, change.id(), change.deleted() ? null : change.data()));
+        }
+    }
+
+    private static <T> EntityChangedEvent<T> replayed(Class<T> type, Integer id, Object row) {
+        return EntityChangedEvent.replayed(type, id, type.cast(row));
+    }
+}
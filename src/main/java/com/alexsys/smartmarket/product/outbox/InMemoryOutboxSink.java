@@ -0,0 +1,33 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/** Keeps the most recent events in memory; for tests and local runs without a broker. */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final int capacity;
+    private final Deque<OutboxEvent> events = new ArrayDeque<>();
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> batch) {
+        for (OutboxEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    public synchronized List<OutboxEvent> events() {
+        return new ArrayList<>(events);
+    }
+}
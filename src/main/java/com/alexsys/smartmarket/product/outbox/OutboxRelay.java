@@ -0,0 +1,119 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.model.JobLease;
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.repository.JobLeaseRepository;
+import com.alexsys.smartmarket.product.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands unpublished outbox events to the {@link OutboxSink} in batches. The relay interval is the
+ * batching delay: events written in between go out together, up to batch-size per sink call.
+ * <p>
+ * One instance relays at a time, under a {@link JobLease}: a second relay could overtake the
+ * first with a later event of the same row. The other instances skip the run instead of waiting.
+ * Nothing is locked while the sink works; the batch is read, published, then marked in a short
+ * transaction of its own, so a failing sink leaves it unpublished for the next run and catalog
+ * writes never wait on the sink. Published events are kept for the retention period, except the
+ * last one numbered for the change feed, which {@link OutboxSequencer} carries on from.
+ */
+@Component
+public class OutboxRelay {
+
+    public static final String PUBLISHED = "smartmarket.outbox.published";
+    public static final String LEASE = "outbox-relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+    private final int batchSize;
+    private final Duration retention;
+    private final Duration lease;
+    private final String owner = UUID.randomUUID().toString();
+    // The lease is per instance; this keeps a manual run from overlapping the scheduled one
+    private final ReentrantLock running = new ReentrantLock();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, JobLeaseRepository jobLeaseRepository, OutboxSink sink,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${smartmarket.outbox.batch-size:500}") int batchSize,
+                       @Value("${smartmarket.outbox.retention:P7D}") Duration retention,
+                       @Value("${smartmarket.outbox.lease:PT30S}") Duration lease) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.published = meterRegistry.counter(PUBLISHED);
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.lease = lease;
+    }
+
+    @Scheduled(initialDelayString = "${smartmarket.outbox.relay-interval:PT1S}",
+               fixedDelayString = "${smartmarket.outbox.relay-interval:PT1S}")
+    public void relay() {
+        if (!running.tryLock()) {
+            return;
+        }
+        try {
+            int sent;
+            do {
+                // Renewed before every batch; a batch must go out well within the lease
+                if (!claimLease()) {
+                    return;
+                }
+                sent = relayBatch();
+            } while (sent == batchSize);
+            // A run's worth of rows at a time, so this stays a small delete
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.deletePublishedBefore(Instant.now().minus(retention),
+                            outboxEventRepository.findMaxSequence().orElse(0L)));
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private boolean claimLease() {
+        var now = Instant.now();
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!jobLeaseRepository.existsById(LEASE)) {
+                    jobLeaseRepository.saveAndFlush(JobLease.expired(LEASE));
+                }
+                return jobLeaseRepository.claim(LEASE, owner, now, now.plus(lease)) == 1;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the lease row first; it holds the lease this time
+            return false;
+        }
+    }
+
+    private int relayBatch() {
+        // Not read-only: replicas could hand back events already published
+        List<OutboxEvent> batch = transactionTemplate.execute(status ->
+                outboxEventRepository.findByPublishedAtIsNullOrderByIdAsc(Limit.of(batchSize)));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        sink.publish(batch);
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.markPublished(batch.stream().map(OutboxEvent::getId).toList()));
+        published.increment(batch.size());
+        return batch.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.model.JobLease;
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.repository.JobLeaseRepository;
+import com.alexsys.smartmarket.product.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Numbers outbox events in the order their writes committed, for the change feed. Outbox ids
+ * are taken at insert, so a low id can become visible after a higher one, and a consumer that had
+ * moved past it would never see it. This only ever sees committed events and numbers them while
+ * holding the lock on its {@link JobLease} row, so each run's numbers follow the last run's and
+ * commit with them: a reader that sees one number sees every lower one.
+ * <p>
+ * Every instance runs it; runs on different instances queue on the lock rather than skip, and
+ * one that finds nothing left to number is over at once.
+ */
+@Component
+public class OutboxSequencer {
+
+    public static final String LOCK = "outbox-sequencer";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ReentrantLock running = new ReentrantLock();
+    private volatile boolean lockRowExists;
+
+    public OutboxSequencer(OutboxEventRepository outboxEventRepository, JobLeaseRepository jobLeaseRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${smartmarket.outbox.batch-size:500}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${smartmarket.changes.sequence-interval:PT0.2S}",
+               fixedDelayString = "${smartmarket.changes.sequence-interval:PT0.2S}")
+    public void sequence() {
+        if (!running.tryLock()) {
+            return;
+        }
+        try {
+            createLockRow();
+            int numbered;
+            do {
+                numbered = sequenceBatch();
+            } while (numbered == batchSize);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private int sequenceBatch() {
+        // Not read-only: the numbers must be read where they are written
+        Integer numbered = transactionTemplate.execute(status -> {
+            jobLeaseRepository.findForUpdateByName(LOCK);
+            long last = outboxEventRepository.findMaxSequence().orElse(0L);
+            var batch = outboxEventRepository.findBySequenceIsNullOrderByIdAsc(Limit.of(batchSize));
+            for (OutboxEvent event : batch) {
+                event.setSequence(++last);
+            }
+            return batch.size();
+        });
+        return numbered == null ? 0 : numbered;
+    }
+
+    private void createLockRow() {
+        if (lockRowExists) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!jobLeaseRepository.existsById(LOCK)) {
+                    jobLeaseRepository.saveAndFlush(JobLease.expired(LOCK));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first
+        }
+        lockRowExists = true;
+    }
+}
@@ -0,0 +1,18 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Where {@link OutboxRelay} delivers catalog change events. Batches arrive in id order, which is
+ * only a best-effort order, even for the events of one row: two writes can commit opposite to
+ * the order they inserted their events. Events carry no state, so a consumer that fetches the row
+ * sees the latest either way; a sink that partitions (by topic key, say) should still keep each
+ * row's events in one partition. An exception fails the whole batch and it is offered again on
+ * the next run, so delivery is at least once.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events);
+}
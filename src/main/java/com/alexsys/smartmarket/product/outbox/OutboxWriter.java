@@ -0,0 +1,42 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.event.StockChangedEvent;
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.OutboxEventRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Turns the change events of the service write paths into outbox rows. Listeners run on the
+ * publishing thread, so the row is inserted in the transaction of the write itself and commits
+ * or rolls back with it. A write published outside a transaction fails rather than risk an
+ * event for a change that never committed, or none for one that did. The in-memory indexes are the
+ * other listeners and wait for the commit instead. Changes replayed from the change feed are
+ * skipped, as they came from the outbox.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    public OutboxWriter(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    @EventListener(condition = "!#event.replayed()")
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        var change = event.isDeleted() ? OutboxEvent.Change.DELETED : OutboxEvent.Change.SAVED;
+        outboxEventRepository.save(OutboxEvent.of(event.entityType(), event.id(), change));
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStockChanged(StockChangedEvent event) {
+        outboxEventRepository.save(OutboxEvent.of(ProductsSku.class, event.skuId(), OutboxEvent.Change.STOCK));
+    }
+}
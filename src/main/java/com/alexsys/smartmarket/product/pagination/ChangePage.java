@@ -0,0 +1,49 @@
+package com.alexsys.smartmarket.product.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of the change feed. {@code cursor} is an opaque token to pass back as {@code ?since=};
+ * unlike {@link CursorPage} it is never null, as a consumer keeps polling from it once caught up.
+ */
+public record ChangePage(List<Change> changes, String cursor, boolean hasMore) {
+
+    /**
+     * The latest change to one row: its current state, or a tombstone when the row is gone.
+     * {@code sequence} grows with every change and orders them.
+     */
+    public record Change(long sequence, String type, Integer id, boolean deleted, Object data) {
+    }
+
+    /** Where a consumer stands: the last sequence it saw and how recent that change was. */
+    public record Position(long sequence, Instant at) {
+    }
+
+    // Was "seq:" when cursors held outbox ids; those no longer line up with the sequence
+    private static final String PREFIX = "cseq:";
+
+    public static Position decodeCursor(String cursor) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int at = decoded.indexOf('@');
+            if (!decoded.startsWith(PREFIX) || at < 0) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return new Position(Long.parseLong(decoded.substring(PREFIX.length(), at)),
+                    Instant.ofEpochMilli(Long.parseLong(decoded.substring(at + 1))));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String encodeCursor(Position position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + position.sequence() + "@" + position.at().toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+    }
+}
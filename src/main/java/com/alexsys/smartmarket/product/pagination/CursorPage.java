@@ -0,0 +1,59 @@
+package com.alexsys.smartmarket.product.pagination;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of an id-ordered keyset scan. {@code nextCursor} is an opaque token to pass back
+ * as {@code ?after=} and is null on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public static final int MAX_LIMIT = 500;
+
+    private static final String PREFIX = "id:";
+
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    // One extra row tells us whether another page exists without a COUNT query
+    public static Limit probeLimit(int limit) {
+        return Limit.of(clampLimit(limit) + 1);
+    }
+
+    public static Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Integer.valueOf(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String encodeCursor(Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Integer> idOf) {
+        int size = clampLimit(limit);
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        var items = rows.subList(0, size);
+        return new CursorPage<>(items, encodeCursor(idOf.apply(items.get(size - 1))));
+    }
+}
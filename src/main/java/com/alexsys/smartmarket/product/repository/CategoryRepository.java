@@ -1,7 +1,19 @@
 package com.alexsys.smartmarket.product.repository;
 
 import com.alexsys.smartmarket.product.model.Category;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
+
+    List<Category> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Category c set c.deletedAt = instant, c.version = c.version + 1, c.updatedAt = instant where c.id = :id")
+    int softDelete(@Param("id") Integer id);
 }
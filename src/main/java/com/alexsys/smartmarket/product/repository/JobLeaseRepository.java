@@ -0,0 +1,27 @@
+package com.alexsys.smartmarket.product.repository;
+
+import com.alexsys.smartmarket.product.model.JobLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Takes the lease when it expired or extends it when {@code owner} holds it: 1 when it is now
+     * {@code owner}'s. A single conditional UPDATE, so two instances can't both get it.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update JobLease l set l.owner = :owner, l.leaseUntil = :until where l.name = :name and (l.leaseUntil < :now or l.owner = :owner)")
+    int claim(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+
+    // For jobs that need their runs serialized rather than one instance at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<JobLease> findForUpdateByName(String name);
+}
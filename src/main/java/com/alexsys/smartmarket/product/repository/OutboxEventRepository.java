@@ -0,0 +1,34 @@
+package com.alexsys.smartmarket.product.repository;
+
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByPublishedAtIsNullOrderByIdAsc(Limit limit);
+
+    List<OutboxEvent> findBySequenceIsNullOrderByIdAsc(Limit limit);
+
+    List<OutboxEvent> findBySequenceGreaterThanOrderBySequenceAsc(Long sequence, Limit limit);
+
+    @Query("select max(e.sequence) from OutboxEvent e")
+    Optional<Long> findMaxSequence();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OutboxEvent e set e.publishedAt = instant where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids);
+
+    // Only numbered events below :sequence, so the last number stays for the sequencer to go on from
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from OutboxEvent e where e.publishedAt < :cutoff and e.sequence < :sequence")
+    int deletePublishedBefore(@Param("cutoff") Instant cutoff, @Param("sequence") long sequence);
+}
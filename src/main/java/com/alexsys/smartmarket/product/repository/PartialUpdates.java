@@ -0,0 +1,62 @@
+package com.alexsys.smartmarket.product.repository;
+
+import com.alexsys.smartmarket.product.model.Versioned;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * PATCH writes: the non-null fields of a detached, partially filled entity become one
+ * {@code UPDATE ... SET <those columns> WHERE id = ?}, without reading the row first. Bumps
+ * {@code version} and {@code updatedAt} like the other bulk updates.
+ */
+@Repository
+public class PartialUpdates {
+
+    // Set by the write paths themselves; the version is inherited from Versioned, where the
+    // metamodel doesn't flag it as such
+    private static final Set<String> MANAGED_COLUMNS = Set.of("version", "updatedAt", "deletedAt");
+
+    private final EntityManager entityManager;
+
+    public PartialUpdates(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** Rows updated: 0 when there is no row with {@code id}. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T extends Versioned> int update(Class<T> type, Integer id, T changes) {
+        var cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+        var source = PropertyAccessorFactory.forBeanPropertyAccess(changes);
+        String idAttribute = null;
+        for (SingularAttribute<? super T, ?> attribute : entityManager.getMetamodel().entity(type).getSingularAttributes()) {
+            if (attribute.isId()) {
+                idAttribute = attribute.getName();
+            } else if (!MANAGED_COLUMNS.contains(attribute.getName())) {
+                Object value = source.getPropertyValue(attribute.getName());
+                if (value != null) {
+                    update.set(attribute.getName(), value);
+                }
+            }
+        }
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.set(root.<Instant>get("updatedAt"), Instant.now());
+        update.where(cb.equal(root.get(idAttribute), id));
+
+        // Same contract as the @Modifying queries: nothing pending is lost, nothing stale is kept
+        entityManager.flush();
+        int rows = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return rows;
+    }
+}
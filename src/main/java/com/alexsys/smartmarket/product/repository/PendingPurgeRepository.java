@@ -0,0 +1,32 @@
+package com.alexsys.smartmarket.product.repository;
+
+import com.alexsys.smartmarket.product.model.PendingPurge;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface PendingPurgeRepository extends JpaRepository<PendingPurge, Integer> {
+
+    List<PendingPurge> findByOrderByIdAsc(Limit limit);
+
+    @Query("select p from PendingPurge p where p.claimedUntil is null or p.claimedUntil < :now order by p.id")
+    List<PendingPurge> findClaimable(@Param("now") Instant now, Limit limit);
+
+    /**
+     * Takes the entry when nobody holds it or the claim ran out, or extends {@code owner}'s own
+     * claim: 1 when it is now {@code owner}'s. A single conditional UPDATE, so two instances can't
+     * both get it.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update PendingPurge p set p.claimedBy = :owner, p.claimedUntil = :until where p.id = :id and (p.claimedUntil is null or p.claimedUntil < :now or p.claimedBy = :owner)")
+    int claim(@Param("id") Integer id, @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update PendingPurge p set p.purgedRows = p.purgedRows + :rows, p.lastChunkAt = instant where p.id = :id")
+    int addPurgedRows(@Param("id") Integer id, @Param("rows") long rows);
+}
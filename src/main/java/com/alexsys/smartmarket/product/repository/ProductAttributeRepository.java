@@ -1,7 +1,32 @@
 package com.alexsys.smartmarket.product.repository;
 
 import com.alexsys.smartmarket.product.model.ProductAttribute;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductAttributeRepository extends JpaRepository<ProductAttribute, Integer> {
+
+    List<ProductAttribute> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ProductAttribute> streamAllByOrderByIdAsc();
+
+    List<ProductAttribute> findByProductIdOrderByIdAsc(Integer productId);
+
+    @Query("select a.id from ProductAttribute a where a.productId = :productId order by a.id")
+    List<Integer> findIdsByProductId(@Param("productId") Integer productId, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductAttribute a where a.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
 }
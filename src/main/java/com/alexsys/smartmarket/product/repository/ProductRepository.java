@@ -1,7 +1,31 @@
 package com.alexsys.smartmarket.product.repository;
 
 import com.alexsys.smartmarket.product.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Integer> {
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Product> streamAllByOrderByIdAsc();
+
+    // Tombstones; the restriction on Product keeps rows that already are one from matching again
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.deletedAt = instant, p.version = p.version + 1, p.updatedAt = instant where p.id in :ids")
+    int softDeleteAllById(@Param("ids") Collection<Integer> ids);
+
+    @Query("select p.id from Product p where p.categoryId = :categoryId order by p.id")
+    List<Integer> findIdsByCategoryId(@Param("categoryId") Integer categoryId, Limit limit);
 }
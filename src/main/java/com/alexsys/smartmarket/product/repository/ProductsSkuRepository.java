@@ -1,7 +1,56 @@
 package com.alexsys.smartmarket.product.repository;
 
 import com.alexsys.smartmarket.product.model.ProductsSku;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductsSkuRepository extends JpaRepository<ProductsSku, Integer> {
+
+    List<ProductsSku> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ProductsSku> streamAllByOrderByIdAsc();
+
+    List<ProductsSku> findByProductIdOrderByIdAsc(Integer productId);
+
+    List<ProductsSku> findBySkuIn(Collection<String> skus);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ProductsSku> findForUpdateById(Integer id);
+
+    // Conditional single-statement updates: the row lock is held for one statement, not a read-modify-write
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ProductsSku s set s.quantity = coalesce(s.quantity, 0) - :amount, s.version = s.version + 1, s.updatedAt = instant where s.id = :id and coalesce(s.quantity, 0) >= :amount")
+    int decrementQuantity(@Param("id") Integer id, @Param("amount") int amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ProductsSku s set s.quantity = coalesce(s.quantity, 0) + :amount, s.version = s.version + 1, s.updatedAt = instant where s.id = :id")
+    int incrementQuantity(@Param("id") Integer id, @Param("amount") int amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ProductsSku s set s.quantity = :quantity, s.version = s.version + 1, s.updatedAt = instant where s.id = :id")
+    int setQuantity(@Param("id") Integer id, @Param("quantity") int quantity);
+
+    @Query("select coalesce(s.quantity, 0) from ProductsSku s where s.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Integer id);
+
+    @Query("select s.id from ProductsSku s where s.productId = :productId order by s.id")
+    List<Integer> findIdsByProductId(@Param("productId") Integer productId, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductsSku s where s.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
 }
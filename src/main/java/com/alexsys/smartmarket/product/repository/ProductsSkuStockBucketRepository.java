@@ -0,0 +1,44 @@
+package com.alexsys.smartmarket.product.repository;
+
+import com.alexsys.smartmarket.product.model.ProductsSkuStockBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductsSkuStockBucketRepository extends JpaRepository<ProductsSkuStockBucket, Integer> {
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ProductsSkuStockBucket b set b.quantity = b.quantity - :amount, b.version = b.version + 1, b.updatedAt = instant where b.skuId = :skuId and b.bucket = :bucket and b.quantity >= :amount")
+    int decrementQuantity(@Param("skuId") Integer skuId, @Param("bucket") int bucket, @Param("amount") int amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ProductsSkuStockBucket b set b.quantity = b.quantity + :amount, b.version = b.version + 1, b.updatedAt = instant where b.skuId = :skuId and b.bucket = :bucket")
+    int incrementQuantity(@Param("skuId") Integer skuId, @Param("bucket") int bucket, @Param("amount") int amount);
+
+    @Query("select sum(b.quantity) from ProductsSkuStockBucket b where b.skuId = :skuId")
+    Optional<Long> sumQuantityBySkuId(@Param("skuId") Integer skuId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ProductsSkuStockBucket> findForUpdateBySkuIdOrderByBucketAsc(Integer skuId);
+
+    @Query("select b.skuId, count(b) from ProductsSkuStockBucket b group by b.skuId")
+    List<Object[]> countBucketsPerSku();
+
+    @Query("select b.skuId, count(b) from ProductsSkuStockBucket b where b.skuId in :skuIds group by b.skuId")
+    List<Object[]> countBucketsPerSkuIn(@Param("skuIds") Collection<Integer> skuIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductsSkuStockBucket b where b.skuId = :skuId")
+    int deleteBySkuId(@Param("skuId") Integer skuId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ProductsSkuStockBucket b where b.skuId in :skuIds")
+    int deleteBySkuIdIn(@Param("skuIds") Collection<Integer> skuIds);
+}
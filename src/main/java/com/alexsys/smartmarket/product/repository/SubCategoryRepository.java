@@ -1,7 +1,23 @@
 package com.alexsys.smartmarket.product.repository;
 
 import com.alexsys.smartmarket.product.model.SubCategory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface SubCategoryRepository extends JpaRepository<SubCategory, Integer> {
+
+    List<SubCategory> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @Query("select s.id from SubCategory s where s.categoryId = :categoryId order by s.id")
+    List<Integer> findIdsByCategoryId(@Param("categoryId") Integer categoryId, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from SubCategory s where s.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,379 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.enums.ProductAttributeType;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Product filters answered from compressed bitmaps of product ids: one per category, one per
+ * attribute type and value, and one per price band, where a product sits in every band one of its
+ * SKUs is priced in. Values within a dimension are OR-ed and dimensions AND-ed. Facets are counted
+ * the usual storefront way, each against every filter but its own, so choosing "red" still shows
+ * how many blue products there are.
+ * <p>
+ * A price bound falling inside a band is settled against the SKU prices of that band's products,
+ * so results are exact rather than rounded to bands. Attribute values match case-insensitively.
+ * Locking and bulk loading follow {@link ProductSearchIndex}.
+ */
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "categoryId";
+    public static final String PRICE = "price";
+    // Lower bounds of the price bands; the first also takes anything cheaper, the last is open-ended
+    static final double[] PRICE_BANDS = {0, 10, 25, 50, 100, 250, 500, 1000};
+
+    /**
+     * Null or empty means the dimension is not filtered. {@code minPrice} is inclusive and
+     * {@code maxPrice} exclusive.
+     */
+    public record Query(Set<Integer> categoryIds, Map<ProductAttributeType, Set<String>> attributes,
+                        Double minPrice, Double maxPrice) {
+    }
+
+    /**
+     * {@code ids} are the matches after the requested id, in order, with one extra when another
+     * page follows.
+     */
+    public record Result(int total, List<Integer> ids, Map<String, Map<String, Integer>> facets) {
+    }
+
+    private record AttributeRow(Integer productId, ProductAttributeType type, String value) {
+    }
+
+    private record SkuRow(Integer productId, double price) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RoaringBitmap products = new RoaringBitmap();
+    private final Map<Integer, Integer> categoryOf = new HashMap<>();
+    // Sorted so facet values come out in a stable order
+    private final Map<Integer, RoaringBitmap> byCategory = new TreeMap<>();
+    private final Map<Integer, AttributeRow> attributeRows = new HashMap<>();
+    private final Map<Integer, Set<Integer>> attributeIdsByProduct = new HashMap<>();
+    private final Map<ProductAttributeType, Map<String, RoaringBitmap>> byAttribute = new EnumMap<>(ProductAttributeType.class);
+    private final Map<Integer, SkuRow> skuRows = new HashMap<>();
+    private final Map<Integer, Set<Integer>> skuIdsByProduct = new HashMap<>();
+    private final RoaringBitmap[] byPriceBand = new RoaringBitmap[PRICE_BANDS.length];
+    private Map<Class<?>, Set<Integer>> writtenDuringLoad;
+
+    public ProductFacetIndex() {
+        for (int band = 0; band < byPriceBand.length; band++) {
+            byPriceBand[band] = new RoaringBitmap();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void putProduct(Product product) {
+        write(Product.class, product.getId(), () -> replaceProduct(product.getId(), product));
+    }
+
+    public void removeProduct(Integer id) {
+        write(Product.class, id, () -> replaceProduct(id, null));
+    }
+
+    public void putAttribute(ProductAttribute attribute) {
+        write(ProductAttribute.class, attribute.getId(), () -> replaceAttribute(attribute.getId(), attribute));
+    }
+
+    public void removeAttribute(Integer id) {
+        write(ProductAttribute.class, id, () -> replaceAttribute(id, null));
+    }
+
+    public void putSku(ProductsSku sku) {
+        write(ProductsSku.class, sku.getId(), () -> replaceSku(sku.getId(), sku));
+    }
+
+    public void removeSku(Integer id) {
+        write(ProductsSku.class, id, () -> replaceSku(id, null));
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rows read by a bulk load; any row written since {@link #beginLoad} keeps its newer state.
+     */
+    public void loadProducts(List<Product> batch) {
+        load(Product.class, batch, Product::getId, product -> replaceProduct(product.getId(), product));
+    }
+
+    public void loadAttributes(List<ProductAttribute> batch) {
+        load(ProductAttribute.class, batch, ProductAttribute::getId, attribute -> replaceAttribute(attribute.getId(), attribute));
+    }
+
+    public void loadSkus(List<ProductsSku> batch) {
+        load(ProductsSku.class, batch, ProductsSku::getId, sku -> replaceSku(sku.getId(), sku));
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result filter(Query query, int afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            // One bitmap per filtered dimension, keyed by facet name
+            Map<String, RoaringBitmap> constraints = new LinkedHashMap<>();
+            if (query.categoryIds() != null && !query.categoryIds().isEmpty()) {
+                var selected = new RoaringBitmap();
+                query.categoryIds().forEach(id -> selected.or(byCategory.getOrDefault(id, new RoaringBitmap())));
+                constraints.put(CATEGORY, selected);
+            }
+            if (query.attributes() != null) {
+                query.attributes().forEach((type, values) -> {
+                    if (values != null && !values.isEmpty()) {
+                        var selected = new RoaringBitmap();
+                        var bitmaps = byAttribute.getOrDefault(type, Map.of());
+                        values.forEach(value -> selected.or(bitmaps.getOrDefault(normalize(value), new RoaringBitmap())));
+                        constraints.put(type.name(), selected);
+                    }
+                });
+            }
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                constraints.put(PRICE, pricedBetween(query.minPrice() == null ? Double.NEGATIVE_INFINITY : query.minPrice(),
+                        query.maxPrice() == null ? Double.POSITIVE_INFINITY : query.maxPrice()));
+            }
+
+            var matches = intersect(constraints, null);
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put(CATEGORY, counts(byCategory, intersect(constraints, CATEGORY)));
+            for (var type : ProductAttributeType.values()) {
+                facets.put(type.name(), counts(byAttribute.getOrDefault(type, Map.of()),
+                        intersect(constraints, type.name())));
+            }
+            var priceBase = intersect(constraints, PRICE);
+            Map<String, Integer> priceCounts = new LinkedHashMap<>();
+            for (int band = 0; band < PRICE_BANDS.length; band++) {
+                int count = RoaringBitmap.andCardinality(priceBase, byPriceBand[band]);
+                if (count > 0) {
+                    priceCounts.put(bandLabel(band), count);
+                }
+            }
+            facets.put(PRICE, priceCounts);
+
+            List<Integer> ids = new ArrayList<>(limit + 1);
+            var iterator = matches.getIntIterator();
+            iterator.advanceIfNeeded(afterId + 1);
+            while (iterator.hasNext() && ids.size() <= limit) {
+                ids.add(iterator.next());
+            }
+            return new Result(matches.getCardinality(), ids, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static int band(double price) {
+        for (int band = PRICE_BANDS.length - 1; band > 0; band--) {
+            if (price >= PRICE_BANDS[band]) {
+                return band;
+            }
+        }
+        return 0;
+    }
+
+    static String bandLabel(int band) {
+        return band == PRICE_BANDS.length - 1
+                ? (long) PRICE_BANDS[band] + "+"
+                : (long) PRICE_BANDS[band] + "-" + (long) PRICE_BANDS[band + 1];
+    }
+
+    private RoaringBitmap intersect(Map<String, RoaringBitmap> constraints, String except) {
+        var result = products.clone();
+        constraints.forEach((name, bitmap) -> {
+            if (!name.equals(except)) {
+                result.and(bitmap);
+            }
+        });
+        return result;
+    }
+
+    private static <K> Map<String, Integer> counts(Map<K, RoaringBitmap> bitmaps, RoaringBitmap base) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        bitmaps.forEach((key, bitmap) -> {
+            int count = RoaringBitmap.andCardinality(base, bitmap);
+            if (count > 0) {
+                counts.put(String.valueOf(key), count);
+            }
+        });
+        return counts;
+    }
+
+    private RoaringBitmap pricedBetween(double min, double max) {
+        var result = new RoaringBitmap();
+        for (int band = 0; band < PRICE_BANDS.length; band++) {
+            double low = band == 0 ? Double.NEGATIVE_INFINITY : PRICE_BANDS[band];
+            double high = band == PRICE_BANDS.length - 1 ? Double.POSITIVE_INFINITY : PRICE_BANDS[band + 1];
+            if (high <= min || low >= max) {
+                continue;
+            }
+            if (min <= low && high <= max) {
+                result.or(byPriceBand[band]);
+                continue;
+            }
+            // The bound cuts this band: look at the actual SKU prices
+            for (int productId : byPriceBand[band]) {
+                for (int skuId : skuIdsByProduct.getOrDefault(productId, Set.of())) {
+                    double price = skuRows.get(skuId).price();
+                    if (price >= min && price < max) {
+                        result.add(productId);
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void write(Class<?> type, Integer id, Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.computeIfAbsent(type, key -> new HashSet<>()).add(id);
+            }
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> void load(Class<T> type, List<T> batch, Function<T, Integer> idOf, Consumer<T> replace) {
+        lock.writeLock().lock();
+        try {
+            var written = writtenDuringLoad == null ? Set.<Integer>of() : writtenDuringLoad.getOrDefault(type, Set.of());
+            for (var row : batch) {
+                if (!written.contains(idOf.apply(row))) {
+                    replace.accept(row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replaceProduct(Integer id, Product product) {
+        var previousCategory = categoryOf.remove(id);
+        if (previousCategory != null) {
+            removeFrom(byCategory, previousCategory, id);
+        }
+        products.remove(id);
+        if (product != null) {
+            products.add(id);
+            if (product.getCategoryId() != null) {
+                categoryOf.put(id, product.getCategoryId());
+                byCategory.computeIfAbsent(product.getCategoryId(), key -> new RoaringBitmap()).add(id);
+            }
+        }
+    }
+
+    private void replaceAttribute(Integer id, ProductAttribute attribute) {
+        var previous = attributeRows.remove(id);
+        if (previous != null) {
+            detach(attributeIdsByProduct, previous.productId(), id);
+            refreshAttribute(previous.productId(), previous.type(), previous.value());
+        }
+        if (attribute != null && attribute.getProductId() != null && attribute.getType() != null && attribute.getValue() != null) {
+            var row = new AttributeRow(attribute.getProductId(), attribute.getType(), normalize(attribute.getValue()));
+            attributeRows.put(id, row);
+            attributeIdsByProduct.computeIfAbsent(row.productId(), key -> new HashSet<>()).add(id);
+            refreshAttribute(row.productId(), row.type(), row.value());
+        }
+    }
+
+    // A product keeps a value's bit while any of its attribute rows still carries that value
+    private void refreshAttribute(Integer productId, ProductAttributeType type, String value) {
+        boolean carried = attributeIdsByProduct.getOrDefault(productId, Set.of()).stream()
+                .map(attributeRows::get)
+                .anyMatch(row -> row.type() == type && row.value().equals(value));
+        var bitmaps = byAttribute.computeIfAbsent(type, key -> new TreeMap<>());
+        if (carried) {
+            bitmaps.computeIfAbsent(value, key -> new RoaringBitmap()).add(productId);
+        } else {
+            removeFrom(bitmaps, value, productId);
+        }
+    }
+
+    private void replaceSku(Integer id, ProductsSku sku) {
+        var previous = skuRows.remove(id);
+        if (previous != null) {
+            detach(skuIdsByProduct, previous.productId(), id);
+            refreshPriceBand(previous.productId(), band(previous.price()));
+        }
+        if (sku != null && sku.getProductId() != null && sku.getPrice() != null) {
+            var row = new SkuRow(sku.getProductId(), sku.getPrice());
+            skuRows.put(id, row);
+            skuIdsByProduct.computeIfAbsent(row.productId(), key -> new HashSet<>()).add(id);
+            refreshPriceBand(row.productId(), band(row.price()));
+        }
+    }
+
+    private void refreshPriceBand(Integer productId, int band) {
+        boolean priced = skuIdsByProduct.getOrDefault(productId, Set.of()).stream()
+                .anyMatch(skuId -> band(skuRows.get(skuId).price()) == band);
+        if (priced) {
+            byPriceBand[band].add(productId);
+        } else {
+            byPriceBand[band].remove(productId);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int id) {
+        var bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static void detach(Map<Integer, Set<Integer>> idsByProduct, Integer productId, Integer id) {
+        var ids = idsByProduct.get(productId);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByProduct.remove(productId);
+            }
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.product.model.Product;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant matching on product names. Every distinct name word is cut into padded trigrams
+ * ("^sh", "shi", ... "rt$"). A query word gathers the vocabulary words sharing at least one of
+ * its trigrams and keeps those within a bounded Damerau-Levenshtein distance, so the expensive
+ * comparison runs against a small slice of the vocabulary rather than every name. Adjacent words
+ * are also indexed joined, which is how "tshrit" reaches "T-Shirt". A word with no trigram left
+ * in common is not found, which in practice means a typo in a three- or four-letter word
+ * ("rde" for "red").
+ * <p>
+ * A product matches when each query word matches one of its words; fewer edits in total rank
+ * first. Locking and bulk loading follow {@link ProductSearchIndex}.
+ */
+public class ProductFuzzyIndex {
+
+    // Trigram postings are split by word length so a query only visits words it could reach;
+    // anything this long or longer shares the last bucket
+    private static final int LENGTH_BUCKETS = 32;
+
+    // Worst candidate on top of the result heap
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingInt(Match::edits)
+            .thenComparing(Match::id).reversed();
+
+    public record Match(Integer id, int edits) {
+    }
+
+    private record TermMatch(Term term, int edits) {
+    }
+
+    private static final class Term {
+        final String text;
+        final int ordinal;
+        final SortedInts products = new SortedInts();
+
+        Term(String text, int ordinal) {
+            this.text = text;
+            this.ordinal = ordinal;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Map<String, SortedInts[]> trigrams = new HashMap<>();
+    private final Map<Integer, String[]> productTerms = new HashMap<>();
+    private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private Term[] termsByOrdinal = new Term[1024];
+    private int nextOrdinal;
+    private Set<Integer> writtenDuringLoad;
+
+    /**
+     * Edits tolerated for a query word of the given length: none up to two characters, one up to
+     * five, two beyond.
+     */
+    static int maxEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return productTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int vocabularySize() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            markWritten(product.getId());
+            unindex(product.getId());
+            index(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            markWritten(id);
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds products read by a bulk load, skipping any product written since {@link #beginLoad}.
+     */
+    public void load(List<Product> batch) {
+        lock.writeLock().lock();
+        try {
+            for (var product : batch) {
+                if (writtenDuringLoad == null || !writtenDuringLoad.contains(product.getId())) {
+                    unindex(product.getId());
+                    index(product);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Match> search(String query, int limit) {
+        var words = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<List<TermMatch>> expansions = new ArrayList<>(words.size());
+            for (String word : words) {
+                var expansion = expand(word);
+                if (expansion.isEmpty()) {
+                    return List.of();
+                }
+                expansions.add(expansion);
+            }
+            // Walk the word with the fewest products and probe the others by binary search
+            var driver = expansions.stream().min(Comparator.comparingLong(ProductFuzzyIndex::postingsSize)).get();
+            var others = expansions.stream().filter(expansion -> expansion != driver).toList();
+            Set<Integer> seen = driver.size() > 1 ? new HashSet<>() : null;
+
+            var heap = new PriorityQueue<>(limit + 1, WORST_FIRST);
+            for (var match : driver) {
+                if (heap.size() == limit && match.edits() > heap.peek().edits()) {
+                    break;
+                }
+                // Ids ascend within a term, so the probes into the other words only ever move forward
+                int[][] cursors = new int[others.size()][];
+                for (int o = 0; o < others.size(); o++) {
+                    cursors[o] = new int[others.get(o).size()];
+                }
+                var products = match.term().products;
+                candidates:
+                for (int i = 0; i < products.size; i++) {
+                    int id = products.values[i];
+                    if (seen != null && !seen.add(id)) {
+                        continue;
+                    }
+                    int edits = match.edits();
+                    for (int o = 0; o < others.size(); o++) {
+                        int best = bestEdits(others.get(o), cursors[o], id);
+                        if (best < 0) {
+                            continue candidates;
+                        }
+                        edits += best;
+                    }
+                    if (heap.size() < limit) {
+                        heap.add(new Match(id, edits));
+                    } else if (edits < heap.peek().edits() || (edits == heap.peek().edits() && id < heap.peek().id())) {
+                        heap.poll();
+                        heap.add(new Match(id, edits));
+                    } else if (others.isEmpty()) {
+                        // Every later id in this term has the same edits and loses the tie
+                        break;
+                    }
+                }
+            }
+            List<Match> matches = new ArrayList<>(heap);
+            matches.sort(WORST_FIRST.reversed());
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vocabulary words within reach of {@code word}, closest first.
+     */
+    private List<TermMatch> expand(String word) {
+        int maxEdits = maxEdits(word.length());
+        if (maxEdits == 0) {
+            var term = terms.get(word);
+            return term == null ? List.of() : List.of(new TermMatch(term, 0));
+        }
+        List<TermMatch> matches = new ArrayList<>();
+        Set<Integer> checked = new HashSet<>();
+        int shortest = bucket(Math.max(1, word.length() - maxEdits));
+        int longest = bucket(word.length() + maxEdits);
+        for (String trigram : trigrams(word)) {
+            var buckets = trigrams.get(trigram);
+            if (buckets == null) {
+                continue;
+            }
+            for (int length = shortest; length <= longest; length++) {
+                var ordinals = buckets[length];
+                for (int i = 0; ordinals != null && i < ordinals.size; i++) {
+                    int ordinal = ordinals.values[i];
+                    if (!checked.add(ordinal)) {
+                        continue;
+                    }
+                    var term = termsByOrdinal[ordinal];
+                    int edits = distance(word, term.text, maxEdits);
+                    if (edits <= maxEdits) {
+                        matches.add(new TermMatch(term, edits));
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(TermMatch::edits));
+        return matches;
+    }
+
+    private static long postingsSize(List<TermMatch> expansion) {
+        return expansion.stream().mapToLong(match -> match.term().products.size).sum();
+    }
+
+    // Fewest edits with which this word matches the product, or -1; cursors hold each term's search position
+    private static int bestEdits(List<TermMatch> expansion, int[] cursors, int id) {
+        for (int t = 0; t < expansion.size(); t++) {
+            var products = expansion.get(t).term().products;
+            int position = products.seek(cursors[t], id);
+            cursors[t] = position;
+            if (position < products.size && products.values[position] == id) {
+                return expansion.get(t).edits();
+            }
+        }
+        return -1;
+    }
+
+    private static int bucket(int length) {
+        return Math.min(length, LENGTH_BUCKETS);
+    }
+
+    private void markWritten(Integer id) {
+        if (writtenDuringLoad != null) {
+            writtenDuringLoad.add(id);
+        }
+    }
+
+    private void index(Product product) {
+        var words = Tokenizer.tokenize(product.getName());
+        if (words.isEmpty()) {
+            return;
+        }
+        Set<String> texts = new LinkedHashSet<>(words);
+        for (int i = 1; i < words.size(); i++) {
+            texts.add(words.get(i - 1) + words.get(i));
+        }
+        String[] indexed = new String[texts.size()];
+        int i = 0;
+        for (String text : texts) {
+            var term = terms.computeIfAbsent(text, this::newTerm);
+            term.products.add(product.getId());
+            // Keep the vocabulary's copy so each word is held once
+            indexed[i++] = term.text;
+        }
+        productTerms.put(product.getId(), indexed);
+    }
+
+    private void unindex(Integer id) {
+        var indexed = productTerms.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        for (String text : indexed) {
+            var term = terms.get(text);
+            term.products.remove(id);
+            if (term.products.size == 0) {
+                terms.remove(text);
+                for (String trigram : trigrams(text)) {
+                    var buckets = trigrams.get(trigram);
+                    var ordinals = buckets[bucket(text.length())];
+                    ordinals.remove(term.ordinal);
+                    if (ordinals.size == 0) {
+                        buckets[bucket(text.length())] = null;
+                        if (Arrays.stream(buckets).allMatch(Objects::isNull)) {
+                            trigrams.remove(trigram);
+                        }
+                    }
+                }
+                termsByOrdinal[term.ordinal] = null;
+                freeOrdinals.push(term.ordinal);
+            }
+        }
+    }
+
+    private Term newTerm(String text) {
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = nextOrdinal++;
+            if (ordinal == termsByOrdinal.length) {
+                termsByOrdinal = Arrays.copyOf(termsByOrdinal, ordinal * 2);
+            }
+        } else {
+            ordinal = freeOrdinals.pop();
+        }
+        var term = new Term(text, ordinal);
+        termsByOrdinal[ordinal] = term;
+        for (String trigram : trigrams(text)) {
+            var buckets = trigrams.computeIfAbsent(trigram, key -> new SortedInts[LENGTH_BUCKETS + 1]);
+            if (buckets[bucket(text.length())] == null) {
+                buckets[bucket(text.length())] = new SortedInts();
+            }
+            buckets[bucket(text.length())].add(ordinal);
+        }
+        return term;
+    }
+
+    static Set<String> trigrams(String word) {
+        String padded = "^" + word + "$";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions), giving up
+     * with {@code max + 1} as soon as every alignment needs more than {@code max} edits.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    // Sorted int set on a plain array; postings here are read far more often than written
+    private static final class SortedInts {
+        int[] values = new int[2];
+        int size;
+
+        // Position of the first value >= the target at or after `from`, galloping ahead first
+        int seek(int from, int value) {
+            int step = 1;
+            int low = from;
+            while (low + step < size && values[low + step] < value) {
+                low += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(values, low, Math.min(low + step + 1, size), value);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        void add(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        void remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.product.model.Product;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over product name, summary and description, ranked with BM25. Name terms count
+ * three times and summary terms twice, a cheap stand-in for per-field BM25F.
+ * <p>
+ * Products are numbered densely so postings are plain int arrays and a query scores with
+ * primitive arithmetic only. Queries share a read lock; a write holds the write lock only while
+ * it swaps one product's postings. Each product remembers its slot in every posting list it is
+ * on, so replacing or removing it costs time in its own terms, not in how common they are.
+ * During a bulk load, products written through {@link #put}/{@link #remove} are remembered so
+ * the load doesn't overwrite them with the older copy it read.
+ */
+public class ProductSearchIndex {
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    static final int NAME_WEIGHT = 3;
+    static final int SUMMARY_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    public record Hit(Integer id, String name, String summary, String cover, Integer categoryId, double score) {
+    }
+
+    /**
+     * A tokenized product, built outside the lock. Terms and frequencies are parallel arrays; once
+     * indexed, each term is swapped for the index's own copy so equal terms share one String.
+     */
+    public record Document(Integer id, String name, String summary, String cover, Integer categoryId,
+                           String[] terms, int[] frequencies, int length) {
+
+        public static Document of(Product product) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = addTerms(frequencies, product.getName(), NAME_WEIGHT)
+                    + addTerms(frequencies, product.getSummary(), SUMMARY_WEIGHT)
+                    + addTerms(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+            String[] terms = new String[frequencies.size()];
+            int[] counts = new int[frequencies.size()];
+            int i = 0;
+            for (var entry : frequencies.entrySet()) {
+                terms[i] = entry.getKey();
+                counts[i++] = entry.getValue();
+            }
+            return new Document(product.getId(), product.getName(), product.getSummary(), product.getCover(),
+                    product.getCategoryId(), terms, counts, length);
+        }
+
+        private static int addTerms(Map<String, Integer> frequencies, String text, int weight) {
+            var tokens = Tokenizer.tokenize(text);
+            tokens.forEach(token -> frequencies.merge(token, weight, Integer::sum));
+            return tokens.size() * weight;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Integer> ordinals = new HashMap<>();
+    private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private Document[] documents = new Document[1024];
+    private int[] lengths = new int[1024];
+    // Per ordinal, the slot in postings.get(terms[i]) of each of its document's terms
+    private int[][] slots = new int[1024][];
+    private int nextOrdinal;
+    // Catalog-sized score arrays kept between queries; allocating one per query is a humongous allocation on G1
+    private final ConcurrentLinkedDeque<double[]> denseScratch = new ConcurrentLinkedDeque<>();
+    private long totalLength;
+    private Set<Integer> writtenDuringLoad;
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Describes an indexed product with a score computed elsewhere, such as by fuzzy matching.
+     */
+    public Optional<Hit> hit(Integer id, double score) {
+        lock.readLock().lock();
+        try {
+            var ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                return Optional.empty();
+            }
+            var document = documents[ordinal];
+            return Optional.of(new Hit(document.id(), document.name(), document.summary(), document.cover(),
+                    document.categoryId(), score));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            markWritten(document.id());
+            unindex(document.id());
+            index(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            markWritten(id);
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds documents read by a bulk load, skipping any product written since {@link #beginLoad}.
+     */
+    public void load(List<Document> batch) {
+        lock.writeLock().lock();
+        try {
+            for (var document : batch) {
+                if (writtenDuringLoad == null || !writtenDuringLoad.contains(document.id())) {
+                    unindex(document.id());
+                    index(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Hit> search(String query, int limit) {
+        var terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int count = ordinals.size();
+            if (count == 0) {
+                return List.of();
+            }
+            List<Postings> matched = new ArrayList<>(terms.size());
+            int candidates = 0;
+            for (String term : terms) {
+                var posting = postings.get(term);
+                if (posting != null) {
+                    matched.add(posting);
+                    candidates += posting.size;
+                }
+            }
+            if (matched.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / count);
+            double constantNorm = K1 * (1 - B);
+            double lengthNorm = K1 * B / averageLength;
+            // Dense scores once the query touches a good share of the catalog; hashing costs more there
+            boolean dense = candidates > nextOrdinal / 8;
+            double[] denseScores = dense ? borrowDenseScores() : null;
+            var sparseScores = dense ? null : new SparseScores(candidates);
+            for (var posting : matched) {
+                double weight = (K1 + 1) * Math.log(1 + (count - posting.size + 0.5) / (posting.size + 0.5));
+                for (int i = 0; i < posting.size; i++) {
+                    int ordinal = posting.ordinals[i];
+                    int tf = posting.frequencies[i];
+                    double score = weight * tf / (tf + constantNorm + lengthNorm * lengths[ordinal]);
+                    if (dense) {
+                        denseScores[ordinal] += score;
+                    } else {
+                        sparseScores.add(ordinal, score);
+                    }
+                }
+            }
+
+            var top = new TopHits(limit);
+            if (dense) {
+                // Walk the postings rather than the whole array, zeroing as we go so the array can be reused
+                for (var posting : matched) {
+                    for (int i = 0; i < posting.size; i++) {
+                        int ordinal = posting.ordinals[i];
+                        double score = denseScores[ordinal];
+                        if (score > 0) {
+                            denseScores[ordinal] = 0;
+                            top.offer(ordinal, score);
+                        }
+                    }
+                }
+                denseScratch.push(denseScores);
+            } else {
+                for (int slot = 0; slot < sparseScores.keys.length; slot++) {
+                    if (sparseScores.keys[slot] >= 0) {
+                        top.offer(sparseScores.keys[slot], sparseScores.values[slot]);
+                    }
+                }
+            }
+            return top.hits();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double[] borrowDenseScores() {
+        var scores = denseScratch.poll();
+        if (scores == null || scores.length < nextOrdinal) {
+            // Headroom so a growing catalog doesn't retire the pooled arrays on every insert
+            scores = new double[nextOrdinal + nextOrdinal / 4 + 64];
+        }
+        return scores;
+    }
+
+    private record Candidate(int ordinal, double score) {
+    }
+
+    // Min-heap of the best `limit` so far; ties go to the lower product id
+    private final class TopHits {
+        final int limit;
+        final PriorityQueue<Candidate> heap;
+        double threshold;
+
+        TopHits(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Candidate::score)
+                    .thenComparing(candidate -> documents[candidate.ordinal()].id(), Comparator.reverseOrder()));
+        }
+
+        void offer(int ordinal, double score) {
+            if (score < threshold) {
+                return;
+            }
+            if (heap.size() == limit) {
+                var weakest = heap.peek();
+                if (score == weakest.score() && documents[ordinal].id() > documents[weakest.ordinal()].id()) {
+                    return;
+                }
+            }
+            heap.offer(new Candidate(ordinal, score));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+            if (heap.size() == limit) {
+                threshold = heap.peek().score();
+            }
+        }
+
+        List<Hit> hits() {
+            List<Hit> hits = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                var candidate = heap.poll();
+                var document = documents[candidate.ordinal()];
+                hits.add(new Hit(document.id(), document.name(), document.summary(), document.cover(),
+                        document.categoryId(), candidate.score()));
+            }
+            return hits.reversed();
+        }
+    }
+
+    private void markWritten(Integer id) {
+        if (writtenDuringLoad != null) {
+            writtenDuringLoad.add(id);
+        }
+    }
+
+    private void index(Document document) {
+        int ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+        if (ordinal == documents.length) {
+            documents = Arrays.copyOf(documents, ordinal * 2);
+            lengths = Arrays.copyOf(lengths, ordinal * 2);
+            slots = Arrays.copyOf(slots, ordinal * 2);
+        }
+        ordinals.put(document.id(), ordinal);
+        documents[ordinal] = document;
+        lengths[ordinal] = document.length();
+        totalLength += document.length();
+        var terms = document.terms();
+        var documentSlots = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            var posting = postings.computeIfAbsent(terms[i], Postings::new);
+            documentSlots[i] = posting.add(ordinal, document.frequencies()[i], i);
+            terms[i] = posting.term;
+        }
+        slots[ordinal] = documentSlots;
+    }
+
+    private void unindex(Integer id) {
+        var ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        var previous = documents[ordinal];
+        totalLength -= previous.length();
+        var terms = previous.terms();
+        var documentSlots = slots[ordinal];
+        for (int i = 0; i < terms.length; i++) {
+            var posting = postings.get(terms[i]);
+            int slot = documentSlots[i];
+            if (posting.removeAt(slot)) {
+                // The last entry moved into the hole; point its product at the new slot
+                slots[posting.ordinals[slot]][posting.termIndexes[slot]] = slot;
+            }
+            if (posting.size == 0) {
+                postings.remove(terms[i]);
+            }
+        }
+        documents[ordinal] = null;
+        slots[ordinal] = null;
+        freeOrdinals.push(ordinal);
+    }
+
+    // Unordered; removal swaps the last entry into the hole. termIndexes[i] is where this term
+    // sits in the terms of the document at ordinals[i], to find its slot when the entry moves.
+    private static final class Postings {
+        final String term;
+        int[] ordinals = new int[4];
+        int[] frequencies = new int[4];
+        int[] termIndexes = new int[4];
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        int add(int ordinal, int frequency, int termIndex) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                termIndexes = Arrays.copyOf(termIndexes, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            termIndexes[size] = termIndex;
+            return size++;
+        }
+
+        // True when another entry moved into the slot
+        boolean removeAt(int slot) {
+            size--;
+            if (slot == size) {
+                return false;
+            }
+            ordinals[slot] = ordinals[size];
+            frequencies[slot] = frequencies[size];
+            termIndexes[slot] = termIndexes[size];
+            return true;
+        }
+    }
+
+    // Open addressing, sized for the postings being summed
+    private static final class SparseScores {
+        final int[] keys;
+        final double[] values;
+        final int mask;
+
+        SparseScores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new double[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, -1);
+        }
+
+        void add(int ordinal, double score) {
+            int slot = (ordinal * 0x9E3779B9) >>> 1 & mask;
+            while (keys[slot] >= 0 && keys[slot] != ordinal) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = ordinal;
+            values[slot] += score;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.product.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead over product names. Names are folded the same way as search terms and kept in a radix
+ * trie: single-child chains collapse into one node with a multi-character label, and every node
+ * carries the highest weight beneath it. The top K for a prefix then come out of a best-first
+ * walk that stops after K names instead of visiting the whole subtree.
+ * <p>
+ * Locking and bulk loading follow {@link ProductSearchIndex}.
+ */
+public class ProductSuggester {
+
+    private static final Node[] NO_CHILDREN = {};
+    private static final Entry[] NO_ENTRIES = {};
+    // Highest weight first, then alphabetical, then by id
+    private static final Comparator<Frontier> BEST_FIRST = Comparator.<Frontier>comparingInt(frontier -> -frontier.weight)
+            .thenComparing(Frontier::key)
+            .thenComparing(frontier -> frontier.entry == null)
+            .thenComparing(frontier -> frontier.entry == null ? 0 : frontier.entry.id());
+
+    public record Suggestion(Integer id, String name, int weight) {
+    }
+
+    private record Entry(Integer id, String name, int weight) {
+    }
+
+    // A subtree (node set) or a single name (entry set) waiting in the best-first queue. The path
+    // string is only needed to order equal weights, so it is built on first use.
+    private static final class Frontier {
+        final Node node;
+        final Entry entry;
+        final Frontier parent;
+        final int weight;
+        String key;
+
+        Frontier(Node node, Entry entry, Frontier parent, int weight) {
+            this.node = node;
+            this.entry = entry;
+            this.parent = parent;
+            this.weight = weight;
+        }
+
+        String key() {
+            if (key == null) {
+                // An entry shares its node's path
+                key = entry != null ? parent.key() : parent.key() + new String(node.label);
+            }
+            return key;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node(new char[0]);
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private Set<Integer> writtenDuringLoad;
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            markWritten(product.getId());
+            unindex(product.getId());
+            index(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            markWritten(id);
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds products read by a bulk load, skipping any product written since {@link #beginLoad}.
+     */
+    public void load(List<Product> batch) {
+        lock.writeLock().lock();
+        try {
+            for (var product : batch) {
+                if (writtenDuringLoad == null || !writtenDuringLoad.contains(product.getId())) {
+                    unindex(product.getId());
+                    index(product);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = key(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // Walk down to the node whose path covers the whole prefix
+            Node node = root;
+            int position = 0;
+            while (position < key.length()) {
+                int index = node.childIndex(key.charAt(position));
+                if (index < 0) {
+                    return List.of();
+                }
+                Node child = node.children[index];
+                int common = commonLength(child.label, key, position);
+                if (common < child.label.length && position + common < key.length()) {
+                    return List.of();
+                }
+                position += child.label.length;
+                node = child;
+            }
+            // The prefix may end partway through the last label
+            int overshoot = position - key.length();
+            String path = key + new String(node.label, node.label.length - overshoot, overshoot);
+
+            List<Suggestion> suggestions = new ArrayList<>(limit);
+            var queue = new PriorityQueue<>(BEST_FIRST);
+            var start = new Frontier(node, null, null, node.maxWeight);
+            start.key = path;
+            queue.add(start);
+            while (!queue.isEmpty() && suggestions.size() < limit) {
+                var next = queue.poll();
+                if (next.entry != null) {
+                    suggestions.add(new Suggestion(next.entry.id(), next.entry.name(), next.entry.weight()));
+                    continue;
+                }
+                for (var entry : next.node.entries) {
+                    queue.add(new Frontier(null, entry, next, entry.weight()));
+                }
+                for (var child : next.node.children) {
+                    queue.add(new Frontier(child, null, next, child.maxWeight));
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The trie key for a name or a typed prefix: folded words joined by single spaces. A trailing
+     * separator is kept so "red " doesn't also suggest "redwood".
+     */
+    static String key(String text) {
+        var words = Tokenizer.tokenize(text);
+        if (words.isEmpty()) {
+            return "";
+        }
+        String key = String.join(" ", words);
+        char last = text.charAt(text.length() - 1);
+        return Character.isLetterOrDigit(last) ? key : key + " ";
+    }
+
+    private void markWritten(Integer id) {
+        if (writtenDuringLoad != null) {
+            writtenDuringLoad.add(id);
+        }
+    }
+
+    private void index(Product product) {
+        String key = key(product.getName()).stripTrailing();
+        if (key.isEmpty()) {
+            return;
+        }
+        var entry = new Entry(product.getId(), product.getName(),
+                product.getPopularity() == null ? 0 : product.getPopularity());
+        entries.put(entry.id(), entry);
+
+        Node node = root;
+        node.maxWeight = Math.max(node.maxWeight, entry.weight());
+        int position = 0;
+        while (position < key.length()) {
+            int index = node.childIndex(key.charAt(position));
+            if (index < 0) {
+                var leaf = new Node(key.substring(position).toCharArray());
+                leaf.addEntry(entry);
+                node.insertChild(-index - 1, leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonLength(child.label, key, position);
+            if (common < child.label.length) {
+                child = node.split(index, common);
+            }
+            position += common;
+            node = child;
+            node.maxWeight = Math.max(node.maxWeight, entry.weight());
+        }
+        node.addEntry(entry);
+    }
+
+    private void unindex(Integer id) {
+        var entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        String key = key(entry.name()).stripTrailing();
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            node = node.children[node.childIndex(key.charAt(position))];
+            position += node.label.length;
+            path.add(node);
+        }
+        node.removeEntry(id);
+
+        // Bottom-up: drop empty nodes, fold single-child chains back together, refresh max weights
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node current = path.get(depth);
+            Node parent = path.get(depth - 1);
+            int index = parent.childIndex(current.label[0]);
+            if (current.entries.length == 0 && current.children.length == 0) {
+                parent.removeChild(index);
+            } else if (current.entries.length == 0 && current.children.length == 1) {
+                Node only = current.children[0];
+                char[] merged = Arrays.copyOf(current.label, current.label.length + only.label.length);
+                System.arraycopy(only.label, 0, merged, current.label.length, only.label.length);
+                only.label = merged;
+                parent.children[index] = only;
+            } else {
+                current.refreshMaxWeight();
+            }
+        }
+        root.refreshMaxWeight();
+    }
+
+    private static int commonLength(char[] label, String key, int offset) {
+        int length = Math.min(label.length, key.length() - offset);
+        for (int i = 0; i < length; i++) {
+            if (label[i] != key.charAt(offset + i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static final class Node {
+        char[] label;
+        // Sorted by first label character
+        Node[] children = NO_CHILDREN;
+        // Names ending exactly here; usually none or one
+        Entry[] entries = NO_ENTRIES;
+        int maxWeight = Integer.MIN_VALUE;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char candidate = children[mid].label[0];
+                if (candidate < first) {
+                    low = mid + 1;
+                } else if (candidate > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk.length == 0 ? NO_CHILDREN : shrunk;
+        }
+
+        // Cuts the child's label after `at` characters and returns the new intermediate node
+        Node split(int index, int at) {
+            Node child = children[index];
+            Node middle = new Node(Arrays.copyOf(child.label, at));
+            child.label = Arrays.copyOfRange(child.label, at, child.label.length);
+            middle.children = new Node[] {child};
+            middle.maxWeight = child.maxWeight;
+            children[index] = middle;
+            return middle;
+        }
+
+        void addEntry(Entry entry) {
+            entries = Arrays.copyOf(entries, entries.length + 1);
+            entries[entries.length - 1] = entry;
+            maxWeight = Math.max(maxWeight, entry.weight());
+        }
+
+        void removeEntry(Integer id) {
+            entries = Arrays.stream(entries).filter(entry -> !entry.id().equals(id)).toArray(Entry[]::new);
+            if (entries.length == 0) {
+                entries = NO_ENTRIES;
+            }
+            refreshMaxWeight();
+        }
+
+        void refreshMaxWeight() {
+            int max = Integer.MIN_VALUE;
+            for (var entry : entries) {
+                max = Math.max(max, entry.weight());
+            }
+            for (var child : children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            maxWeight = max;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.PendingPurge;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
+import com.alexsys.smartmarket.product.repository.ProductAttributeRepository;
+import com.alexsys.smartmarket.product.repository.ProductRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuStockBucketRepository;
+import com.alexsys.smartmarket.product.repository.SubCategoryRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Removes what hangs off soft-deleted products and categories. Deletion only tombstones the row
+ * and queues a {@link PendingPurge}; this works the queue in the background, a chunk of ids at a
+ * time, each chunk one set-based DELETE in its own short transaction. A product with thousands of
+ * SKUs therefore never holds locks for long, and a purge cut short resumes where it stopped.
+ * <p>
+ * Every instance runs the job. Each entry is claimed before it is worked and the claim renewed
+ * before every chunk, so an entry is worked by one instance at a time; one whose instance died
+ * is taken over once the claim runs out.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class CatalogPurgeService {
+
+    public static final String PURGED_ROWS = "smartmarket.purge.rows";
+
+    private static final int PURGES_PER_RUN = 100;
+
+    private final PendingPurgeRepository pendingPurgeRepository;
+    private final ProductRepository productRepository;
+    private final SubCategoryRepository subCategoryRepository;
+    private final ProductAttributeRepository productAttributeRepository;
+    private final ProductsSkuRepository productsSkuRepository;
+    private final ProductsSkuStockBucketRepository bucketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache productsCache;
+    private final Cache productsSkuCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final Duration lease;
+    private final String owner = UUID.randomUUID().toString();
+
+    public CatalogPurgeService(PendingPurgeRepository pendingPurgeRepository, ProductRepository productRepository,
+                               SubCategoryRepository subCategoryRepository, ProductAttributeRepository productAttributeRepository,
+                               ProductsSkuRepository productsSkuRepository, ProductsSkuStockBucketRepository bucketRepository,
+                               PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                               ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                               @Value("${smartmarket.purge.chunk-size:500}") int chunkSize,
+                               @Value("${smartmarket.purge.lease:PT30S}") Duration lease) {
+        this.pendingPurgeRepository = pendingPurgeRepository;
+        this.productRepository = productRepository;
+        this.subCategoryRepository = subCategoryRepository;
+        this.productAttributeRepository = productAttributeRepository;
+        this.productsSkuRepository = productsSkuRepository;
+        this.bucketRepository = bucketRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productsCache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        this.productsSkuCache = cacheManager.getCache(CacheConfig.PRODUCT_SKUS);
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PendingPurge> getPendingPurges() {
+        return pendingPurgeRepository.findByOrderByIdAsc(Limit.unlimited());
+    }
+
+    @Scheduled(initialDelayString = "${smartmarket.purge.interval:PT5S}",
+               fixedDelayString = "${smartmarket.purge.interval:PT5S}")
+    public void purgePending() {
+        // Finished entries leave the queue, and a category's products join it, so run until it is empty
+        // Entries other instances hold are left out, so this ends once the rest are done
+        List<PendingPurge> batch;
+        do {
+            batch = pendingPurgeRepository.findClaimable(Instant.now(), Limit.of(PURGES_PER_RUN));
+            batch.forEach(this::purge);
+        } while (!batch.isEmpty());
+    }
+
+    private void purge(PendingPurge purge) {
+        boolean done = switch (purge.getTarget()) {
+            case PRODUCT -> drain(purge, this::purgeSkus) && drain(purge, this::purgeAttributes);
+            case CATEGORY -> drain(purge, this::purgeSubCategories) && drain(purge, this::tombstoneProducts);
+        };
+        if (done) {
+            pendingPurgeRepository.deleteById(purge.getId());
+        }
+    }
+
+    // A short chunk was the last one. False when another instance holds the entry.
+    private boolean drain(PendingPurge purge, ToIntFunction<PendingPurge> chunk) {
+        int found;
+        do {
+            if (!claim(purge)) {
+                return false;
+            }
+            found = chunk.applyAsInt(purge);
+        } while (found == chunkSize);
+        return true;
+    }
+
+    private boolean claim(PendingPurge purge) {
+        var now = Instant.now();
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                pendingPurgeRepository.claim(purge.getId(), owner, now, now.plus(lease)) == 1));
+    }
+
+    private int purgeSkus(PendingPurge purge) {
+        var chunk = inChunk(purge, "products_skus", ProductsSku.class,
+                () -> productsSkuRepository.findIdsByProductId(purge.getTargetId(), Limit.of(chunkSize)),
+                ids -> {
+                    // Flash-sale buckets of the SKU go first; nothing else points at them
+                    bucketRepository.deleteBySkuIdIn(ids);
+                    return productsSkuRepository.deleteByIdIn(ids) == 0 ? List.of() : ids;
+                });
+        chunk.removed().forEach(productsSkuCache::evict);
+        return chunk.found();
+    }
+
+    private int purgeAttributes(PendingPurge purge) {
+        return inChunk(purge, "product_attributes", ProductAttribute.class,
+                () -> productAttributeRepository.findIdsByProductId(purge.getTargetId(), Limit.of(chunkSize)),
+                ids -> productAttributeRepository.deleteByIdIn(ids) == 0 ? List.of() : ids).found();
+    }
+
+    private int purgeSubCategories(PendingPurge purge) {
+        return inChunk(purge, "sub_categories", SubCategory.class,
+                () -> subCategoryRepository.findIdsByCategoryId(purge.getTargetId(), Limit.of(chunkSize)),
+                ids -> subCategoryRepository.deleteByIdIn(ids) == 0 ? List.of() : ids).found();
+    }
+
+    // The category's products become tombstones of their own, purged as queue entries of their own
+    private int tombstoneProducts(PendingPurge purge) {
+        var chunk = inChunk(purge, "products", Product.class,
+                () -> productRepository.findIdsByCategoryId(purge.getTargetId(), Limit.of(chunkSize)),
+                ids -> {
+                    // One at a time: a product deleted by itself since the query is left to that delete,
+                    // which queued and announced it already
+                    var tombstoned = ids.stream().filter(id -> productRepository.softDeleteAllById(List.of(id)) == 1).toList();
+                    pendingPurgeRepository.saveAll(tombstoned.stream().map(id -> PendingPurge.of(PendingPurge.Target.PRODUCT, id)).toList());
+                    return tombstoned;
+                });
+        chunk.removed().forEach(productsCache::evict);
+        return chunk.found();
+    }
+
+    // How many ids the chunk's query found, and those it removed; none when its statement hit no row
+    private record Chunk(int found, List<Integer> removed) {
+    }
+
+    // Deleted events go out inside the chunk's transaction, with the outbox rows they produce
+    private Chunk inChunk(PendingPurge purge, String table, Class<?> type,
+                          Supplier<List<Integer>> find, Function<List<Integer>, List<Integer>> remove) {
+        Chunk chunk = transactionTemplate.execute(status -> {
+            var ids = find.get();
+            if (ids.isEmpty()) {
+                return new Chunk(0, List.of());
+            }
+            // Empty when the rows went between the query and the statement; they were announced then
+            var removed = remove.apply(ids);
+            if (removed.isEmpty()) {
+                return new Chunk(ids.size(), List.of());
+            }
+            pendingPurgeRepository.addPurgedRows(purge.getId(), removed.size());
+            removed.forEach(id -> eventPublisher.publishEvent(EntityChangedEvent.deleted(type, id)));
+            return new Chunk(ids.size(), removed);
+        });
+        meterRegistry.counter(PURGED_ROWS, "table", table).increment(chunk.removed().size());
+        return chunk;
+    }
+}
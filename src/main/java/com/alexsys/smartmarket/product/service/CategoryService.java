@@ -1,26 +1,52 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
 import com.alexsys.smartmarket.product.mapper.CategoryMapper;
 import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.PendingPurge;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
 import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
-    public CategoryService(CategoryRepository categoryRepository, CategoryMapper categoryMapper) {
+    private final PartialUpdates partialUpdates;
+    private final PendingPurgeRepository pendingPurgeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    public CategoryService(CategoryRepository categoryRepository, CategoryMapper categoryMapper, PartialUpdates partialUpdates,
+                           PendingPurgeRepository pendingPurgeRepository, ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
+        this.partialUpdates = partialUpdates;
+        this.pendingPurgeRepository = pendingPurgeRepository;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Category> getAllCategories() { return categoryRepository.findAll(); }
+    @Transactional(readOnly = true)
+    public CursorPage<Category> getCategoriesPage(Integer afterId, int limit) {
+        return CursorPage.of(categoryRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.probeLimit(limit)), limit, Category::getId);
+    }
+    @Transactional(readOnly = true)
     public Optional<Category> getCategoryById(Integer id) { return categoryRepository.findById(id); }
-    public Category saveCategory(Category category) { return categoryRepository.save(category); }
+    @Transactional
+    public Category saveCategory(Category category) {
+        var saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(Category.class, saved.getId(), saved));
+        return saved;
+    }
+    @Transactional
     public Optional<Category> updateCategory(Integer id, Category categoryDetails) {
         var existingCategoryOptional = getCategoryById(id);
         if (existingCategoryOptional.isEmpty()) {
@@ -28,7 +54,26 @@ public class CategoryService {
         }
         var existingCategory = existingCategoryOptional.get();
         categoryMapper.update(existingCategory, categoryDetails);
-        return Optional.ofNullable(categoryRepository.save(existingCategory));
+        var saved = categoryRepository.save(existingCategory);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(Category.class, id, saved));
+        return Optional.ofNullable(saved);
+    }
+
+    @Transactional
+    public boolean patchCategory(Integer id, Category changes) {
+        if (partialUpdates.update(Category.class, id, changes) == 0) {
+            return false;
+        }
+        // Read back for the taxonomy tree, which holds whole rows
+        categoryRepository.findById(id).ifPresent(saved -> eventPublisher.publishEvent(EntityChangedEvent.saved(Category.class, id, saved)));
+        return true;
+    }
+    // Its subcategories and products go in the background, see CatalogPurgeService
+    @Transactional
+    public void deleteCategory(Integer id) {
+        if (categoryRepository.softDelete(id) == 1) {
+            pendingPurgeRepository.save(PendingPurge.of(PendingPurge.Target.CATEGORY, id));
+            eventPublisher.publishEvent(EntityChangedEvent.deleted(Category.class, id));
+        }
     }
-    public void deleteCategory(Integer id) { categoryRepository.deleteById(id); }
 }
@@ -0,0 +1,139 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.outbox.OutboxSequencer;
+import com.alexsys.smartmarket.product.pagination.ChangePage;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.alexsys.smartmarket.product.repository.OutboxEventRepository;
+import com.alexsys.smartmarket.product.repository.ProductAttributeRepository;
+import com.alexsys.smartmarket.product.repository.ProductRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.repository.SubCategoryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Delta sync over the outbox: the rows changed since a consumer's cursor, in commit order, each
+ * with its current state or as a tombstone. Costs one outbox range scan plus one id lookup per
+ * table touched, whatever the size of the catalog.
+ * <p>
+ * Outbox ids are taken at insert, not commit, so a low id can become visible after a higher one.
+ * The feed is ordered by the sequence {@link OutboxSequencer} assigns once a write committed
+ * instead, so however long a transaction runs, its events land after everything already read.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ChangeFeedService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final Map<String, Function<Collection<Integer>, Map<Integer, Object>>> loaders = new HashMap<>();
+    private final Duration retention;
+
+    public ChangeFeedService(OutboxEventRepository outboxEventRepository, ProductRepository productRepository,
+                             ProductAttributeRepository productAttributeRepository, ProductsSkuRepository productsSkuRepository,
+                             CategoryRepository categoryRepository, SubCategoryRepository subCategoryRepository,
+                             FlashSaleStockService flashSaleStockService,
+                             @Value("${smartmarket.outbox.retention:P7D}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.retention = retention;
+        register(Product.class, productRepository::findAllById, Product::getId);
+        register(ProductAttribute.class, productAttributeRepository::findAllById, ProductAttribute::getId);
+        // Same quantities as the SKU endpoints, flash-sale buckets included
+        register(ProductsSku.class, ids -> flashSaleStockService.withAggregatedQuantities(productsSkuRepository.findAllById(ids)),
+                ProductsSku::getId);
+        register(Category.class, categoryRepository::findAllById, Category::getId);
+        register(SubCategory.class, subCategoryRepository::findAllById, SubCategory::getId);
+    }
+
+    private <T> void register(Class<T> type, Function<Collection<Integer>, List<T>> finder, Function<T, Integer> idOf) {
+        loaders.put(type.getSimpleName(), ids -> finder.apply(ids).stream().collect(Collectors.toMap(idOf, Function.identity())));
+    }
+
+    /**
+     * Without a cursor, an empty page positioned at the head of the feed: take it, export the
+     * catalog, then sync from it. A cursor older than the outbox retention gets 410, as the
+     * tombstones it would need are gone.
+     */
+    @Transactional(readOnly = true)
+    public ChangePage getChanges(String since, int limit) {
+        var now = Instant.now();
+        if (since == null || since.isBlank()) {
+            long head = outboxEventRepository.findMaxSequence().orElse(0L);
+            return new ChangePage(List.of(), ChangePage.encodeCursor(new ChangePage.Position(head, now)), false);
+        }
+        var position = ChangePage.decodeCursor(since);
+        if (position.at().isBefore(Instant.now().minus(retention))) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Cursor older than the change retention; sync from a fresh export");
+        }
+
+        int size = CursorPage.clampLimit(limit);
+        var events = new ArrayList<OutboxEvent>(size);
+        boolean hasMore = false;
+        for (OutboxEvent event : outboxEventRepository.findBySequenceGreaterThanOrderBySequenceAsc(position.sequence(), CursorPage.probeLimit(size))) {
+            if (events.size() == size) {
+                hasMore = true;
+                break;
+            }
+            events.add(event);
+        }
+        if (events.isEmpty()) {
+            // Caught up: anything still to come gets a higher sequence
+            return new ChangePage(List.of(), ChangePage.encodeCursor(new ChangePage.Position(position.sequence(), now)), false);
+        }
+        var last = events.get(events.size() - 1);
+        var next = new ChangePage.Position(last.getSequence(), hasMore ? last.getCreatedAt() : now);
+        return new ChangePage(latestState(events), ChangePage.encodeCursor(next), hasMore);
+    }
+
+    // One entry per row, at the sequence of its last change in the page
+    private List<ChangePage.Change> latestState(List<OutboxEvent> events) {
+        Map<String, OutboxEvent> latest = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            String key = event.getAggregateType() + ":" + event.getAggregateId();
+            latest.remove(key);
+            latest.put(key, event);
+        }
+        Map<String, Map<Integer, Object>> rows = new HashMap<>();
+        latest.values().stream()
+                .filter(event -> event.getChange() != OutboxEvent.Change.DELETED)
+                .collect(Collectors.groupingBy(OutboxEvent::getAggregateType,
+                        Collectors.mapping(OutboxEvent::getAggregateId, Collectors.toSet())))
+                .forEach((type, ids) -> rows.put(type, load(type, ids)));
+
+        var changes = new ArrayList<ChangePage.Change>(latest.size());
+        for (OutboxEvent event : latest.values()) {
+            // Saved, then deleted (or tombstoned) since: the row is gone either way
+            Object row = rows.getOrDefault(event.getAggregateType(), Map.of()).get(event.getAggregateId());
+            changes.add(new ChangePage.Change(event.getSequence(), event.getAggregateType(), event.getAggregateId(), row == null, row));
+        }
+        return changes;
+    }
+
+    private Map<Integer, Object> load(String type, Collection<Integer> ids) {
+        var loader = loaders.get(type);
+        return loader == null ? Map.of() : loader.apply(ids);
+    }
+}
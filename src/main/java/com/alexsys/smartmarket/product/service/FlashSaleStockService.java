@@ -0,0 +1,355 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.exception.InsufficientStockException;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.ProductsSkuStockBucket;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuStockBucketRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Flash-sale mode for hot SKUs. While a SKU is in the mode its stock lives in N bucket rows and
+ * {@code products_skus.quantity} stays at zero, so concurrent decrements spread over N row locks
+ * instead of queueing on one. Reads add the buckets back up.
+ * <p>
+ * Which SKUs are in the mode is kept in memory; switching happens on one instance and the others
+ * pick it up on the next reload. Until then they check the bucket table whenever the row can't
+ * serve a decrement or reads zero, so a SKU switched elsewhere is neither sold out nor shown as
+ * empty here. A SKU's stock is its buckets plus whatever its row holds, so a quantity written to
+ * the row while the SKU is in the mode is kept and folded in when the mode is switched off.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class FlashSaleStockService {
+
+    public static final int MAX_BUCKETS = 64;
+    private static final int STREAM_CHUNK = 500;
+
+    public record HotSku(Integer skuId, int buckets, long quantity) {
+    }
+
+    private final ProductsSkuRepository productsSkuRepository;
+    private final ProductsSkuStockBucketRepository bucketRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache productsSkuCache;
+    // skuId -> bucket count, replaced copy-on-write
+    private final AtomicReference<Map<Integer, Integer>> bucketCounts = new AtomicReference<>(Map.of());
+
+    public FlashSaleStockService(ProductsSkuRepository productsSkuRepository, ProductsSkuStockBucketRepository bucketRepository,
+                                 EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                 CacheManager cacheManager) {
+        this.productsSkuRepository = productsSkuRepository;
+        this.bucketRepository = bucketRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productsSkuCache = cacheManager.getCache(CacheConfig.PRODUCT_SKUS);
+    }
+
+    public boolean isHot(Integer skuId) {
+        return bucketCounts.get().containsKey(skuId);
+    }
+
+    /**
+     * Asks the bucket table rather than this instance's copy of the hot set, and brings the copy
+     * up to date with the answer.
+     */
+    boolean hasBuckets(Integer skuId) {
+        return !learn(List.of(skuId)).isEmpty();
+    }
+
+    /**
+     * {@link #hasBuckets} for several SKUs in one query; returns those that have buckets.
+     */
+    Set<Integer> withBuckets(Collection<Integer> skuIds) {
+        return skuIds.isEmpty() ? Set.of() : learn(List.copyOf(skuIds)).keySet();
+    }
+
+    public List<HotSku> getHotSkus() {
+        return bucketCounts.get().entrySet().stream()
+                .map(entry -> new HotSku(entry.getKey(), entry.getValue(), bucketTotal(entry.getKey())))
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${smartmarket.flash-sale.reload-interval:PT30S}",
+               fixedDelayString = "${smartmarket.flash-sale.reload-interval:PT30S}")
+    public void reload() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Object[] row : bucketRepository.countBucketsPerSku()) {
+            counts.put((Integer) row[0], ((Number) row[1]).intValue());
+        }
+        bucketCounts.set(Map.copyOf(counts));
+    }
+
+    /**
+     * Moves the SKU's stock into {@code buckets} rows, re-splitting if it is already in the mode.
+     */
+    public Optional<HotSku> enable(Integer skuId, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "buckets must be between 1 and " + MAX_BUCKETS);
+        }
+        var hot = transactionTemplate.execute(status -> productsSkuRepository.findForUpdateById(skuId).map(sku -> {
+            long total = (sku.getQuantity() == null ? 0 : sku.getQuantity()) + sum(drainBuckets(skuId));
+            List<ProductsSkuStockBucket> rows = new ArrayList<>(buckets);
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                var row = new ProductsSkuStockBucket();
+                row.setSkuId(skuId);
+                row.setBucket(bucket);
+                // Spread the remainder over the first buckets
+                row.setQuantity((int) (total / buckets + (bucket < total % buckets ? 1 : 0)));
+                rows.add(row);
+            }
+            bucketRepository.saveAll(rows);
+            productsSkuRepository.setQuantity(skuId, 0);
+            return new HotSku(skuId, buckets, total);
+        }));
+        if (hot.isPresent()) {
+            bucketCounts.updateAndGet(counts -> with(counts, skuId, buckets));
+            productsSkuCache.evict(skuId);
+        }
+        return hot;
+    }
+
+    /**
+     * Folds the buckets back into {@code products_skus.quantity}.
+     */
+    public Optional<ProductsSkuService.StockLevel> disable(Integer skuId) {
+        // Route new requests to the row first; anything still aimed at the buckets falls back once they are gone
+        bucketCounts.updateAndGet(counts -> with(counts, skuId, null));
+        var level = transactionTemplate.execute(status -> productsSkuRepository.findForUpdateById(skuId).map(sku -> {
+            var drained = drainBuckets(skuId);
+            if (drained.isEmpty()) {
+                return new ProductsSkuService.StockLevel(skuId, sku.getQuantity());
+            }
+            // Anything written to the row meanwhile, e.g. by an instance that hadn't seen the switch
+            int total = (int) sum(drained) + (sku.getQuantity() == null ? 0 : sku.getQuantity());
+            productsSkuRepository.setQuantity(skuId, total);
+            return new ProductsSkuService.StockLevel(skuId, total);
+        }));
+        productsSkuCache.evict(skuId);
+        return level;
+    }
+
+    /**
+     * Takes stock from a random bucket, trying the others in turn and finally several at once.
+     * Must run inside the caller's transaction. Empty means the SKU is no longer in the mode and
+     * the caller should use the row itself.
+     */
+    Optional<ProductsSkuService.StockLevel> decrement(Integer skuId, int amount) {
+        int buckets = bucketCounts.get().getOrDefault(skuId, 0);
+        if (buckets == 0) {
+            return Optional.empty();
+        }
+        int start = ThreadLocalRandom.current().nextInt(buckets);
+        for (int i = 0; i < buckets; i++) {
+            if (bucketRepository.decrementQuantity(skuId, (start + i) % buckets, amount) == 1) {
+                return Optional.of(new ProductsSkuService.StockLevel(skuId, (int) stockTotal(skuId)));
+            }
+        }
+
+        // No single bucket holds enough. Check without locks first so a sold-out SKU doesn't serialize.
+        var unlocked = bucketRepository.sumQuantityBySkuId(skuId);
+        if (unlocked.isEmpty()) {
+            // Switched off on another instance
+            forget(skuId);
+            return Optional.empty();
+        }
+        // Reads report buckets plus row, so the row's stock can be sold too
+        long unlockedTotal = unlocked.get() + productsSkuRepository.findQuantityById(skuId).orElse(0);
+        if (unlockedTotal < amount) {
+            throw new InsufficientStockException(skuId, amount, (int) unlockedTotal);
+        }
+        var sku = productsSkuRepository.findForUpdateById(skuId);
+        var rows = bucketRepository.findForUpdateBySkuIdOrderByBucketAsc(skuId);
+        if (sku.isEmpty() || rows.isEmpty()) {
+            return Optional.empty();
+        }
+        int onRow = sku.get().getQuantity() == null ? 0 : sku.get().getQuantity();
+        int available = rows.stream().mapToInt(ProductsSkuStockBucket::getQuantity).sum() + onRow;
+        if (available < amount) {
+            throw new InsufficientStockException(skuId, amount, available);
+        }
+        int remaining = amount;
+        for (var row : rows) {
+            int taken = Math.min(remaining, row.getQuantity());
+            row.setQuantity(row.getQuantity() - taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        if (remaining > 0) {
+            productsSkuRepository.setQuantity(skuId, onRow - remaining);
+        }
+        return Optional.of(new ProductsSkuService.StockLevel(skuId, available - amount));
+    }
+
+    /**
+     * Puts stock back into a random bucket. Must run inside the caller's transaction; empty means
+     * the SKU is no longer in the mode.
+     */
+    Optional<ProductsSkuService.StockLevel> increment(Integer skuId, int amount) {
+        int buckets = bucketCounts.get().getOrDefault(skuId, 0);
+        if (buckets == 0) {
+            return Optional.empty();
+        }
+        int bucket = ThreadLocalRandom.current().nextInt(buckets);
+        if (bucketRepository.incrementQuantity(skuId, bucket, amount) == 0
+                && bucketRepository.incrementQuantity(skuId, 0, amount) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new ProductsSkuService.StockLevel(skuId, (int) stockTotal(skuId)));
+    }
+
+    /**
+     * Adds the bucket total to the quantity of a SKU in the mode. The entity is detached first so
+     * the aggregate is never flushed back to {@code products_skus}. A row reading zero is checked
+     * against the bucket table in case the SKU was switched on another instance.
+     */
+    public ProductsSku withAggregatedQuantity(ProductsSku sku) {
+        if (sku != null) {
+            withAggregatedQuantities(List.of(sku));
+        }
+        return sku;
+    }
+
+    /**
+     * {@link #withAggregatedQuantities(List)} over a stream, a chunk of rows at a time, so an export
+     * asks the bucket table once per chunk rather than once per sold-out row. Closing the result
+     * closes {@code skus}.
+     */
+    public Stream<ProductsSku> streamWithAggregatedQuantities(Stream<ProductsSku> skus) {
+        var rows = skus.iterator();
+        Iterator<List<ProductsSku>> chunks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public List<ProductsSku> next() {
+                List<ProductsSku> chunk = new ArrayList<>(STREAM_CHUNK);
+                while (chunk.size() < STREAM_CHUNK && rows.hasNext()) {
+                    chunk.add(rows.next());
+                }
+                return withAggregatedQuantities(chunk);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(skus::close);
+    }
+
+    public List<ProductsSku> withAggregatedQuantities(List<ProductsSku> skus) {
+        List<Integer> unknown = skus.stream()
+                .filter(sku -> !isHot(sku.getId()) && (sku.getQuantity() == null || sku.getQuantity() == 0))
+                .map(ProductsSku::getId)
+                .toList();
+        if (!unknown.isEmpty()) {
+            learn(unknown);
+        }
+        if (bucketCounts.get().isEmpty()) {
+            return skus;
+        }
+        for (var sku : skus) {
+            if (!isHot(sku.getId())) {
+                continue;
+            }
+            var total = bucketRepository.sumQuantityBySkuId(sku.getId());
+            if (total.isEmpty()) {
+                // Switched off on another instance; the row holds the stock again
+                forget(sku.getId());
+                continue;
+            }
+            entityManager.detach(sku);
+            sku.setQuantity((int) (total.get() + (sku.getQuantity() == null ? 0 : sku.getQuantity())));
+        }
+        return skus;
+    }
+
+    private long bucketTotal(Integer skuId) {
+        return bucketRepository.sumQuantityBySkuId(skuId).orElse(0L);
+    }
+
+    // What reads report: the buckets plus whatever the row holds
+    private long stockTotal(Integer skuId) {
+        return bucketTotal(skuId) + productsSkuRepository.findQuantityById(skuId).orElse(0);
+    }
+
+    // Updates the hot set for the given SKUs from the bucket table; returns those that have buckets
+    private Map<Integer, Integer> learn(List<Integer> skuIds) {
+        Map<Integer, Integer> found = new HashMap<>();
+        for (Object[] row : bucketRepository.countBucketsPerSkuIn(skuIds)) {
+            found.put((Integer) row[0], ((Number) row[1]).intValue());
+        }
+        var known = bucketCounts.get();
+        boolean stale = skuIds.stream().anyMatch(skuId -> !Objects.equals(known.get(skuId), found.get(skuId)));
+        if (stale) {
+            bucketCounts.updateAndGet(counts -> {
+                Map<Integer, Integer> copy = new HashMap<>(counts);
+                skuIds.forEach(copy::remove);
+                copy.putAll(found);
+                return Map.copyOf(copy);
+            });
+        }
+        return found;
+    }
+
+    private void forget(Integer skuId) {
+        if (isHot(skuId)) {
+            bucketCounts.updateAndGet(counts -> with(counts, skuId, null));
+        }
+    }
+
+    private List<ProductsSkuStockBucket> drainBuckets(Integer skuId) {
+        var rows = bucketRepository.findForUpdateBySkuIdOrderByBucketAsc(skuId);
+        if (!rows.isEmpty()) {
+            bucketRepository.deleteBySkuId(skuId);
+        }
+        return rows;
+    }
+
+    private static long sum(List<ProductsSkuStockBucket> rows) {
+        return rows.stream().mapToLong(ProductsSkuStockBucket::getQuantity).sum();
+    }
+
+    private static Map<Integer, Integer> with(Map<Integer, Integer> counts, Integer skuId, Integer buckets) {
+        Map<Integer, Integer> copy = new HashMap<>(counts);
+        if (buckets == null) {
+            copy.remove(skuId);
+        } else {
+            copy.put(skuId, buckets);
+        }
+        return Map.copyOf(copy);
+    }
+}
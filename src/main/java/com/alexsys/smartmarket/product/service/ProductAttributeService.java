@@ -1,27 +1,54 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
 import com.alexsys.smartmarket.product.mapper.ProductAttributeMapper;
 import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
 import com.alexsys.smartmarket.product.repository.ProductAttributeRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class ProductAttributeService {
 
     private final ProductAttributeRepository productAttributeRepository;
     private final ProductAttributeMapper productAttributeMapper;
-    public ProductAttributeService(ProductAttributeRepository productAttributeRepository, ProductAttributeMapper productAttributeMapper) {
+    private final PartialUpdates partialUpdates;
+    private final ApplicationEventPublisher eventPublisher;
+    public ProductAttributeService(ProductAttributeRepository productAttributeRepository, ProductAttributeMapper productAttributeMapper,
+                                   PartialUpdates partialUpdates, ApplicationEventPublisher eventPublisher) {
         this.productAttributeRepository = productAttributeRepository;
         this.productAttributeMapper = productAttributeMapper;
+        this.partialUpdates = partialUpdates;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<ProductAttribute> getAllProductAttributes() { return productAttributeRepository.findAll(); }
+    @Transactional(readOnly = true)
+    public CursorPage<ProductAttribute> getProductAttributesPage(Integer afterId, int limit) {
+        return CursorPage.of(productAttributeRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.probeLimit(limit)), limit, ProductAttribute::getId);
+    }
+    public Stream<ProductAttribute> streamAllProductAttributes() { return productAttributeRepository.streamAllByOrderByIdAsc(); }
+    @Transactional(readOnly = true)
+    public List<ProductAttribute> getProductAttributesByProductId(Integer productId) { return productAttributeRepository.findByProductIdOrderByIdAsc(productId); }
+    @Transactional(readOnly = true)
     public Optional<ProductAttribute> getProductAttributeById(Integer id) { return productAttributeRepository.findById(id); }
-    public ProductAttribute saveProductAttribute(ProductAttribute productAttribute) { return productAttributeRepository.save(productAttribute); }
+    @Transactional
+    public ProductAttribute saveProductAttribute(ProductAttribute productAttribute) {
+        var saved = productAttributeRepository.save(productAttribute);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(ProductAttribute.class, saved.getId(), saved));
+        return saved;
+    }
 
+    @Transactional
     public Optional<ProductAttribute> updateProductAttribute(Integer id, ProductAttribute productAttributeDetails) {
         var existingProductAttributeOptional = getProductAttributeById(id);
         if (existingProductAttributeOptional.isEmpty()) {
@@ -29,7 +56,23 @@ public class ProductAttributeService {
         }
         var existingProductAttribute = existingProductAttributeOptional.get();
         productAttributeMapper.update(existingProductAttribute, productAttributeDetails);
-        return Optional.ofNullable(productAttributeRepository.save(existingProductAttribute));
+        var saved = productAttributeRepository.save(existingProductAttribute);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(ProductAttribute.class, id, saved));
+        return Optional.ofNullable(saved);
+    }
+
+    @Transactional
+    public boolean patchProductAttribute(Integer id, ProductAttribute changes) {
+        if (partialUpdates.update(ProductAttribute.class, id, changes) == 0) {
+            return false;
+        }
+        // Facets need the type and product of the attribute, which a patch may not carry
+        productAttributeRepository.findById(id).ifPresent(saved -> eventPublisher.publishEvent(EntityChangedEvent.saved(ProductAttribute.class, id, saved)));
+        return true;
+    }
+    @Transactional
+    public void deleteProductAttribute(Integer id) {
+        productAttributeRepository.deleteById(id);
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(ProductAttribute.class, id));
     }
-    public void deleteProductAttribute(Integer id) { productAttributeRepository.deleteById(id); }
 }
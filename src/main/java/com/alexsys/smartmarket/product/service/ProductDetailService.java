@@ -0,0 +1,58 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.ConcurrencyConfig;
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.datasource.ReadYourWrites;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Assembles a product page in one call. The product, its attributes and its SKUs are fetched
+ * concurrently on virtual threads.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ProductDetailService {
+
+    public record ProductDetail(Product product, List<ProductAttribute> attributes, List<ProductsSku> skus) {
+    }
+
+    private final ProductService productService;
+    private final ProductAttributeService productAttributeService;
+    private final ProductsSkuService productsSkuService;
+    private final ExecutorService executor;
+
+    public ProductDetailService(ProductService productService, ProductAttributeService productAttributeService,
+                                ProductsSkuService productsSkuService,
+                                @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor) {
+        this.productService = productService;
+        this.productAttributeService = productAttributeService;
+        this.productsSkuService = productsSkuService;
+        this.executor = executor;
+    }
+
+    public Optional<ProductDetail> getProductDetail(Integer id) {
+        var product = CompletableFuture.supplyAsync(ReadYourWrites.propagate(() -> productService.getProductById(id)), executor);
+        var attributes = CompletableFuture.supplyAsync(ReadYourWrites.propagate(() -> productAttributeService.getProductAttributesByProductId(id)), executor);
+        var skus = CompletableFuture.supplyAsync(ReadYourWrites.propagate(() -> productsSkuService.getProductsSkusByProductId(id)), executor);
+        try {
+            CompletableFuture.allOf(product, attributes, skus).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return product.join().map(p -> new ProductDetail(p, attributes.join(), skus.join()));
+    }
+}
@@ -0,0 +1,115 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.ProductAttributeRepository;
+import com.alexsys.smartmarket.product.repository.ProductRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.search.ProductFacetIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Filtered product listings with facet counts. Matching and counting run on the in-memory bitmaps;
+ * only the products on the requested page are read from the database. The bitmaps follow local
+ * writes and those replayed from the change feed.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ProductFacetService {
+
+    static final int LOAD_PAGE_SIZE = 2000;
+
+    public record FacetedPage(List<Product> items, String nextCursor, int total, Map<String, Map<String, Integer>> facets) {
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductAttributeRepository productAttributeRepository;
+    private final ProductsSkuRepository productsSkuRepository;
+    private final ProductFacetIndex index = new ProductFacetIndex();
+
+    public ProductFacetService(ProductRepository productRepository, ProductAttributeRepository productAttributeRepository,
+                               ProductsSkuRepository productsSkuRepository) {
+        this.productRepository = productRepository;
+        this.productAttributeRepository = productAttributeRepository;
+        this.productsSkuRepository = productsSkuRepository;
+    }
+
+    public FacetedPage filter(ProductFacetIndex.Query query, Integer afterId, int limit) {
+        int size = CursorPage.clampLimit(limit);
+        var result = index.filter(query, afterId, size);
+        boolean more = result.ids().size() > size;
+        List<Integer> ids = more ? result.ids().subList(0, size) : result.ids();
+        Map<Integer, Product> found = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        // A product deleted since the bitmaps were read just drops out of the page; the cursor
+        // follows the index so the next page still starts in the right place
+        var items = ids.stream().map(found::get).filter(Objects::nonNull).toList();
+        String nextCursor = more ? CursorPage.encodeCursor(ids.get(size - 1)) : null;
+        return new FacetedPage(items, nextCursor, result.total(), result.facets());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        index.beginLoad();
+        try {
+            loadAll(productRepository::findByIdGreaterThanOrderByIdAsc, Product::getId, index::loadProducts);
+            loadAll(productAttributeRepository::findByIdGreaterThanOrderByIdAsc, ProductAttribute::getId, index::loadAttributes);
+            loadAll(productsSkuRepository::findByIdGreaterThanOrderByIdAsc, ProductsSku::getId, index::loadSkus);
+        } finally {
+            index.endLoad();
+        }
+    }
+
+    private static <T> void loadAll(BiFunction<Integer, Limit, List<T>> pageAfter, Function<T, Integer> idOf,
+                                    Consumer<List<T>> load) {
+        Integer afterId = 0;
+        List<T> page;
+        do {
+            page = pageAfter.apply(afterId, Limit.of(LOAD_PAGE_SIZE));
+            load.accept(page);
+            if (!page.isEmpty()) {
+                afterId = idOf.apply(page.get(page.size() - 1));
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        if (event.concerns(Product.class)) {
+            if (event.isDeleted()) {
+                index.removeProduct(event.id());
+            } else {
+                index.putProduct((Product) event.entity());
+            }
+        } else if (event.concerns(ProductAttribute.class)) {
+            if (event.isDeleted()) {
+                index.removeAttribute(event.id());
+            } else {
+                index.putAttribute((ProductAttribute) event.entity());
+            }
+        } else if (event.concerns(ProductsSku.class)) {
+            if (event.isDeleted()) {
+                index.removeSku(event.id());
+            } else {
+                index.putSku((ProductsSku) event.entity());
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.repository.ProductRepository;
+import com.alexsys.smartmarket.product.search.ProductFuzzyIndex;
+import com.alexsys.smartmarket.product.search.ProductSearchIndex;
+import com.alexsys.smartmarket.product.search.ProductSuggester;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Full-text product search, typo-tolerant name search and name typeahead served from memory. The
+ * structures are built once at startup and then kept current from the product write events, those
+ * of other instances replayed from the change feed; queries never reach the database.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ProductSearchService {
+
+    public static final int MAX_LIMIT = 100;
+    static final int LOAD_PAGE_SIZE = 2000;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    private final ProductSuggester suggester = new ProductSuggester();
+    private final ProductFuzzyIndex fuzzyIndex = new ProductFuzzyIndex();
+
+    public ProductSearchService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public List<ProductSearchIndex.Hit> search(String query, int limit) {
+        return index.search(query, clamp(limit));
+    }
+
+    /**
+     * Matches names allowing a few typos per word; the score is 1 for an exact match and falls
+     * with the number of edits.
+     */
+    public List<ProductSearchIndex.Hit> fuzzySearch(String query, int limit) {
+        return fuzzyIndex.search(query, clamp(limit)).stream()
+                .flatMap(match -> index.hit(match.id(), 1.0 / (1 + match.edits())).stream())
+                .toList();
+    }
+
+    public List<ProductSuggester.Suggestion> suggest(String prefix, int limit) {
+        return suggester.suggest(prefix, clamp(limit));
+    }
+
+    /**
+     * Reads the catalog a keyset page at a time and tokenizes each page in parallel.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        index.beginLoad();
+        suggester.beginLoad();
+        fuzzyIndex.beginLoad();
+        try {
+            Integer afterId = 0;
+            List<Product> page;
+            do {
+                page = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(LOAD_PAGE_SIZE));
+                index.load(page.parallelStream().map(ProductSearchIndex.Document::of).toList());
+                suggester.load(page);
+                fuzzyIndex.load(page);
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+        } finally {
+            index.endLoad();
+            suggester.endLoad();
+            fuzzyIndex.endLoad();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        if (!event.concerns(Product.class)) {
+            return;
+        }
+        if (event.isDeleted()) {
+            index.remove(event.id());
+            suggester.remove(event.id());
+            fuzzyIndex.remove(event.id());
+        } else {
+            var product = (Product) event.entity();
+            index.put(ProductSearchIndex.Document.of(product));
+            suggester.put(product);
+            fuzzyIndex.put(product);
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+}
@@ -1,26 +1,62 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
 import com.alexsys.smartmarket.product.mapper.ProductMapper;
+import com.alexsys.smartmarket.product.model.PendingPurge;
 import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
 import com.alexsys.smartmarket.product.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+    private final PartialUpdates partialUpdates;
+    private final PendingPurgeRepository pendingPurgeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper, PartialUpdates partialUpdates,
+                          PendingPurgeRepository pendingPurgeRepository, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.partialUpdates = partialUpdates;
+        this.pendingPurgeRepository = pendingPurgeRepository;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Product> getAllProducts() { return productRepository.findAll(); }
+    @Transactional(readOnly = true)
+    public CursorPage<Product> getProductsPage(Integer afterId, int limit) {
+        return CursorPage.of(productRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.probeLimit(limit)), limit, Product::getId);
+    }
+    public Stream<Product> streamAllProducts() { return productRepository.streamAllByOrderByIdAsc(); }
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id", sync = true)
+    @Transactional(readOnly = true)
     public Optional<Product> getProductById(Integer id) { return productRepository.findById(id); }
-    public Product saveProduct(Product product) { return productRepository.save(product); }
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.PRODUCTS, key = "#result.id")
+    public Product saveProduct(Product product) {
+        var saved = productRepository.save(product);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(Product.class, saved.getId(), saved));
+        return saved;
+    }
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.PRODUCTS, key = "#id", unless = "#result == null")
     public Optional<Product> updateProduct(Integer id, Product productDetails) {
         var existingProductOptional = getProductById(id);
         if (existingProductOptional.isEmpty()) {
@@ -28,7 +64,29 @@ public class ProductService {
         }
         var existingProduct = existingProductOptional.get();
         productMapper.update(existingProduct, productDetails);
-        return Optional.ofNullable(productRepository.save(existingProduct));
+        var saved = productRepository.save(existingProduct);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(Product.class, id, saved));
+        return Optional.ofNullable(saved);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public boolean patchProduct(Integer id, Product changes) {
+        if (partialUpdates.update(Product.class, id, changes) == 0) {
+            return false;
+        }
+        // Search, suggestions and facets re-index from the whole row
+        productRepository.findById(id).ifPresent(saved -> eventPublisher.publishEvent(EntityChangedEvent.saved(Product.class, id, saved)));
+        return true;
+    }
+    // Tombstones the row at once; CatalogPurgeService removes the attributes and SKUs afterwards
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public void deleteProduct(Integer id) {
+        // Nothing to announce for a product that was missing or already deleted
+        if (productRepository.softDeleteAllById(List.of(id)) == 1) {
+            pendingPurgeRepository.save(PendingPurge.of(PendingPurge.Target.PRODUCT, id));
+            eventPublisher.publishEvent(EntityChangedEvent.deleted(Product.class, id));
+        }
     }
-    public void deleteProduct(Integer id) { productRepository.deleteById(id); }
 }
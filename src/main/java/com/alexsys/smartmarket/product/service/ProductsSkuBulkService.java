@@ -0,0 +1,153 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapper;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Upserts SKUs by their {@code sku} code in chunks. Each chunk is its own transaction and is
+ * flushed in one go so Hibernate can group the statements into JDBC batches; a failing chunk
+ * only fails its own rows.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ProductsSkuBulkService {
+
+    public static final int MAX_ROWS = 5000;
+    static final int CHUNK_SIZE = 500;
+
+    public enum Status { CREATED, UPDATED, FAILED }
+
+    public record RowResult(int index, String sku, Integer id, Status status, String error) {
+    }
+
+    private final ProductsSkuRepository productsSkuRepository;
+    private final ProductsSkuMapper productsSkuMapper;
+    private final FlashSaleStockService flashSaleStockService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache productsSkuCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductsSkuBulkService(ProductsSkuRepository productsSkuRepository, ProductsSkuMapper productsSkuMapper,
+                                  FlashSaleStockService flashSaleStockService, EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager, CacheManager cacheManager, ApplicationEventPublisher eventPublisher) {
+        this.productsSkuRepository = productsSkuRepository;
+        this.productsSkuMapper = productsSkuMapper;
+        this.flashSaleStockService = flashSaleStockService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productsSkuCache = cacheManager.getCache(CacheConfig.PRODUCT_SKUS);
+        this.eventPublisher = eventPublisher;
+    }
+
+    public List<RowResult> upsertProductsSkus(List<ProductsSku> rows) {
+        if (rows.size() > MAX_ROWS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_ROWS + " SKUs per request, got " + rows.size());
+        }
+        var results = new RowResult[rows.size()];
+        // Later rows win when the same code appears twice in one request
+        Map<String, Integer> lastIndexBySku = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            var row = rows.get(i);
+            if (row == null || row.getSku() == null || row.getSku().isBlank()) {
+                results[i] = failed(i, null, "sku is required");
+            } else if (row.getProductId() == null) {
+                results[i] = failed(i, row.getSku(), "productId is required");
+            } else {
+                var previous = lastIndexBySku.put(row.getSku(), i);
+                if (previous != null) {
+                    results[previous] = failed(previous, row.getSku(), "superseded by row " + i);
+                }
+            }
+        }
+
+        var pending = new ArrayList<>(lastIndexBySku.values());
+        pending.sort(null);
+        for (int from = 0; from < pending.size(); from += CHUNK_SIZE) {
+            var chunk = pending.subList(from, Math.min(from + CHUNK_SIZE, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    // Published inside the chunk's transaction, which the outbox rows must join
+                    upsertChunk(rows, chunk, results).forEach(sku ->
+                            eventPublisher.publishEvent(EntityChangedEvent.saved(ProductsSku.class, sku.getId(), sku)));
+                });
+                // Evict after commit so a concurrent read can't re-cache the old row
+                chunk.stream().map(index -> results[index].id()).filter(Objects::nonNull).forEach(productsSkuCache::evict);
+            } catch (RuntimeException e) {
+                for (int index : chunk) {
+                    results[index] = failed(index, rows.get(index).getSku(), e.getMessage());
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private Collection<ProductsSku> upsertChunk(List<ProductsSku> rows, List<Integer> chunk, RowResult[] results) {
+        var codes = chunk.stream().map(index -> rows.get(index).getSku()).toList();
+        Map<String, ProductsSku> existing = productsSkuRepository.findBySkuIn(codes).stream()
+                .collect(Collectors.toMap(ProductsSku::getSku, Function.identity(), (first, second) -> first));
+        // The row of a flash-sale SKU doesn't hold its stock, so a quantity can't be written to it
+        Set<Integer> flashSale = flashSaleStockService.withBuckets(chunk.stream()
+                .filter(index -> rows.get(index).getQuantity() != null)
+                .map(index -> existing.get(rows.get(index).getSku()))
+                .filter(Objects::nonNull)
+                .map(ProductsSku::getId)
+                .toList());
+
+        Map<Integer, ProductsSku> managed = new LinkedHashMap<>();
+        for (int index : chunk) {
+            var row = rows.get(index);
+            // Rows are keyed by sku code; a client-supplied id must never retarget or preset the key
+            row.setId(null);
+            var target = existing.get(row.getSku());
+            if (target != null && row.getQuantity() != null && flashSale.contains(target.getId())) {
+                results[index] = failed(index, row.getSku(), "SKU " + target.getId() + " is in flash-sale mode; adjust its stock instead");
+                continue;
+            }
+            if (target != null) {
+                productsSkuMapper.update(target, row);
+            } else {
+                entityManager.persist(row);
+                target = row;
+            }
+            managed.put(index, target);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        managed.forEach((index, sku) -> results[index] = new RowResult(index, sku.getSku(), sku.getId(),
+                existing.containsKey(sku.getSku()) ? Status.UPDATED : Status.CREATED, null));
+        return managed.values();
+    }
+
+    private static RowResult failed(int index, String sku, String error) {
+        return new RowResult(index, sku, null, Status.FAILED, error);
+    }
+}
@@ -1,34 +1,165 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.event.StockChangedEvent;
+import com.alexsys.smartmarket.product.exception.InsufficientStockException;
 import com.alexsys.smartmarket.product.mapper.ProductsSkuMapper;
 import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
 import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class ProductsSkuService {
 
+    public record StockLevel(Integer id, Integer quantity) {
+    }
+
     private final ProductsSkuRepository productsSkuRepository;
     private final ProductsSkuMapper productsSkuMapper;
-    public ProductsSkuService(ProductsSkuRepository productsSkuRepository, ProductsSkuMapper productsSkuMapper) {
+    private final FlashSaleStockService flashSaleStockService;
+    private final PartialUpdates partialUpdates;
+    private final ApplicationEventPublisher eventPublisher;
+    public ProductsSkuService(ProductsSkuRepository productsSkuRepository, ProductsSkuMapper productsSkuMapper,
+                              FlashSaleStockService flashSaleStockService, PartialUpdates partialUpdates, ApplicationEventPublisher eventPublisher) {
         this.productsSkuRepository = productsSkuRepository;
         this.productsSkuMapper = productsSkuMapper;
+        this.flashSaleStockService = flashSaleStockService;
+        this.partialUpdates = partialUpdates;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<ProductsSku> getAllProductsSkus() { return productsSkuRepository.findAll(); }
-    public Optional<ProductsSku> getProductsSkuById(Integer id) { return productsSkuRepository.findById(id); }
-    public ProductsSku saveProductsSku(ProductsSku productsSku) { return productsSkuRepository.save(productsSku); }
+    @Transactional(readOnly = true)
+    public CursorPage<ProductsSku> getProductsSkusPage(Integer afterId, int limit) {
+        var rows = productsSkuRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.probeLimit(limit));
+        return CursorPage.of(flashSaleStockService.withAggregatedQuantities(rows), limit, ProductsSku::getId);
+    }
+    public Stream<ProductsSku> streamAllProductsSkus() { return flashSaleStockService.streamWithAggregatedQuantities(productsSkuRepository.streamAllByOrderByIdAsc()); }
+    @Transactional(readOnly = true)
+    public List<ProductsSku> getProductsSkusByProductId(Integer productId) { return flashSaleStockService.withAggregatedQuantities(productsSkuRepository.findByProductIdOrderByIdAsc(productId)); }
+    @Transactional(readOnly = true)
+    public List<ProductsSku> getProductsSkusBySkus(Collection<String> skus) { return flashSaleStockService.withAggregatedQuantities(productsSkuRepository.findBySkuIn(skus)); }
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_SKUS, key = "#id", sync = true)
+    @Transactional(readOnly = true)
+    public Optional<ProductsSku> getProductsSkuById(Integer id) { return productsSkuRepository.findById(id).map(flashSaleStockService::withAggregatedQuantity); }
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.PRODUCT_SKUS, key = "#result.id")
+    public ProductsSku saveProductsSku(ProductsSku productsSku) {
+        var saved = productsSkuRepository.save(productsSku);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(ProductsSku.class, saved.getId(), saved));
+        return saved;
+    }
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.PRODUCT_SKUS, key = "#id", unless = "#result == null")
     public Optional<ProductsSku> updateProductsSku(Integer id, ProductsSku productsSkuDetails) {
-        var existingProductsSkuOptional = getProductsSkuById(id);
+        // Straight from the repository: the flash-sale aggregate must not be written back to the row
+        var existingProductsSkuOptional = productsSkuRepository.findById(id);
         if (existingProductsSkuOptional.isEmpty()) {
             return Optional.empty();
         }
+        requireRowHoldsStock(id, productsSkuDetails);
         var existingProductsSku = existingProductsSkuOptional.get();
         productsSkuMapper.update(existingProductsSku, productsSkuDetails);
-        return Optional.ofNullable(productsSkuRepository.save(existingProductsSku));
+        var saved = productsSkuRepository.save(existingProductsSku);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(ProductsSku.class, id, saved));
+        return Optional.ofNullable(saved);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_SKUS, key = "#id")
+    public boolean patchProductsSku(Integer id, ProductsSku changes) {
+        requireRowHoldsStock(id, changes);
+        if (partialUpdates.update(ProductsSku.class, id, changes) == 0) {
+            return false;
+        }
+        // Straight from the repository, as in updateProductsSku: the availability store and the
+        // code index take the whole row
+        productsSkuRepository.findById(id).ifPresent(saved -> eventPublisher.publishEvent(EntityChangedEvent.saved(ProductsSku.class, id, saved)));
+        return true;
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_SKUS, key = "#id")
+    public Optional<StockLevel> decrementStock(Integer id, int amount) {
+        requirePositive(amount);
+        if (flashSaleStockService.isHot(id)) {
+            var level = flashSaleStockService.decrement(id, amount);
+            if (level.isPresent()) {
+                return published(level);
+            }
+        }
+        if (productsSkuRepository.decrementQuantity(id, amount) == 1) {
+            return published(productsSkuRepository.findQuantityById(id).map(quantity -> new StockLevel(id, quantity)));
+        }
+        // The hot set is per instance and may not have seen a switch made elsewhere yet
+        if (!flashSaleStockService.isHot(id) && flashSaleStockService.hasBuckets(id)) {
+            var level = flashSaleStockService.decrement(id, amount);
+            if (level.isPresent()) {
+                return published(level);
+            }
+        }
+        var available = productsSkuRepository.findQuantityById(id);
+        if (available.isEmpty()) {
+            return Optional.empty();
+        }
+        throw new InsufficientStockException(id, amount, available.get());
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_SKUS, key = "#id")
+    public Optional<StockLevel> incrementStock(Integer id, int amount) {
+        requirePositive(amount);
+        if (flashSaleStockService.isHot(id)) {
+            var level = flashSaleStockService.increment(id, amount);
+            if (level.isPresent()) {
+                return published(level);
+            }
+        }
+        if (productsSkuRepository.incrementQuantity(id, amount) == 0) {
+            return Optional.empty();
+        }
+        return published(productsSkuRepository.findQuantityById(id).map(quantity -> new StockLevel(id, quantity)));
+    }
+
+    private Optional<StockLevel> published(Optional<StockLevel> level) {
+        level.ifPresent(stock -> eventPublisher.publishEvent(new StockChangedEvent(stock.id(), stock.quantity())));
+        return level;
+    }
+
+    // The row of a flash-sale SKU doesn't hold its stock; the stock endpoints adjust the buckets
+    private void requireRowHoldsStock(Integer id, ProductsSku changes) {
+        if (changes.getQuantity() != null && flashSaleStockService.hasBuckets(id)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "SKU " + id + " is in flash-sale mode; adjust its stock instead");
+        }
+    }
+
+    private static void requirePositive(int amount) {
+        if (amount <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "amount must be positive");
+        }
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_SKUS, key = "#id")
+    public void deleteProductsSku(Integer id) {
+        productsSkuRepository.deleteById(id);
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(ProductsSku.class, id));
     }
-    public void deleteProductsSku(Integer id) { productsSkuRepository.deleteById(id); }
 }
@@ -0,0 +1,93 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.event.StockChangedEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.store.SkuColumnStore;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Price and stock questions about SKUs, answered from a {@link SkuColumnStore} that follows
+ * every SKU write and stock adjustment instead of from the database. Writes made on other
+ * instances are replayed from the change feed.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class SkuAvailabilityService {
+
+    static final int LOAD_PAGE_SIZE = 2000;
+
+    private final ProductsSkuRepository productsSkuRepository;
+    private final FlashSaleStockService flashSaleStockService;
+    private final SkuColumnStore store = new SkuColumnStore();
+
+    public SkuAvailabilityService(ProductsSkuRepository productsSkuRepository, FlashSaleStockService flashSaleStockService) {
+        this.productsSkuRepository = productsSkuRepository;
+        this.flashSaleStockService = flashSaleStockService;
+    }
+
+    public List<SkuColumnStore.Row> getInStock(Integer productId, Double maxPrice) {
+        return store.inStock(productId, maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice);
+    }
+
+    public Optional<SkuColumnStore.Row> getSku(Integer id) {
+        return store.get(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        store.beginLoad();
+        try {
+            Integer afterId = 0;
+            List<ProductsSku> page;
+            do {
+                page = productsSkuRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(LOAD_PAGE_SIZE));
+                store.load(flashSaleStockService.withAggregatedQuantities(page));
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+        } finally {
+            store.endLoad();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        if (!event.concerns(ProductsSku.class)) {
+            return;
+        }
+        if (event.isDeleted()) {
+            store.remove(event.id());
+        } else if (!event.replayed() && inFlashSale((ProductsSku) event.entity())) {
+            // The row quantity of a flash-sale SKU is not its stock; adjustments keep the store's copy
+            // current. Replayed rows come with the buckets already added.
+            store.putPreservingQuantity((ProductsSku) event.entity());
+        } else {
+            store.put((ProductsSku) event.entity());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        store.setQuantity(event.skuId(), event.quantity() == null ? 0 : event.quantity());
+    }
+
+    // A zero row may belong to a SKU switched on another instance that this one hasn't reloaded yet
+    private boolean inFlashSale(ProductsSku sku) {
+        if (flashSaleStockService.isHot(sku.getId())) {
+            return true;
+        }
+        return (sku.getQuantity() == null || sku.getQuantity() == 0) && flashSaleStockService.hasBuckets(sku.getId());
+    }
+}
@@ -0,0 +1,106 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.store.SkuCodeIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SKU lookups by code. The code resolves to an id through the off-heap {@link SkuCodeIndex} and
+ * the SKU itself comes from the SKU cache, so a warm lookup never reaches the database. Codes the
+ * index doesn't know, such as ones written through another instance, are read from the database
+ * in one query and indexed on the way out.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class SkuLookupService {
+
+    public static final int MAX_CODES = 500;
+    static final int LOAD_PAGE_SIZE = 2000;
+
+    private final ProductsSkuRepository productsSkuRepository;
+    private final ProductsSkuService productsSkuService;
+    private final SkuCodeIndex index = new SkuCodeIndex();
+
+    public SkuLookupService(ProductsSkuRepository productsSkuRepository, ProductsSkuService productsSkuService) {
+        this.productsSkuRepository = productsSkuRepository;
+        this.productsSkuService = productsSkuService;
+    }
+
+    public Optional<ProductsSku> getBySku(String code) {
+        return getBySkus(List.of(code)).stream().findFirst();
+    }
+
+    /**
+     * SKUs for the given codes in request order; unknown codes are left out.
+     */
+    public List<ProductsSku> getBySkus(List<String> codes) {
+        var distinct = new LinkedHashSet<>(codes);
+        if (distinct.size() > MAX_CODES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_CODES + " codes per request, got " + distinct.size());
+        }
+        Map<String, ProductsSku> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (var code : distinct) {
+            if (code == null || code.isBlank()) {
+                continue;
+            }
+            int id = index.get(code);
+            // The cached row can lag a code change that the index already has; check it still matches
+            var sku = id == SkuCodeIndex.MISSING ? Optional.<ProductsSku>empty()
+                    : productsSkuService.getProductsSkuById(id).filter(row -> code.equals(row.getSku()));
+            sku.ifPresentOrElse(row -> found.put(code, row), () -> misses.add(code));
+        }
+        if (!misses.isEmpty()) {
+            for (var sku : productsSkuService.getProductsSkusBySkus(misses)) {
+                index.put(sku.getId(), sku.getSku());
+                found.put(sku.getSku(), sku);
+            }
+        }
+        return distinct.stream().filter(found::containsKey).map(found::get).toList();
+    }
+
+    // Needs no load bookkeeping: an entry made stale by a concurrent write fails the code check
+    // above and is repaired from the database on first use
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Integer afterId = 0;
+        List<ProductsSku> page;
+        do {
+            page = productsSkuRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(LOAD_PAGE_SIZE));
+            page.forEach(sku -> index.put(sku.getId(), sku.getSku()));
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        if (!event.concerns(ProductsSku.class)) {
+            return;
+        }
+        if (event.isDeleted()) {
+            index.remove(event.id());
+        } else {
+            index.put(event.id(), ((ProductsSku) event.entity()).getSku());
+        }
+    }
+}
@@ -1,26 +1,47 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
 import com.alexsys.smartmarket.product.mapper.SubCategoryMapper;
 import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
 import com.alexsys.smartmarket.product.repository.SubCategoryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class SubCategoryService {
 
     private final SubCategoryRepository subCategoryRepository;
     private final SubCategoryMapper subCategoryMapper;
-    public SubCategoryService(SubCategoryRepository subCategoryRepository, SubCategoryMapper subCategoryMapper) {
+    private final PartialUpdates partialUpdates;
+    private final ApplicationEventPublisher eventPublisher;
+    public SubCategoryService(SubCategoryRepository subCategoryRepository, SubCategoryMapper subCategoryMapper, PartialUpdates partialUpdates, ApplicationEventPublisher eventPublisher) {
         this.subCategoryRepository = subCategoryRepository;
         this.subCategoryMapper = subCategoryMapper;
+        this.partialUpdates = partialUpdates;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<SubCategory> getAllSubCategories() { return subCategoryRepository.findAll(); }
+    @Transactional(readOnly = true)
+    public CursorPage<SubCategory> getSubCategoriesPage(Integer afterId, int limit) {
+        return CursorPage.of(subCategoryRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.probeLimit(limit)), limit, SubCategory::getId);
+    }
+    @Transactional(readOnly = true)
     public Optional<SubCategory> getSubCategoryById(Integer id) { return subCategoryRepository.findById(id); }
-    public SubCategory saveSubCategory(SubCategory subCategory) { return subCategoryRepository.save(subCategory); }
+    @Transactional
+    public SubCategory saveSubCategory(SubCategory subCategory) {
+        var saved = subCategoryRepository.save(subCategory);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(SubCategory.class, saved.getId(), saved));
+        return saved;
+    }
+    @Transactional
     public Optional<SubCategory> updateSubCategory(Integer id, SubCategory subCategoryDetails) {
         var existingSubCategoryOptional = getSubCategoryById(id);
         if (existingSubCategoryOptional.isEmpty()) {
@@ -28,7 +49,23 @@ public class SubCategoryService {
         }
         var existingSubCategory = existingSubCategoryOptional.get();
         subCategoryMapper.update(existingSubCategory, subCategoryDetails);
-        return Optional.ofNullable(subCategoryRepository.save(existingSubCategory));
+        var saved = subCategoryRepository.save(existingSubCategory);
+        eventPublisher.publishEvent(EntityChangedEvent.saved(SubCategory.class, id, saved));
+        return Optional.ofNullable(saved);
+    }
+
+    @Transactional
+    public boolean patchSubCategory(Integer id, SubCategory changes) {
+        if (partialUpdates.update(SubCategory.class, id, changes) == 0) {
+            return false;
+        }
+        // The taxonomy tree needs the whole row, categoryId included
+        subCategoryRepository.findById(id).ifPresent(saved -> eventPublisher.publishEvent(EntityChangedEvent.saved(SubCategory.class, id, saved)));
+        return true;
+    }
+    @Transactional
+    public void deleteSubCategory(Integer id) {
+        subCategoryRepository.deleteById(id);
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(SubCategory.class, id));
     }
-    public void deleteSubCategory(Integer id) { subCategoryRepository.deleteById(id); }
 }
@@ -0,0 +1,72 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.alexsys.smartmarket.product.repository.SubCategoryRepository;
+import com.alexsys.smartmarket.product.taxonomy.TaxonomySnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the category tree from an in-memory {@link TaxonomySnapshot}. Local writes are applied
+ * copy-on-write as they happen; the periodic reload picks up writes made on other instances.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class TaxonomyService {
+
+    private final CategoryRepository categoryRepository;
+    private final SubCategoryRepository subCategoryRepository;
+    private final ObjectWriter writer;
+    private final AtomicReference<TaxonomySnapshot> snapshot = new AtomicReference<>();
+
+    public TaxonomyService(CategoryRepository categoryRepository, SubCategoryRepository subCategoryRepository,
+                           ObjectMapper objectMapper) {
+        this.categoryRepository = categoryRepository;
+        this.subCategoryRepository = subCategoryRepository;
+        this.writer = objectMapper.writer();
+    }
+
+    public TaxonomySnapshot getSnapshot() {
+        var current = snapshot.get();
+        return current != null ? current : snapshot.updateAndGet(s -> s != null ? s : load());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${smartmarket.taxonomy.reload-interval:PT5M}",
+               fixedDelayString = "${smartmarket.taxonomy.reload-interval:PT5M}")
+    public void reload() {
+        snapshot.set(load());
+    }
+
+    private TaxonomySnapshot load() {
+        return TaxonomySnapshot.of(categoryRepository.findAll(), subCategoryRepository.findAll(), writer);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        if (snapshot.get() == null) {
+            return;
+        }
+        if (event.concerns(Category.class)) {
+            snapshot.updateAndGet(s -> event.isDeleted()
+                    ? s.withoutCategory(event.id(), writer)
+                    : s.withCategory((Category) event.entity(), writer));
+        } else if (event.concerns(SubCategory.class)) {
+            snapshot.updateAndGet(s -> event.isDeleted()
+                    ? s.withoutSubCategory(event.id(), writer)
+                    : s.withSubCategory((SubCategory) event.entity(), writer));
+        }
+    }
+}
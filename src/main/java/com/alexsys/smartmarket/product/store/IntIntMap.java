@@ -0,0 +1,113 @@
+package com.alexsys.smartmarket.product.store;
+
+/**
+ * Open-addressing int to int map with linear probing, about 16 bytes per entry where a
+ * {@code HashMap<Integer, Integer>} spends over 50. Keys must be positive: 0 marks an empty slot.
+ * Not thread-safe; callers hold their own lock.
+ */
+final class IntIntMap {
+
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IntIntMap() {
+        keys = new int[16];
+        values = new int[16];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int key, int missing) {
+        if (key <= 0) {
+            // Would otherwise match the first empty slot and return its leftover value
+            return missing;
+        }
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return missing;
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        requirePositive(key);
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                values[i] = value;
+                resize(keys.length * 2);
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    void remove(int key) {
+        requirePositive(key);
+        int mask = keys.length - 1;
+        int gap = mix(key) & mask;
+        while (keys[gap] != key) {
+            if (keys[gap] == EMPTY) {
+                return;
+            }
+            gap = (gap + 1) & mask;
+        }
+        // Shift later entries of the probe run back so lookups never stop at the hole
+        for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            boolean reachable = gap <= j ? gap < home && home <= j : gap < home || home <= j;
+            if (!reachable) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = mix(oldKeys[j]) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static void requirePositive(int key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("key must be positive: " + key);
+        }
+    }
+
+    // Sequential ids would otherwise fill one contiguous run
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
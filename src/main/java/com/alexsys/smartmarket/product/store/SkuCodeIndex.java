@@ -0,0 +1,222 @@
+package com.alexsys.smartmarket.product.store;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Map from SKU code to SKU id held outside the Java heap, so a large catalog adds neither heap
+ * nor GC work. Entries live in a direct-buffer open-addressing table of 16-byte slots
+ * {@code (hash, key offset, key length, id)}; the codes themselves sit as UTF-16 chars in a
+ * second direct buffer. A lookup compares chars straight from the buffer and allocates nothing.
+ * <p>
+ * Removed entries leave tombstones and dead chars behind; both are dropped whenever the table is
+ * rebuilt, which happens once live entries and tombstones fill half of it. The on-heap part is an
+ * {@link IntIntMap} from id to slot, needed to find an entry again when its code changes.
+ */
+public class SkuCodeIndex {
+
+    public static final int MISSING = 0;
+
+    private static final int SLOT_BYTES = 16;
+    private static final int HASH = 0;
+    private static final int OFFSET = 4;
+    private static final int LENGTH = 8;
+    private static final int ID = 12;
+    // Stored in the id field; real ids start at 1
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ByteBuffer table;
+    private ByteBuffer chars;
+    private int capacity;
+    private int size;
+    private int tombstones;
+    private int charsUsed;
+    private IntIntMap slotById = new IntIntMap();
+
+    public SkuCodeIndex() {
+        allocate(INITIAL_SLOTS, INITIAL_SLOTS * 16);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Id of the SKU with this code, or {@link #MISSING}.
+     */
+    public int get(String code) {
+        lock.readLock().lock();
+        try {
+            int slot = find(code, mix(code.hashCode()));
+            return slot < 0 ? MISSING : table.getInt(slot * SLOT_BYTES + ID);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Points {@code code} at {@code id}, dropping the code {@code id} had before. A null or blank
+     * code just removes the id.
+     */
+    public void put(int id, String code) {
+        lock.writeLock().lock();
+        try {
+            int hash = code == null ? 0 : mix(code.hashCode());
+            int current = slotById.get(id, -1);
+            if (current >= 0 && code != null && table.getInt(current * SLOT_BYTES + HASH) == hash && keyEquals(current, code)) {
+                return;
+            }
+            if (current >= 0) {
+                bury(current);
+            }
+            if (code == null || code.isBlank()) {
+                return;
+            }
+            // Another SKU may still hold the code until its own update arrives; the newest write wins
+            int holder = find(code, hash);
+            if (holder >= 0) {
+                bury(holder);
+            }
+            if ((size + tombstones + 1) * 2 > capacity || charsUsed + code.length() > chars.capacity() / 2) {
+                rebuild(Math.max(capacity, Integer.highestOneBit((size + 1) * 2) << 1), code.length());
+            }
+            insert(hash, code, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotById.get(id, -1);
+            if (slot >= 0) {
+                bury(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Direct memory currently reserved, in bytes.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) table.capacity() + chars.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int find(String code, int hash) {
+        int mask = capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int base = slot * SLOT_BYTES;
+            int id = table.getInt(base + ID);
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (id != TOMBSTONE && table.getInt(base + HASH) == hash && keyEquals(slot, code)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean keyEquals(int slot, String code) {
+        int base = slot * SLOT_BYTES;
+        int length = table.getInt(base + LENGTH);
+        if (length != code.length()) {
+            return false;
+        }
+        int offset = table.getInt(base + OFFSET) * Character.BYTES;
+        for (int i = 0; i < length; i++) {
+            if (chars.getChar(offset + i * Character.BYTES) != code.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int hash, String code, int id) {
+        int offset = charsUsed;
+        for (int i = 0; i < code.length(); i++) {
+            chars.putChar((offset + i) * Character.BYTES, code.charAt(i));
+        }
+        charsUsed += code.length();
+        int mask = capacity - 1;
+        int slot = hash & mask;
+        // Tombstones are only reclaimed by a rebuild, which keeps probe runs intact
+        while (table.getInt(slot * SLOT_BYTES + ID) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slot * SLOT_BYTES;
+        table.putInt(base + HASH, hash);
+        table.putInt(base + OFFSET, offset);
+        table.putInt(base + LENGTH, code.length());
+        table.putInt(base + ID, id);
+        slotById.put(id, slot);
+        size++;
+    }
+
+    private void bury(int slot) {
+        int base = slot * SLOT_BYTES;
+        slotById.remove(table.getInt(base + ID));
+        table.putInt(base + ID, TOMBSTONE);
+        size--;
+        tombstones++;
+    }
+
+    // Copies live entries into fresh buffers, dropping tombstones and dead chars
+    private void rebuild(int slots, int extraChars) {
+        var oldTable = table;
+        var oldChars = chars;
+        int oldCapacity = capacity;
+        long liveChars = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            if (oldTable.getInt(slot * SLOT_BYTES + ID) > 0) {
+                liveChars += oldTable.getInt(slot * SLOT_BYTES + LENGTH);
+            }
+        }
+        allocate(slots, (int) Math.min(Integer.MAX_VALUE / 2, Math.max(INITIAL_SLOTS * 16, (liveChars + extraChars) * 4)));
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int base = slot * SLOT_BYTES;
+            int id = oldTable.getInt(base + ID);
+            if (id > 0) {
+                int offset = oldTable.getInt(base + OFFSET);
+                int length = oldTable.getInt(base + LENGTH);
+                char[] code = new char[length];
+                for (int i = 0; i < length; i++) {
+                    code[i] = oldChars.getChar((offset + i) * Character.BYTES);
+                }
+                insert(oldTable.getInt(base + HASH), new String(code), id);
+            }
+        }
+    }
+
+    private void allocate(int slots, int charCapacity) {
+        capacity = slots;
+        table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+        chars = ByteBuffer.allocateDirect(charCapacity * Character.BYTES);
+        size = 0;
+        tombstones = 0;
+        charsUsed = 0;
+        slotById = new IntIntMap();
+    }
+
+    // Spreads String.hashCode, which is cached on the string, over the low bits used as the slot
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,270 @@
+package com.alexsys.smartmarket.product.store;
+
+import com.alexsys.smartmarket.product.model.ProductsSku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * SKU price and stock kept column by column in parallel primitive arrays, one slot per SKU. A
+ * slot costs about 50 bytes including its share of the lookup maps, against roughly 200 for a
+ * {@link ProductsSku} with its boxed fields and code string, and a catalog-wide scan reads two
+ * flat arrays with no pointer chasing. The SKUs of a product are chained through
+ * {@code nextOfProduct}, so a per-product query only visits that product's slots.
+ * <p>
+ * Freed slots are reused and hold a zero quantity and a NaN price, which no stock or price
+ * predicate accepts, so scans need not look at the id column. A null price is stored as NaN and
+ * a null quantity as 0. Locking and bulk loading follow the search indexes.
+ */
+public class SkuColumnStore {
+
+    public record Row(Integer id, Integer productId, Integer sizeAttributeId, Integer colorAttributeId,
+                      Double price, int quantity) {
+    }
+
+    // Ids start at 1, so 0 marks a missing attribute id
+    private static final int NONE = 0;
+    private static final int END = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] productIds = new int[INITIAL_CAPACITY];
+    private int[] sizeAttributeIds = new int[INITIAL_CAPACITY];
+    private int[] colorAttributeIds = new int[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] nextOfProduct = new int[INITIAL_CAPACITY];
+    // Every live slot is below the high-water mark
+    private int slots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private final IntIntMap slotById = new IntIntMap();
+    private final IntIntMap firstSlotByProduct = new IntIntMap();
+    private Set<Integer> writtenDuringLoad;
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(ProductsSku sku) {
+        write(sku.getId(), () -> replace(sku, false));
+    }
+
+    /**
+     * Like {@link #put} but keeps the stored quantity, for SKUs whose stock lives outside the row.
+     */
+    public void putPreservingQuantity(ProductsSku sku) {
+        write(sku.getId(), () -> replace(sku, true));
+    }
+
+    public void remove(Integer id) {
+        write(id, () -> {
+            int slot = slotById.get(id, END);
+            if (slot != END) {
+                release(slot);
+            }
+        });
+    }
+
+    public void setQuantity(Integer id, int quantity) {
+        write(id, () -> {
+            int slot = slotById.get(id, END);
+            if (slot != END) {
+                quantities[slot] = quantity;
+            }
+        });
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * SKUs read by a bulk load; any SKU written since {@link #beginLoad} keeps its newer state.
+     */
+    public void load(List<ProductsSku> batch) {
+        lock.writeLock().lock();
+        try {
+            for (var sku : batch) {
+                if (writtenDuringLoad == null || !writtenDuringLoad.contains(sku.getId())) {
+                    replace(sku, false);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Row> get(Integer id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotById.get(id, END);
+            return slot == END ? Optional.empty() : Optional.of(row(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * SKUs of a product with stock left and a price below {@code maxPrice}, by id.
+     */
+    public List<Row> inStock(Integer productId, double maxPrice) {
+        lock.readLock().lock();
+        try {
+            List<Row> rows = new ArrayList<>();
+            for (int slot = firstSlotByProduct.get(productId, END); slot != END; slot = nextOfProduct[slot]) {
+                if (quantities[slot] > 0 && prices[slot] < maxPrice) {
+                    rows.add(row(slot));
+                }
+            }
+            rows.sort(Comparator.comparing(Row::id));
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Catalog-wide count of SKUs with stock left and a price below {@code maxPrice}.
+     */
+    public int countInStock(double maxPrice) {
+        lock.readLock().lock();
+        try {
+            // Branch-free over two flat arrays, which C2 can unroll and vectorize
+            int[] quantities = this.quantities;
+            double[] prices = this.prices;
+            int count = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                count += quantities[slot] > 0 & prices[slot] < maxPrice ? 1 : 0;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Integer id, Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.add(id);
+            }
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replace(ProductsSku sku, boolean preserveQuantity) {
+        int slot = slotById.get(sku.getId(), END);
+        if (sku.getProductId() == null) {
+            if (slot != END) {
+                release(slot);
+            }
+            return;
+        }
+        int quantity = sku.getQuantity() == null ? 0 : sku.getQuantity();
+        if (slot != END && preserveQuantity) {
+            quantity = quantities[slot];
+        }
+        if (slot != END && productIds[slot] != sku.getProductId()) {
+            release(slot);
+            slot = END;
+        }
+        if (slot == END) {
+            slot = allocate();
+            ids[slot] = sku.getId();
+            productIds[slot] = sku.getProductId();
+            nextOfProduct[slot] = firstSlotByProduct.get(sku.getProductId(), END);
+            firstSlotByProduct.put(sku.getProductId(), slot);
+            slotById.put(sku.getId(), slot);
+        }
+        sizeAttributeIds[slot] = sku.getSizeAttributeId() == null ? NONE : sku.getSizeAttributeId();
+        colorAttributeIds[slot] = sku.getColorAttributeId() == null ? NONE : sku.getColorAttributeId();
+        prices[slot] = sku.getPrice() == null ? Double.NaN : sku.getPrice();
+        quantities[slot] = quantity;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slots == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+            sizeAttributeIds = Arrays.copyOf(sizeAttributeIds, capacity);
+            colorAttributeIds = Arrays.copyOf(colorAttributeIds, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            nextOfProduct = Arrays.copyOf(nextOfProduct, capacity);
+        }
+        return slots++;
+    }
+
+    private void release(int slot) {
+        unlink(slot);
+        slotById.remove(ids[slot]);
+        ids[slot] = NONE;
+        productIds[slot] = NONE;
+        prices[slot] = Double.NaN;
+        quantities[slot] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void unlink(int slot) {
+        int productId = productIds[slot];
+        int first = firstSlotByProduct.get(productId, END);
+        if (first == slot) {
+            if (nextOfProduct[slot] == END) {
+                firstSlotByProduct.remove(productId);
+            } else {
+                firstSlotByProduct.put(productId, nextOfProduct[slot]);
+            }
+            return;
+        }
+        for (int previous = first; previous != END; previous = nextOfProduct[previous]) {
+            if (nextOfProduct[previous] == slot) {
+                nextOfProduct[previous] = nextOfProduct[slot];
+                return;
+            }
+        }
+    }
+
+    private Row row(int slot) {
+        return new Row(ids[slot], productIds[slot],
+                sizeAttributeIds[slot] == NONE ? null : sizeAttributeIds[slot],
+                colorAttributeIds[slot] == NONE ? null : colorAttributeIds[slot],
+                Double.isNaN(prices[slot]) ? null : prices[slot], quantities[slot]);
+    }
+}
@@ -0,0 +1,204 @@
+package com.alexsys.smartmarket.product.stream;
+
+import com.alexsys.smartmarket.product.config.ConcurrencyConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.event.StockChangedEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.service.SkuAvailabilityService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes SKU price and stock changes to Server-Sent Events subscribers.
+ * <p>
+ * Committed writes only mark a SKU dirty. Every flush interval each dirty SKU is handed to its
+ * subscribers, so a burst of stock adjustments reaches a client as one event carrying the level
+ * of the moment, read from {@link SkuAvailabilityService}. Each subscriber sends from a virtual
+ * thread of its own and holds at most one pending mark per SKU: a slow client blocks only its own
+ * sender and, once it catches up, gets the latest levels rather than a backlog.
+ * <p>
+ * Writes made on other instances arrive as events replayed from the change feed, shortly after
+ * they commit. A level a client already has is not sent again, so this instance's own writes coming
+ * back through the feed cost nothing on the wire.
+ */
+@Component
+public class SkuChangeBroadcaster {
+
+    public record SkuLevel(Integer id, Double price, int quantity) {
+    }
+
+    public static final String SUBSCRIBERS = "smartmarket.sku-stream.subscribers";
+    public static final String SENT = "smartmarket.sku-stream.sent";
+
+    private final SkuAvailabilityService skuAvailabilityService;
+    private final ExecutorService executor;
+    private final Map<Integer, Set<Subscriber>> subscribersBySku = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final Counter sent;
+    private final int maxIds;
+    private final Duration timeout;
+
+    public SkuChangeBroadcaster(SkuAvailabilityService skuAvailabilityService,
+                                @Qualifier(ConcurrencyConfig.VIRTUAL_THREAD_EXECUTOR) ExecutorService executor,
+                                MeterRegistry meterRegistry,
+                                @Value("${smartmarket.sku-stream.max-ids:100}") int maxIds,
+                                @Value("${smartmarket.sku-stream.timeout:PT30M}") Duration timeout) {
+        this.skuAvailabilityService = skuAvailabilityService;
+        this.executor = executor;
+        this.maxIds = maxIds;
+        this.timeout = timeout;
+        this.sent = meterRegistry.counter(SENT);
+        Gauge.builder(SUBSCRIBERS, subscribers, Set::size).register(meterRegistry);
+    }
+
+    /** Opens a stream that starts with the current level of every SKU in {@code ids}. */
+    public SseEmitter subscribe(Collection<Integer> ids) {
+        var skuIds = new LinkedHashSet<>(ids);
+        if (skuIds.isEmpty() || skuIds.size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + maxIds + " SKU ids per stream");
+        }
+        var subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), skuIds);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+        skuIds.forEach(id -> subscribersBySku.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        skuIds.forEach(subscriber::mark);
+        return subscriber.emitter;
+    }
+
+    // After commit: a rolled-back write never reaches a client
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        if (event.concerns(ProductsSku.class)) {
+            dirty.add(event.id());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        dirty.add(event.skuId());
+    }
+
+    @Scheduled(fixedDelayString = "${smartmarket.sku-stream.flush-interval:PT0.25S}")
+    public void flush() {
+        for (Integer id : dirty) {
+            dirty.remove(id);
+            var watching = subscribersBySku.get(id);
+            if (watching != null) {
+                watching.forEach(subscriber -> subscriber.mark(id));
+            }
+        }
+    }
+
+    // Keeps idle streams open through proxies, and finds the clients that went away
+    @Scheduled(fixedDelayString = "${smartmarket.sku-stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            for (Integer id : subscriber.skuIds) {
+                subscribersBySku.computeIfPresent(id, (key, watching) -> {
+                    watching.remove(subscriber);
+                    return watching.isEmpty() ? null : watching;
+                });
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<Integer> skuIds;
+        private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+        // Empty once a delete went out
+        private final Map<Integer, Optional<SkuLevel>> lastSent = new ConcurrentHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<Integer> skuIds) {
+            this.emitter = emitter;
+            this.skuIds = skuIds;
+        }
+
+        void mark(Integer id) {
+            pending.add(id);
+            if (sending.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        void heartbeat() {
+            if (sending.compareAndSet(false, true)) {
+                executor.execute(() -> {
+                    try {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        fail(e);
+                        return;
+                    }
+                    drain();
+                });
+            }
+        }
+
+        private void drain() {
+            try {
+                do {
+                    for (Integer id : pending) {
+                        pending.remove(id);
+                        send(id);
+                    }
+                    sending.set(false);
+                    // A mark that came in after the loop but before the flag dropped starts no drain of its own
+                } while (!pending.isEmpty() && sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                fail(e);
+            }
+        }
+
+        private void send(Integer id) throws IOException {
+            var level = skuAvailabilityService.getSku(id).map(sku -> new SkuLevel(sku.id(), sku.price(), sku.quantity()));
+            if (level.equals(lastSent.put(id, level))) {
+                return;
+            }
+            if (level.isPresent()) {
+                emitter.send(SseEmitter.event().name("sku").data(level.get()));
+            } else {
+                emitter.send(SseEmitter.event().name("deleted").data(id));
+            }
+            sent.increment();
+        }
+
+        private void fail(Exception e) {
+            unsubscribe(this);
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.alexsys.smartmarket.product.taxonomy;
+
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of the category tree. Writers never modify a snapshot in place: every
+ * {@code with}/{@code without} call returns a new one with its serialized body and ETag
+ * already computed, so readers only ever see a complete tree.
+ */
+public final class TaxonomySnapshot {
+
+    public record SubCategoryNode(Integer id, String name, String description, Integer categoryId) {
+    }
+
+    public record CategoryNode(Integer id, String name, String description, List<SubCategoryNode> subCategories) {
+    }
+
+    private record CategoryRow(Integer id, String name, String description) {
+    }
+
+    // Both maps are sorted by id so the serialized body, and therefore the ETag, is the same on every pod
+    private final Map<Integer, CategoryRow> categories;
+    private final Map<Integer, SubCategoryNode> subCategories;
+    private final List<CategoryNode> tree;
+    private final byte[] json;
+    private final String etag;
+
+    private TaxonomySnapshot(Map<Integer, CategoryRow> categories, Map<Integer, SubCategoryNode> subCategories,
+                             ObjectWriter writer) {
+        this.categories = categories;
+        this.subCategories = subCategories;
+        Map<Integer, List<SubCategoryNode>> childrenByCategory = subCategories.values().stream()
+                .sorted(Comparator.comparing(SubCategoryNode::id))
+                .collect(Collectors.groupingBy(SubCategoryNode::categoryId));
+        this.tree = categories.values().stream()
+                .map(c -> new CategoryNode(c.id(), c.name(), c.description(),
+                        childrenByCategory.getOrDefault(c.id(), List.of())))
+                .toList();
+        try {
+            this.json = writer.writeValueAsBytes(tree);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize taxonomy", e);
+        }
+        this.etag = hash(json);
+    }
+
+    public static TaxonomySnapshot of(Collection<Category> categories, Collection<SubCategory> subCategories,
+                                      ObjectWriter writer) {
+        Map<Integer, CategoryRow> categoryRows = new TreeMap<>();
+        categories.forEach(c -> categoryRows.put(c.getId(), toRow(c)));
+        Map<Integer, SubCategoryNode> subCategoryNodes = new TreeMap<>();
+        subCategories.forEach(s -> subCategoryNodes.put(s.getId(), toNode(s)));
+        return new TaxonomySnapshot(Collections.unmodifiableMap(categoryRows), Collections.unmodifiableMap(subCategoryNodes), writer);
+    }
+
+    public TaxonomySnapshot withCategory(Category category, ObjectWriter writer) {
+        var copy = new TreeMap<>(categories);
+        copy.put(category.getId(), toRow(category));
+        return new TaxonomySnapshot(Collections.unmodifiableMap(copy), subCategories, writer);
+    }
+
+    public TaxonomySnapshot withoutCategory(Integer id, ObjectWriter writer) {
+        var copy = new TreeMap<>(categories);
+        copy.remove(id);
+        return new TaxonomySnapshot(Collections.unmodifiableMap(copy), subCategories, writer);
+    }
+
+    public TaxonomySnapshot withSubCategory(SubCategory subCategory, ObjectWriter writer) {
+        var copy = new TreeMap<>(subCategories);
+        copy.put(subCategory.getId(), toNode(subCategory));
+        return new TaxonomySnapshot(categories, Collections.unmodifiableMap(copy), writer);
+    }
+
+    public TaxonomySnapshot withoutSubCategory(Integer id, ObjectWriter writer) {
+        var copy = new TreeMap<>(subCategories);
+        copy.remove(id);
+        return new TaxonomySnapshot(categories, Collections.unmodifiableMap(copy), writer);
+    }
+
+    public List<CategoryNode> tree() {
+        return tree;
+    }
+
+    public byte[] json() {
+        return json.clone();
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    private static CategoryRow toRow(Category category) {
+        return new CategoryRow(category.getId(), category.getName(), category.getDescription());
+    }
+
+    private static SubCategoryNode toNode(SubCategory subCategory) {
+        return new SubCategoryNode(subCategory.getId(), subCategory.getName(), subCategory.getDescription(),
+                subCategory.getCategoryId());
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.alexsys.smartmarket.product.benchmark;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.exception.InsufficientStockException;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuStockBucketRepository;
+import com.alexsys.smartmarket.product.service.FlashSaleStockService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Decrements/sec on a single SKU as the number of stock buckets grows; 0 buckets is the plain
+ * row. Run with {@code mvn test -Pbenchmarks -Dbenchmark.threads=32 -Dbenchmark.seconds=5}; the
+ * in-memory database only hints at the row-lock contention a real MySQL primary shows.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {"spring.jpa.show-sql=false", "spring.datasource.hikari.maximum-pool-size=64"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, ProductsSkuService.class, FlashSaleStockService.class, PartialUpdates.class, ProductsSkuMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FlashSaleStockBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 3);
+    private static final int[] BUCKETS = {0, 1, 2, 4, 8, 16};
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private ProductsSkuStockBucketRepository bucketRepository;
+
+    @AfterEach
+    void tearDown() {
+        bucketRepository.deleteAllInBatch();
+        productsSkuRepository.deleteAllInBatch();
+        flashSaleStockService.reload();
+    }
+
+    @Test
+    void throughputByBucketCount() throws Exception {
+        for (int buckets : BUCKETS) {
+            ProductsSku sku = new ProductsSku();
+            sku.setProductId(1);
+            sku.setSku("BENCH-" + buckets);
+            sku.setQuantity(Integer.MAX_VALUE / 2);
+            Integer id = productsSkuRepository.save(sku).getId();
+            if (buckets > 0) {
+                flashSaleStockService.enable(id, buckets);
+            }
+
+            long decrements = run(id);
+            System.out.printf("[%s] threads=%d buckets=%d decrements=%.0f/s%n",
+                    getClass().getSimpleName(), THREADS, buckets, decrements / (double) SECONDS);
+            assertThat(decrements).isPositive();
+        }
+    }
+
+    private long run(Integer id) throws Exception {
+        LongAdder done = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                while (System.nanoTime() < deadline) {
+                    try {
+                        productsSkuService.decrementStock(id, 1);
+                        done.increment();
+                    } catch (InsufficientStockException e) {
+                        // not expected with this much stock, but don't let it end the run
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(SECONDS + 60L, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return done.sum();
+    }
+}
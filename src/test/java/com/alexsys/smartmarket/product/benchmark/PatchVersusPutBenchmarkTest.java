@@ -0,0 +1,108 @@
+package com.alexsys.smartmarket.product.benchmark;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.service.FlashSaleStockService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SKU price changes through the PUT path (load, merge, full-row UPDATE) against PATCH (targeted
+ * UPDATE, then the read-back for listeners). Prints updates/sec and JDBC statements per update;
+ * H2 runs in-process, so against MySQL the gap widens by the saved round trip. Run with
+ * {@code mvn test -Pbenchmarks -Dbenchmark.rows=20000}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, PartialUpdates.class, ProductsSkuService.class, FlashSaleStockService.class, ProductsSkuMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PatchVersusPutBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5000);
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        productsSkuRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void putVersusPatch() {
+        List<Integer> ids = new ArrayList<>(ROWS);
+        List<ProductsSku> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            ProductsSku sku = new ProductsSku();
+            sku.setProductId(i % 100 + 1);
+            sku.setSku("PATCH-" + i);
+            sku.setPrice(10.0);
+            sku.setQuantity(5);
+            rows.add(sku);
+        }
+        productsSkuRepository.saveAll(rows).forEach(sku -> ids.add(sku.getId()));
+
+        report(i -> {
+            ProductsSku changes = new ProductsSku();
+            changes.setPrice(11.0);
+            productsSkuService.updateProductsSku(ids.get(i), changes);
+        }, i -> {
+            ProductsSku changes = new ProductsSku();
+            changes.setPrice(12.0);
+            productsSkuService.patchProductsSku(ids.get(i), changes);
+        });
+        assertThat(productsSkuRepository.findById(ids.get(0)).orElseThrow().getPrice()).isEqualTo(12.0);
+    }
+
+    private void report(IntConsumer put, IntConsumer patch) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            put.accept(i);
+        }
+        double putRate = ROWS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        double putStatements = (double) statistics.getPrepareStatementCount() / ROWS;
+
+        statistics.clear();
+        start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            patch.accept(i);
+        }
+        double patchRate = ROWS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        double patchStatements = (double) statistics.getPrepareStatementCount() / ROWS;
+
+        System.out.printf("[%s] rows=%d put=%.0f updates/s (%.1f statements) patch=%.0f updates/s (%.1f statements)%n",
+                getClass().getSimpleName(), ROWS, putRate, putStatements, patchRate, patchStatements);
+    }
+}
@@ -0,0 +1,97 @@
+package com.alexsys.smartmarket.product.benchmark;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.service.FlashSaleStockService;
+import com.alexsys.smartmarket.product.service.ProductsSkuBulkService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows/sec of the one-by-one POST path against the chunked bulk upsert. Run with
+ * {@code mvn test -Pbenchmarks -Dbenchmark.rows=20000}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, ProductsSkuService.class, FlashSaleStockService.class, PartialUpdates.class, ProductsSkuBulkService.class, ProductsSkuMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductsSkuBulkBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5000);
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private ProductsSkuBulkService productsSkuBulkService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    private List<ProductsSku> createRows(String prefix) {
+        List<ProductsSku> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            ProductsSku sku = new ProductsSku();
+            sku.setProductId(i % 100 + 1);
+            sku.setSku(prefix + i);
+            sku.setPrice(10.0 + i % 50);
+            sku.setQuantity(i % 20);
+            rows.add(sku);
+        }
+        return rows;
+    }
+
+    @AfterEach
+    void tearDown() {
+        productsSkuRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void oneByOneVersusBulk() {
+        long start = System.nanoTime();
+        createRows("ONE-").forEach(productsSkuService::saveProductsSku);
+        double oneByOne = rowsPerSecond(start);
+
+        start = System.nanoTime();
+        List<ProductsSku> rows = createRows("BULK-");
+        for (int from = 0; from < rows.size(); from += ProductsSkuBulkService.MAX_ROWS) {
+            productsSkuBulkService.upsertProductsSkus(rows.subList(from, Math.min(from + ProductsSkuBulkService.MAX_ROWS, rows.size())));
+        }
+        double bulk = rowsPerSecond(start);
+
+        // Same codes again: the update half of the upsert
+        start = System.nanoTime();
+        List<ProductsSku> updates = createRows("BULK-");
+        for (int from = 0; from < updates.size(); from += ProductsSkuBulkService.MAX_ROWS) {
+            productsSkuBulkService.upsertProductsSkus(updates.subList(from, Math.min(from + ProductsSkuBulkService.MAX_ROWS, updates.size())));
+        }
+        double bulkUpdate = rowsPerSecond(start);
+
+        System.out.printf("[%s] rows=%d one-by-one=%.0f rows/s bulk-insert=%.0f rows/s bulk-update=%.0f rows/s%n",
+                getClass().getSimpleName(), ROWS, oneByOne, bulk, bulkUpdate);
+        assertThat(productsSkuRepository.count()).isEqualTo(2L * ROWS);
+    }
+
+    private static double rowsPerSecond(long start) {
+        return ROWS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,10 @@
+package com.alexsys.smartmarket.product.benchmark;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+// Same workload with pooled ids, where Hibernate can batch the INSERTs
+@ActiveProfiles("pooled-ids")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:pooledids;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE")
+class ProductsSkuBulkPooledBenchmarkTest extends ProductsSkuBulkBenchmarkTest {
+}
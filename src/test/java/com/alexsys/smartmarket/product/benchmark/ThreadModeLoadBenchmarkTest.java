@@ -0,0 +1,190 @@
+package com.alexsys.smartmarket.product.benchmark;
+
+import com.alexsys.smartmarket.product.ProductApplication;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.service.ProductsSkuBulkService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mixed HTTP load against the whole app, once on Tomcat's platform-thread pool and once with the
+ * {@code virtual-threads} profile. Half the clients page through SKUs, and every statement they
+ * run sleeps {@code benchmark.dbLatencyMs} first to stand in for a remote MySQL; the other half
+ * ask for typeahead suggestions, which never leave memory. Run with {@code mvn test -Pbenchmarks
+ * -Dtest=ThreadModeLoadBenchmarkTest -Dbenchmark.clients=400 -Dbenchmark.seconds=10}.
+ */
+@Tag("benchmark")
+class ThreadModeLoadBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 5);
+    private static final int WARMUP_SECONDS = Integer.getInteger("benchmark.warmupSeconds", 3);
+    private static final int DB_LATENCY_MS = Integer.getInteger("benchmark.dbLatencyMs", 50);
+
+    private record Result(String endpoint, long ok, long failed, long[] micros) {
+        long p99() {
+            return micros.length == 0 ? 0 : micros[(int) Math.min(micros.length - 1, micros.length * 0.99)];
+        }
+    }
+
+    @Test
+    void throughputAndP99ByThreadMode() throws Exception {
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            for (Result result : run(virtualThreads)) {
+                System.out.printf("[%s] mode=%s clients=%d endpoint=%s requests=%.0f/s p99=%.1fms failed=%d%n",
+                        getClass().getSimpleName(), virtualThreads ? "virtual" : "platform", CLIENTS,
+                        result.endpoint(), result.ok() / (double) SECONDS, result.p99() / 1000.0, result.failed());
+                assertThat(result.ok()).isPositive();
+            }
+        }
+    }
+
+    private List<Result> run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        var builder = new SpringApplicationBuilder(ProductApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(new SlowStatements()));
+        if (virtualThreads) {
+            builder.profiles("virtual-threads");
+        }
+        // Same pool in both modes so only the thread model differs
+        try (var context = builder.run("--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=30",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                "--spring.jpa.properties.hibernate.globally_quoted_identifiers_skip_column_definitions=true",
+                "--server.port=0",
+                "--eureka.client.enabled=false",
+                "--logging.level.root=WARN")) {
+            List<ProductsSku> skus = IntStream.range(0, 1000).mapToObj(i -> {
+                ProductsSku sku = new ProductsSku();
+                sku.setProductId(i / 4 + 1);
+                sku.setSku("LOAD-" + i);
+                sku.setQuantity(10);
+                return sku;
+            }).toList();
+            context.getBean(ProductsSkuBulkService.class).upsertProductsSkus(skus);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/smartmarket";
+            List<String> endpoints = List.of(base + "/product-skus?limit=20", base + "/products/suggest?prefix=lo");
+            drive(endpoints, WARMUP_SECONDS);
+            return drive(endpoints, SECONDS);
+        }
+    }
+
+    private List<Result> drive(List<String> endpoints, int seconds) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<long[]>> futures = new ArrayList<>();
+        LongAdder[] failed = {new LongAdder(), new LongAdder()};
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(10)).build()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int kind = c % endpoints.size();
+                HttpRequest request = HttpRequest.newBuilder(URI.create(endpoints.get(kind)))
+                        .timeout(Duration.ofSeconds(30)).build();
+                futures.add(clients.submit(() -> {
+                    long[] samples = new long[64];
+                    int count = 0;
+                    start.await();
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        try {
+                            if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                failed[kind].increment();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            failed[kind].increment();
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = (System.nanoTime() - begin) / 1000;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            start.countDown();
+
+            List<Result> results = new ArrayList<>();
+            for (int kind = 0; kind < endpoints.size(); kind++) {
+                List<long[]> perClient = new ArrayList<>();
+                for (int c = kind; c < futures.size(); c += endpoints.size()) {
+                    perClient.add(futures.get(c).get(seconds + 60L, TimeUnit.SECONDS));
+                }
+                long[] micros = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+                String path = URI.create(endpoints.get(kind)).getPath();
+                results.add(new Result(path, micros.length, failed[kind].sum(), micros));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Wraps the pool so each prepared statement waits before it executes, on whatever thread runs
+     * it and while holding its pooled connection, as a round trip to a remote database would.
+     */
+    private static class SlowStatements implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof DataSource dataSource ? delayed(dataSource, DataSource.class) : bean;
+        }
+
+        private static <T> T delayed(T target, Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (target instanceof PreparedStatement && method.getName().startsWith("execute")) {
+                    Thread.sleep(DB_LATENCY_MS);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Connection connection && method.getName().equals("getConnection")) {
+                    return delayed(connection, Connection.class);
+                }
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return delayed(statement, PreparedStatement.class);
+                }
+                return result;
+            }));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Deterministic entities shared by the JMH states
+final class CatalogFixtures {
+
+    static final int SKUS_PER_PRODUCT = 4;
+
+    private CatalogFixtures() {
+    }
+
+    static Product product(int i) {
+        Product product = new Product();
+        product.setId(i + 1);
+        product.setName("Product " + i);
+        product.setDescription("Long description of product " + i + " with enough text to look like a real listing.");
+        product.setSummary("Summary " + i);
+        product.setCover("https://cdn.example.com/covers/" + i + ".jpg");
+        product.setCategoryId(i % 20 + 1);
+        return product;
+    }
+
+    static ProductsSku sku(int i) {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(i + 1);
+        sku.setProductId(i / SKUS_PER_PRODUCT + 1);
+        sku.setSizeAttributeId(i % 5 + 1);
+        sku.setColorAttributeId(i % 7 + 10);
+        sku.setSku("SKU-" + i);
+        sku.setPrice(9.99 + i % 100);
+        sku.setQuantity(i % 50);
+        return sku;
+    }
+
+    static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(product(i));
+        }
+        return products;
+    }
+
+    static List<ProductsSku> skus(int count) {
+        List<ProductsSku> skus = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            skus.add(sku(i));
+        }
+        return skus;
+    }
+}
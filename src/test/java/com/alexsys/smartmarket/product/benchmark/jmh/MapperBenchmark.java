@@ -0,0 +1,80 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.mapper.ProductMapper;
+import com.alexsys.smartmarket.product.mapper.ProductMapperImpl;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapper;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct {@code update} with a sparse PATCH-like source and with every field set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final ProductsSkuMapper productsSkuMapper = new ProductsSkuMapperImpl();
+
+    private Product product;
+    private Product partialProduct;
+    private Product fullProduct;
+    private ProductsSku sku;
+    private ProductsSku partialSku;
+    private ProductsSku fullSku;
+
+    @Setup
+    public void setUp() {
+        product = CatalogFixtures.product(1);
+        fullProduct = CatalogFixtures.product(2);
+        partialProduct = new Product();
+        partialProduct.setName("Renamed");
+
+        sku = CatalogFixtures.sku(1);
+        fullSku = CatalogFixtures.sku(2);
+        partialSku = new ProductsSku();
+        partialSku.setPrice(19.99);
+        partialSku.setQuantity(7);
+    }
+
+    @Benchmark
+    public Product productPartialUpdate() {
+        productMapper.update(product, partialProduct);
+        return product;
+    }
+
+    @Benchmark
+    public Product productFullUpdate() {
+        productMapper.update(product, fullProduct);
+        return product;
+    }
+
+    @Benchmark
+    public ProductsSku skuPartialUpdate() {
+        productsSkuMapper.update(sku, partialSku);
+        return sku;
+    }
+
+    @Benchmark
+    public ProductsSku skuFullUpdate() {
+        productsSkuMapper.update(sku, fullSku);
+        return sku;
+    }
+}
@@ -0,0 +1,87 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.search.ProductFuzzyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misspelled-name queries against a generated catalog. Every name ends in a random model code,
+ * so the vocabulary grows with the catalog the way real part numbers make it grow. Setup prints
+ * the heap the index retains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductFuzzyIndexBenchmark {
+
+    private static final String[] BRANDS = {"acme", "nova", "zenith", "orbit", "polar", "terra", "lumen", "vertex",
+            "harbor", "summit", "cobalt", "meridian"};
+    private static final String[] NOUNS = {"t-shirt", "phone case", "wireless charger", "leather wallet", "desk lamp",
+            "running shoe", "coffee mug", "garden hose", "watch strap", "laptop stand", "steel bottle", "cotton hoodie",
+            "bluetooth speaker", "yoga mat", "backpack", "sunglasses"};
+    private static final String[] COLORS = {"black", "white", "red", "navy", "olive", "grey", "beige", "pink"};
+
+    @Param({"500000"})
+    private int catalogSize;
+
+    private ProductFuzzyIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        Random random = new Random(42);
+        index = new ProductFuzzyIndex();
+        for (int i = 0; i < catalogSize; i++) {
+            Product product = new Product();
+            product.setId(i + 1);
+            product.setName(BRANDS[random.nextInt(BRANDS.length)] + " " + COLORS[random.nextInt(COLORS.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " " + Integer.toString(random.nextInt(1 << 30), 36));
+            product.setCategoryId(1);
+            index.put(product);
+        }
+        long retained = usedHeap() - before;
+        System.out.printf("%nfuzzy index retains %.1f MB for %d products, %d words (%d bytes per product)%n",
+                retained / 1048576.0, catalogSize, index.vocabularySize(), retained / catalogSize);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public List<ProductFuzzyIndex.Match> oneTypo() {
+        return index.search("tshrit", 20);
+    }
+
+    @Benchmark
+    public List<ProductFuzzyIndex.Match> twoWords() {
+        return index.search("lether walet", 20);
+    }
+
+    @Benchmark
+    public List<ProductFuzzyIndex.Match> threeWords() {
+        return index.search("zenit wireles chargr", 20);
+    }
+}
@@ -0,0 +1,79 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.search.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BM25 query latency on a synthetic catalog. Words are drawn log-uniformly from a 5000-word
+ * vocabulary (roughly Zipf), so head words hit a large share of products and tail words a handful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSearchBenchmark {
+
+    private static final String[] HEAD_WORDS = {"phone", "case", "wireless", "charger", "cable", "leather", "wallet",
+            "lamp", "desk", "chair", "shoe", "running", "coffee", "mug", "garden", "hose", "watch", "strap",
+            "laptop", "stand", "bottle", "steel", "cotton", "shirt", "blue", "red", "black", "pro", "mini", "max"};
+    private static final int VOCABULARY = 5000;
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new ProductSearchIndex();
+        for (int i = 0; i < catalogSize; i++) {
+            Product product = CatalogFixtures.product(i);
+            product.setName(words(random, 3) + " " + i);
+            product.setSummary(words(random, 8));
+            product.setDescription(words(random, 40));
+            index.put(ProductSearchIndex.Document.of(product));
+        }
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int rank = (int) Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1;
+            text.append(rank < HEAD_WORDS.length ? HEAD_WORDS[rank] : "w" + rank).append(' ');
+        }
+        return text.toString();
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> rareTerm() {
+        return index.search("w4321", 20);
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> commonTerm() {
+        return index.search("strap", 20);
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> twoTerms() {
+        return index.search("wireless charger", 20);
+    }
+}
@@ -0,0 +1,81 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.search.ProductSuggester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead latency distribution (SampleTime reports p99) on a catalog of generated names. Setup
+ * also prints the heap the suggester retains, scaled to a million names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSuggesterBenchmark {
+
+    private static final String[] BRANDS = {"acme", "nova", "zenith", "orbit", "polar", "terra", "lumen", "vertex"};
+    private static final String[] NOUNS = {"phone case", "wireless charger", "leather wallet", "desk lamp",
+            "running shoe", "coffee mug", "garden hose", "watch strap", "laptop stand", "steel bottle"};
+
+    @Param({"1000000"})
+    private int names;
+
+    private ProductSuggester suggester;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        Random random = new Random(42);
+        suggester = new ProductSuggester();
+        for (int i = 0; i < names; i++) {
+            Product product = new Product();
+            product.setId(i + 1);
+            product.setName(BRANDS[random.nextInt(BRANDS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]
+                    + " " + Integer.toString(random.nextInt(1 << 30), 36));
+            product.setPopularity(random.nextInt(100_000));
+            product.setCategoryId(1);
+            suggester.put(product);
+        }
+        long retained = usedHeap() - before;
+        System.out.printf("%nsuggester retains %.1f MB for %d names (%.1f MB per million, %d bytes per name)%n",
+                retained / 1048576.0, names, retained / 1048576.0 * 1_000_000 / names, retained / names);
+
+        // From a single letter (large subtree) down to nearly the whole name
+        prefixes = List.of("a", "n", "acme", "nova w", "zenith desk", "orbit running s", "polar coffee mug 1",
+                "terra garden hose ab", "lumen watch strap 9z", "x").toArray(String[]::new);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public List<ProductSuggester.Suggestion> suggest() {
+        String prefix = prefixes[next++ % prefixes.length];
+        return suggester.suggest(prefix, 10);
+    }
+}
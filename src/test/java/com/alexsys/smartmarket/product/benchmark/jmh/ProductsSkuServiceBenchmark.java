@@ -0,0 +1,102 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.ProductApplication;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.service.ProductsSkuBulkService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductsSkuService} reads against an in-memory H2 seeded with {@code catalogSize} SKUs.
+ * To try other sizes, run {@code org.openjdk.jmh.Main} on the test classpath with
+ * {@code -p catalogSize=100000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductsSkuServiceBenchmark {
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductsSkuService productsSkuService;
+    private int productCount;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProductApplication.class)
+                // SecurityConfig needs the servlet stack; the port is random and never called
+                .web(WebApplicationType.SERVLET)
+                // Command-line arguments win over every application.yml on the classpath or in the working directory
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers_skip_column_definitions=true",
+                        "--server.port=0",
+                        "--eureka.client.enabled=false",
+                        "--logging.level.root=WARN");
+        productsSkuService = context.getBean(ProductsSkuService.class);
+
+        var bulkService = context.getBean(ProductsSkuBulkService.class);
+        List<ProductsSku> skus = CatalogFixtures.skus(catalogSize);
+        skus.forEach(sku -> sku.setId(null));
+        for (int from = 0; from < skus.size(); from += ProductsSkuBulkService.MAX_ROWS) {
+            bulkService.upsertProductsSkus(skus.subList(from, Math.min(from + ProductsSkuBulkService.MAX_ROWS, skus.size())));
+        }
+        productCount = catalogSize / CatalogFixtures.SKUS_PER_PRODUCT;
+
+        // skuById measures the cached path; misses would otherwise dominate the first iterations
+        for (int id = 1; id <= catalogSize; id++) {
+            productsSkuService.getProductsSkuById(id);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<ProductsSku> skuById() {
+        return productsSkuService.getProductsSkuById(ThreadLocalRandom.current().nextInt(catalogSize) + 1);
+    }
+
+    @Benchmark
+    public CursorPage<ProductsSku> skuPage() {
+        return productsSkuService.getProductsSkusPage(ThreadLocalRandom.current().nextInt(catalogSize), 50);
+    }
+
+    @Benchmark
+    public List<ProductsSku> skusByProduct() {
+        return productsSkuService.getProductsSkusByProductId(ThreadLocalRandom.current().nextInt(productCount) + 1);
+    }
+}
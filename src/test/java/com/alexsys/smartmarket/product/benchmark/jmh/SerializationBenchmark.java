@@ -0,0 +1,57 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to JSON bytes, the way the MVC message converter writes list responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private List<Product> products;
+    private List<ProductsSku> skus;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        products = CatalogFixtures.products(size);
+        skus = CatalogFixtures.skus(size);
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+    }
+
+    @Benchmark
+    public byte[] productsToJson() throws JsonProcessingException {
+        return writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] skusToJson() throws JsonProcessingException {
+        return writer.writeValueAsBytes(skus);
+    }
+}
@@ -0,0 +1,79 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.store.SkuCodeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Code-to-id lookups in {@link SkuCodeIndex} and in the {@code HashMap} it stands in for. Query
+ * strings are built fresh per call, as they would be when parsed from a request. Setup prints the
+ * heap each map retains and the direct memory of the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SkuCodeIndexBenchmark {
+
+    @Param({"1000000"})
+    private int catalogSize;
+
+    private SkuCodeIndex index;
+    private Map<String, Integer> heapMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        index = new SkuCodeIndex();
+        for (int i = 0; i < catalogSize; i++) {
+            index.put(i + 1, code(i));
+        }
+        long afterIndex = usedHeap();
+        heapMap = new HashMap<>();
+        for (int i = 0; i < catalogSize; i++) {
+            heapMap.put(code(i), i + 1);
+        }
+        long afterMap = usedHeap();
+        System.out.printf("%noff-heap index: %d heap bytes and %d direct bytes per code; HashMap: %d heap bytes per code%n",
+                (afterIndex - before) / catalogSize, index.offHeapBytes() / catalogSize, (afterMap - afterIndex) / catalogSize);
+    }
+
+    private static String code(int i) {
+        return "SKU-" + i;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public int offHeapIndex() {
+        return index.get(code(ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+
+    @Benchmark
+    public Integer heapMap() {
+        return heapMap.get(code(ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+}
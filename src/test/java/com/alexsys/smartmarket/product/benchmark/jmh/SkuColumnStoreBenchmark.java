@@ -0,0 +1,99 @@
+package com.alexsys.smartmarket.product.benchmark.jmh;
+
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.store.SkuColumnStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SkuColumnStore} against the list of entities it replaces, for a catalog-wide stock scan
+ * and for one product's in-stock SKUs. Setup prints the heap each representation retains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SkuColumnStoreBenchmark {
+
+    private static final double MAX_PRICE = 50.0;
+
+    @Param({"1000000"})
+    private int catalogSize;
+
+    private List<ProductsSku> entities;
+    private Map<Integer, List<ProductsSku>> entitiesByProduct;
+    private SkuColumnStore store;
+    private int productCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        entities = CatalogFixtures.skus(catalogSize);
+        long afterEntities = usedHeap();
+        entitiesByProduct = entities.stream().collect(Collectors.groupingBy(ProductsSku::getProductId));
+        long afterGrouping = usedHeap();
+        store = new SkuColumnStore();
+        store.load(entities);
+        long afterStore = usedHeap();
+        productCount = catalogSize / CatalogFixtures.SKUS_PER_PRODUCT;
+        System.out.printf("%nentity list %d bytes per SKU, grouped by product %d more, column store %d%n",
+                (afterEntities - before) / catalogSize, (afterGrouping - afterEntities) / catalogSize,
+                (afterStore - afterGrouping) / catalogSize);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public long scanEntities() {
+        long count = 0;
+        for (ProductsSku sku : entities) {
+            if (sku.getQuantity() != null && sku.getQuantity() > 0 && sku.getPrice() != null && sku.getPrice() < MAX_PRICE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int scanColumns() {
+        return store.countInStock(MAX_PRICE);
+    }
+
+    @Benchmark
+    public List<ProductsSku> productEntities() {
+        int productId = ThreadLocalRandom.current().nextInt(productCount) + 1;
+        return entitiesByProduct.get(productId).stream()
+                .filter(sku -> sku.getQuantity() > 0 && sku.getPrice() < MAX_PRICE)
+                .toList();
+    }
+
+    @Benchmark
+    public List<SkuColumnStore.Row> productColumns() {
+        int productId = ThreadLocalRandom.current().nextInt(productCount) + 1;
+        return store.inStock(productId, MAX_PRICE);
+    }
+}
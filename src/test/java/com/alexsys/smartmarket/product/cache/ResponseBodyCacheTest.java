@@ -0,0 +1,89 @@
+package com.alexsys.smartmarket.product.cache;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.datasource.ReadYourWrites;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBodyCacheTest {
+
+    private final TableVersions tableVersions = new TableVersions();
+    private final ResponseBodyCache cache = new ResponseBodyCache(tableVersions,
+            new ConcurrentMapCacheManager(CacheConfig.RESPONSE_BODIES), JsonMapper.builder().build());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<String> load() {
+        loads.incrementAndGet();
+        return List.of("a", "b");
+    }
+
+    @Test
+    void get_shouldLoadOncePerTableVersion() {
+        var first = cache.get(Category.class, "0:50", this::load);
+        var second = cache.get(Category.class, "0:50", this::load);
+        cache.get(SubCategory.class, "0:50", this::load);
+        cache.get(Category.class, "2:50", this::load);
+
+        assertSame(first, second);
+        assertEquals(3, loads.get());
+        assertEquals("[\"a\",\"b\"]", new String(first.json(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void get_shouldLoadFromThePrimary() {
+        cache.get(Category.class, "0:50", () -> {
+            assertTrue(ReadYourWrites.isPinnedToPrimary());
+            return load();
+        });
+
+        assertFalse(ReadYourWrites.isPinnedToPrimary());
+    }
+
+    @Test
+    void entityChanges_shouldBumpTheirTableOnly() {
+        cache.get(Category.class, "0:50", this::load);
+        cache.get(SubCategory.class, "0:50", this::load);
+
+        tableVersions.onEntityChanged(EntityChangedEvent.deleted(Category.class, 1));
+        cache.get(Category.class, "0:50", this::load);
+        cache.get(SubCategory.class, "0:50", this::load);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void gzip_shouldInflateToTheJson() throws Exception {
+        var body = cache.get(Category.class, "0:50", this::load);
+
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body.gzip()))) {
+            assertArrayEquals(body.json(), in.readAllBytes());
+        }
+        assertEquals(32, body.etag().length());
+    }
+
+    @Test
+    void loaderExceptions_shouldPropagateUnwrapped() {
+        var failure = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+
+        var thrown = assertThrows(ResponseStatusException.class,
+                () -> cache.get(Category.class, "0:50", () -> { throw failure; }));
+        assertSame(failure, thrown);
+        // Nothing was cached for the failed load
+        cache.get(Category.class, "0:50", this::load);
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,113 @@
+package com.alexsys.smartmarket.product.config;
+
+import com.alexsys.smartmarket.product.exception.RepositoryBusyException;
+import com.alexsys.smartmarket.product.mapper.CategoryMapperImpl;
+import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.service.CategoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {"smartmarket.repository.max-concurrency=1", "smartmarket.repository.acquire-timeout=PT0.2S"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({RepositoryConcurrencyLimiter.class, ConcurrencyConfig.class, CategoryService.class, CategoryMapperImpl.class,
+        PartialUpdates.class, RepositoryConcurrencyLimiterTest.Registry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoryConcurrencyLimiterTest {
+
+    @TestConfiguration
+    @EnableAspectJAutoProxy
+    static class Registry {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private RepositoryConcurrencyLimiter limiter;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void calls_shouldWaitForAPermitAtTheOutermostBoundary() throws Throwable {
+        double rejectedBefore = meterRegistry.counter(RepositoryConcurrencyLimiter.REJECTED).count();
+        assertEquals(0, categoryRepository.count());
+
+        // Hold the only permit with a call that blocks until released
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint blocked = mock(ProceedingJoinPoint.class);
+        when(blocked.proceed()).thenAnswer(invocation -> {
+            holding.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        var holder = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.limit(blocked);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        assertThrows(RepositoryBusyException.class, () -> categoryRepository.count());
+        // Read-only service calls run in a transaction and still need a permit
+        assertThrows(RepositoryBusyException.class, () -> categoryService.getCategoryById(1));
+        assertThrows(RepositoryBusyException.class, () -> transactionTemplate.execute(status -> categoryRepository.count()));
+        assertEquals(rejectedBefore + 3, meterRegistry.counter(RepositoryConcurrencyLimiter.REJECTED).count());
+        assertEquals(0, meterRegistry.get(RepositoryConcurrencyLimiter.PERMITS_AVAILABLE).gauge().value());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals(0, categoryRepository.count());
+        assertTrue(categoryService.getCategoryById(1).isEmpty());
+        assertEquals(1, meterRegistry.get(RepositoryConcurrencyLimiter.PERMITS_AVAILABLE).gauge().value());
+    }
+
+    @Test
+    void nestedCalls_shouldReuseThePermitTheThreadHolds() {
+        double rejectedBefore = meterRegistry.counter(RepositoryConcurrencyLimiter.REJECTED).count();
+
+        // With a single permit, anything but re-entry would time out here
+        Long count = transactionTemplate.execute(status -> {
+            categoryService.getCategoryById(1);
+            return categoryRepository.count();
+        });
+
+        assertEquals(0L, count);
+        assertEquals(rejectedBefore, meterRegistry.counter(RepositoryConcurrencyLimiter.REJECTED).count());
+        assertEquals(1, meterRegistry.get(RepositoryConcurrencyLimiter.PERMITS_AVAILABLE).gauge().value());
+    }
+}
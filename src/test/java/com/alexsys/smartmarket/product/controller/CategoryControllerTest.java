@@ -1,23 +1,41 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.product.cache.ResponseBodyCache;
+import com.alexsys.smartmarket.product.cache.TableVersions;
+import com.alexsys.smartmarket.product.config.CacheConfig;
 import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.service.CategoryService;
+import com.alexsys.smartmarket.product.service.TaxonomyService;
+import com.alexsys.smartmarket.product.taxonomy.TaxonomySnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,10 +50,21 @@ class CategoryControllerTest {
     @Mock
     private CategoryService categoryService;
 
+    @Mock
+    private TaxonomyService taxonomyService;
+
+    private final TableVersions tableVersions = new TableVersions();
+
+    @Spy
+    private ResponseBodyCache responseBodyCache = new ResponseBodyCache(tableVersions,
+            new ConcurrentMapCacheManager(CacheConfig.RESPONSE_BODIES), JsonMapper.builder().findAndAddModules().build());
+
     @InjectMocks
     private CategoryController categoryController;
 
     private MockMvc mockMvc;
+
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private Category createTestCategory() {
@@ -52,19 +81,20 @@ class CategoryControllerTest {
     }
 
     @Test
-    void getAllCategories_shouldReturnListOfCategories() {
+    void getAllCategories_shouldReturnListOfCategories() throws Exception {
         Category category1 = createTestCategory();
         Category category2 = createTestCategory();
         category2.setId(2);
         category2.setName("Books");
 
         List<Category> categories = Arrays.asList(category1, category2);
-        when(categoryService.getAllCategories()).thenReturn(categories);
+        when(categoryService.getCategoriesPage(0, 50)).thenReturn(new CursorPage<>(categories, null));
 
-        List<Category> result = categoryController.getAllCategories();
+        JsonNode result = objectMapper.readTree(categoryController.getAllCategories(null, 50, request).getBody());
 
-        assertEquals(2, result.size());
-        verify(categoryService, times(1)).getAllCategories();
+        assertEquals(2, result.get("items").size());
+        assertTrue(result.get("nextCursor").isNull());
+        verify(categoryService, times(1)).getCategoriesPage(0, 50);
     }
 
     @Test
@@ -72,7 +102,7 @@ class CategoryControllerTest {
         Category category = createTestCategory();
         when(categoryService.getCategoryById(1)).thenReturn(Optional.of(category));
 
-        ResponseEntity<Category> response = categoryController.getCategoryById(1);
+        ResponseEntity<Category> response = categoryController.getCategoryById(1, request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.hasBody());
@@ -84,7 +114,7 @@ class CategoryControllerTest {
     void getCategoryById_shouldReturnNotFoundWhenNotExists() {
         when(categoryService.getCategoryById(999)).thenReturn(Optional.empty());
 
-        ResponseEntity<Category> response = categoryController.getCategoryById(999);
+        ResponseEntity<Category> response = categoryController.getCategoryById(999, request);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertFalse(response.hasBody());
@@ -149,13 +179,42 @@ class CategoryControllerTest {
     @Test
     void getAllCategories_endpoint_shouldReturnOk() throws Exception {
         Category category = createTestCategory();
-        when(categoryService.getAllCategories()).thenReturn(List.of(category));
+        when(categoryService.getCategoriesPage(0, 50)).thenReturn(new CursorPage<>(List.of(category), null));
 
         mockMvc.perform(get("/smartmarket/categories")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].name").value("Electronics"));
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Electronics"));
+    }
+
+    @Test
+    void getCategoryTree_endpoint_shouldReturnTreeWithEtag() throws Exception {
+        SubCategory phones = new SubCategory();
+        phones.setId(10);
+        phones.setName("Phones");
+        phones.setCategoryId(1);
+        TaxonomySnapshot snapshot = TaxonomySnapshot.of(List.of(createTestCategory()), List.of(phones), objectMapper.writer());
+        when(taxonomyService.getSnapshot()).thenReturn(snapshot);
+
+        mockMvc.perform(get("/smartmarket/categories/tree"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + snapshot.etag() + "\""))
+                .andExpect(jsonPath("$[0].name").value("Electronics"))
+                .andExpect(jsonPath("$[0].subCategories[0].name").value("Phones"));
+
+        verifyNoInteractions(categoryService);
+    }
+
+    @Test
+    void getCategoryTree_endpoint_shouldReturnNotModifiedForCurrentEtag() throws Exception {
+        TaxonomySnapshot snapshot = TaxonomySnapshot.of(List.of(createTestCategory()), List.of(), objectMapper.writer());
+        when(taxonomyService.getSnapshot()).thenReturn(snapshot);
+
+        mockMvc.perform(get("/smartmarket/categories/tree")
+                .header("If-None-Match", "\"" + snapshot.etag() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
     }
 
     @Test
@@ -179,6 +238,85 @@ class CategoryControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getCategoryById_endpoint_shouldAnswerConditionalRequestsFromTheVersion() throws Exception {
+        Category category = createTestCategory();
+        category.setVersion(3L);
+        category.setUpdatedAt(Instant.parse("2024-05-01T10:15:30Z"));
+        when(categoryService.getCategoryById(1)).thenReturn(Optional.of(category));
+
+        mockMvc.perform(get("/smartmarket/categories/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().string("Last-Modified", "Wed, 01 May 2024 10:15:30 GMT"))
+                .andExpect(jsonPath("$.version").value(3));
+        mockMvc.perform(get("/smartmarket/categories/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/smartmarket/categories/1").header("If-Modified-Since", "Wed, 01 May 2024 10:15:30 GMT"))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/smartmarket/categories/1").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Electronics"));
+    }
+
+    @Test
+    void getAllCategories_endpoint_shouldAnswer304UntilARowChanges() throws Exception {
+        Category category = createTestCategory();
+        category.setVersion(0L);
+        when(categoryService.getCategoriesPage(0, 50)).thenReturn(new CursorPage<>(List.of(category), null));
+
+        String etag = mockMvc.perform(get("/smartmarket/categories"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        mockMvc.perform(get("/smartmarket/categories").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(categoryService, times(1)).getCategoriesPage(0, 50);
+
+        category.setVersion(1L);
+        tableVersions.bump(Category.class);
+        mockMvc.perform(get("/smartmarket/categories").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].version").value(1));
+        verify(categoryService, times(2)).getCategoriesPage(0, 50);
+    }
+
+    @Test
+    void getAllCategories_endpoint_shouldServeThePrecompressedBodyToGzipClients() throws Exception {
+        List<Category> categories = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            Category category = createTestCategory();
+            category.setId(id);
+            categories.add(category);
+        }
+        when(categoryService.getCategoriesPage(0, 50)).thenReturn(new CursorPage<>(categories, null));
+
+        var plain = mockMvc.perform(get("/smartmarket/categories"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse();
+        var gzipped = mockMvc.perform(get("/smartmarket/categories").header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse();
+
+        byte[] inflated = new GZIPInputStream(
+                new ByteArrayInputStream(gzipped.getContentAsByteArray())).readAllBytes();
+        assertArrayEquals(plain.getContentAsByteArray(), inflated);
+        assertTrue(gzipped.getContentAsByteArray().length < inflated.length);
+        assertNotEquals(plain.getHeader("ETag"), gzipped.getHeader("ETag"));
+        mockMvc.perform(get("/smartmarket/categories").header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        mockMvc.perform(get("/smartmarket/categories").header("Accept-Encoding", "gzip;q=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        verify(categoryService, times(1)).getCategoriesPage(0, 50);
+    }
+
     @Test
     void createCategory_endpoint_shouldReturnCreated() throws Exception {
         Category categoryToCreate = createTestCategory();
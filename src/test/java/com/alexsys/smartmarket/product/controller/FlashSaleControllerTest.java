@@ -0,0 +1,77 @@
+package com.alexsys.smartmarket.product.controller;
+
+import com.alexsys.smartmarket.product.service.FlashSaleStockService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlashSaleControllerTest {
+
+    @Mock
+    private FlashSaleStockService flashSaleStockService;
+
+    @InjectMocks
+    private FlashSaleController flashSaleController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(flashSaleController).build();
+    }
+
+    @Test
+    void getHotSkus_endpoint_shouldListHotSkus() throws Exception {
+        when(flashSaleStockService.getHotSkus()).thenReturn(List.of(new FlashSaleStockService.HotSku(1, 8, 400)));
+
+        mockMvc.perform(get("/smartmarket/admin/flash-sale/product-skus"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].skuId").value(1))
+                .andExpect(jsonPath("$[0].buckets").value(8));
+    }
+
+    @Test
+    void enable_endpoint_shouldSplitSku() throws Exception {
+        when(flashSaleStockService.enable(1, 8)).thenReturn(Optional.of(new FlashSaleStockService.HotSku(1, 8, 400)));
+
+        mockMvc.perform(put("/smartmarket/admin/flash-sale/product-skus/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"buckets\":8}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(400));
+    }
+
+    @Test
+    void enable_endpoint_shouldReturnNotFoundForUnknownSku() throws Exception {
+        when(flashSaleStockService.enable(999, 8)).thenReturn(Optional.empty());
+
+        mockMvc.perform(put("/smartmarket/admin/flash-sale/product-skus/999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"buckets\":8}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void disable_endpoint_shouldReturnRestoredLevel() throws Exception {
+        when(flashSaleStockService.disable(1)).thenReturn(Optional.of(new ProductsSkuService.StockLevel(1, 390)));
+
+        mockMvc.perform(delete("/smartmarket/admin/flash-sale/product-skus/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(390));
+    }
+}
@@ -2,6 +2,7 @@ package com.alexsys.smartmarket.product.controller;
 
 import com.alexsys.smartmarket.enums.ProductAttributeType;
 import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.service.ProductAttributeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,8 +14,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Arrays;
 import java.util.List;
@@ -37,6 +41,8 @@ class ProductAttributeControllerTest {
     private ProductAttributeController productAttributeController;
 
     private MockMvc mockMvc;
+
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private ProductAttribute createTestAttribute() {
@@ -61,12 +67,13 @@ class ProductAttributeControllerTest {
         attr2.setValue("Blue");
 
         List<ProductAttribute> attributes = Arrays.asList(attr1, attr2);
-        when(productAttributeService.getAllProductAttributes()).thenReturn(attributes);
+        when(productAttributeService.getProductAttributesPage(0, 50)).thenReturn(new CursorPage<>(attributes, null));
 
-        List<ProductAttribute> result = productAttributeController.getAllProductAttributes();
+        CursorPage<ProductAttribute> result = productAttributeController.getAllProductAttributes(null, 50, request).getBody();
 
-        assertEquals(2, result.size());
-        verify(productAttributeService, times(1)).getAllProductAttributes();
+        assertEquals(2, result.items().size());
+        assertNull(result.nextCursor());
+        verify(productAttributeService, times(1)).getProductAttributesPage(0, 50);
     }
 
     @Test
@@ -74,7 +81,7 @@ class ProductAttributeControllerTest {
         ProductAttribute attribute = createTestAttribute();
         when(productAttributeService.getProductAttributeById(1)).thenReturn(Optional.of(attribute));
 
-        ResponseEntity<ProductAttribute> response = productAttributeController.getProductAttributeById(1);
+        ResponseEntity<ProductAttribute> response = productAttributeController.getProductAttributeById(1, request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.hasBody());
@@ -86,7 +93,7 @@ class ProductAttributeControllerTest {
     void getProductAttributeById_shouldReturnNotFoundWhenNotExists() {
         when(productAttributeService.getProductAttributeById(999)).thenReturn(Optional.empty());
 
-        ResponseEntity<ProductAttribute> response = productAttributeController.getProductAttributeById(999);
+        ResponseEntity<ProductAttribute> response = productAttributeController.getProductAttributeById(999, request);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertFalse(response.hasBody());
@@ -151,13 +158,13 @@ class ProductAttributeControllerTest {
     @Test
     void getAllProductAttributes_endpoint_shouldReturnOk() throws Exception {
         ProductAttribute attribute = createTestAttribute();
-        when(productAttributeService.getAllProductAttributes()).thenReturn(List.of(attribute));
+        when(productAttributeService.getProductAttributesPage(0, 50)).thenReturn(new CursorPage<>(List.of(attribute), null));
 
         mockMvc.perform(get("/smartmarket/product-attributes")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].value").value("Red"));
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].value").value("Red"));
     }
 
     @Test
@@ -1,6 +1,15 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.enums.ProductAttributeType;
 import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.search.ProductFacetIndex;
+import com.alexsys.smartmarket.product.search.ProductSearchIndex;
+import com.alexsys.smartmarket.product.search.ProductSuggester;
+import com.alexsys.smartmarket.product.service.ProductDetailService;
+import com.alexsys.smartmarket.product.service.ProductFacetService;
+import com.alexsys.smartmarket.product.service.ProductSearchService;
 import com.alexsys.smartmarket.product.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,12 +21,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,10 +45,21 @@ class ProductControllerTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private ProductDetailService productDetailService;
+
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Mock
+    private ProductFacetService productFacetService;
+
     @InjectMocks
     private ProductController productController;
 
     private MockMvc mockMvc;
+
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private Product createTestProduct() {
@@ -61,12 +86,26 @@ class ProductControllerTest {
         product2.setName("Samsung Galaxy S24");
 
         List<Product> products = Arrays.asList(product1, product2);
-        when(productService.getAllProducts()).thenReturn(products);
+        when(productService.getProductsPage(0, 50)).thenReturn(new CursorPage<>(products, null));
 
-        List<Product> result = productController.getAllProducts();
+        CursorPage<Product> result = productController.getAllProducts(null, 50, request).getBody();
 
-        assertEquals(2, result.size());
-        verify(productService, times(1)).getAllProducts();
+        assertEquals(2, result.items().size());
+        assertNull(result.nextCursor());
+        verify(productService, times(1)).getProductsPage(0, 50);
+    }
+
+    @Test
+    void getAllProducts_shouldChangeTheTagWhenAnotherPageAppears() {
+        List<Product> products = List.of(createTestProduct());
+        when(productService.getProductsPage(0, 1))
+                .thenReturn(new CursorPage<>(products, null))
+                .thenReturn(new CursorPage<>(products, CursorPage.encodeCursor(1)));
+
+        String lastPage = productController.getAllProducts(null, 1, request).getHeaders().getETag();
+        String fullPage = productController.getAllProducts(null, 1, request).getHeaders().getETag();
+
+        assertNotEquals(lastPage, fullPage);
     }
 
     @Test
@@ -74,7 +113,7 @@ class ProductControllerTest {
         Product product = createTestProduct();
         when(productService.getProductById(1)).thenReturn(Optional.of(product));
 
-        ResponseEntity<Product> response = productController.getProductById(1);
+        ResponseEntity<Product> response = productController.getProductById(1, request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.hasBody());
@@ -86,7 +125,7 @@ class ProductControllerTest {
     void getProductById_shouldReturnNotFoundWhenNotExists() {
         when(productService.getProductById(999)).thenReturn(Optional.empty());
 
-        ResponseEntity<Product> response = productController.getProductById(999);
+        ResponseEntity<Product> response = productController.getProductById(999, request);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertFalse(response.hasBody());
@@ -151,13 +190,37 @@ class ProductControllerTest {
     @Test
     void getAllProducts_endpoint_shouldReturnOk() throws Exception {
         Product product = createTestProduct();
-        when(productService.getAllProducts()).thenReturn(List.of(product));
+        when(productService.getProductsPage(0, 50)).thenReturn(new CursorPage<>(List.of(product), null));
 
         mockMvc.perform(get("/smartmarket/products")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].name").value("iPhone 15"));
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("iPhone 15"));
+    }
+
+    @Test
+    void getProductDetail_endpoint_shouldReturnProductWithChildren() throws Exception {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(5);
+        sku.setProductId(1);
+        sku.setSku("SKU-005");
+        when(productDetailService.getProductDetail(1))
+                .thenReturn(Optional.of(new ProductDetailService.ProductDetail(createTestProduct(), List.of(), List.of(sku))));
+
+        mockMvc.perform(get("/smartmarket/products/1/detail"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.product.name").value("iPhone 15"))
+                .andExpect(jsonPath("$.attributes").isEmpty())
+                .andExpect(jsonPath("$.skus[0].sku").value("SKU-005"));
+    }
+
+    @Test
+    void getProductDetail_endpoint_shouldReturnNotFound() throws Exception {
+        when(productDetailService.getProductDetail(999)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/smartmarket/products/999/detail"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -222,4 +285,52 @@ class ProductControllerTest {
 
         verify(productService, times(1)).deleteProduct(1);
     }
+
+    @Test
+    void searchProducts_endpoint_shouldReturnRankedHits() throws Exception {
+        when(productSearchService.search("phone", 20)).thenReturn(List.of(
+                new ProductSearchIndex.Hit(1, "Phone", "A phone", "cover1.jpg", 1, 2.5)));
+
+        mockMvc.perform(get("/smartmarket/products/search").param("q", "phone"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].score").value(2.5));
+    }
+
+    @Test
+    void searchProducts_endpoint_shouldUseFuzzyMatchingWhenAsked() throws Exception {
+        when(productSearchService.fuzzySearch("tshrit", 20)).thenReturn(List.of(
+                new ProductSearchIndex.Hit(3, "T-Shirt", null, null, 1, 0.5)));
+
+        mockMvc.perform(get("/smartmarket/products/search").param("q", "tshrit").param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3));
+        verify(productSearchService, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void suggestProducts_endpoint_shouldReturnSuggestions() throws Exception {
+        when(productSearchService.suggest("pho", 10)).thenReturn(List.of(
+                new ProductSuggester.Suggestion(2, "Phone charger", 50)));
+
+        mockMvc.perform(get("/smartmarket/products/suggest").param("prefix", "pho"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].name").value("Phone charger"));
+    }
+
+    @Test
+    void filterProducts_endpoint_shouldReturnPageWithFacets() throws Exception {
+        var query = new ProductFacetIndex.Query(Set.of(1), Map.of(
+                ProductAttributeType.COLOR, Set.of("red", "blue"), ProductAttributeType.SIZE, Set.of()), 10.0, null);
+        when(productFacetService.filter(query, 0, 50)).thenReturn(new ProductFacetService.FacetedPage(
+                List.of(createTestProduct()), null, 1, Map.of("COLOR", Map.of("red", 1, "green", 4))));
+
+        mockMvc.perform(get("/smartmarket/products/filter")
+                        .param("categoryId", "1").param("color", "red", "blue").param("minPrice", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.facets.COLOR.green").value(4));
+    }
 }
@@ -1,7 +1,15 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.product.exception.InsufficientStockException;
+import com.alexsys.smartmarket.product.export.NdjsonExporter;
 import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.service.ProductsSkuBulkService;
 import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import com.alexsys.smartmarket.product.service.SkuAvailabilityService;
+import com.alexsys.smartmarket.product.service.SkuLookupService;
+import com.alexsys.smartmarket.product.store.SkuColumnStore;
+import com.alexsys.smartmarket.product.stream.SkuChangeBroadcaster;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,15 +20,24 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -32,10 +49,27 @@ class ProductsSkuControllerTest {
     @Mock
     private ProductsSkuService productsSkuService;
 
+    @Mock
+    private ProductsSkuBulkService productsSkuBulkService;
+
+    @Mock
+    private SkuAvailabilityService skuAvailabilityService;
+
+    @Mock
+    private SkuLookupService skuLookupService;
+
+    @Mock
+    private NdjsonExporter ndjsonExporter;
+
+    @Mock
+    private SkuChangeBroadcaster skuChangeBroadcaster;
+
     @InjectMocks
     private ProductsSkuController productsSkuController;
 
     private MockMvc mockMvc;
+
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private ProductsSku createTestSku() {
@@ -63,12 +97,13 @@ class ProductsSkuControllerTest {
         sku2.setSku("SKU-002");
 
         List<ProductsSku> skus = Arrays.asList(sku1, sku2);
-        when(productsSkuService.getAllProductsSkus()).thenReturn(skus);
+        when(productsSkuService.getProductsSkusPage(0, 50)).thenReturn(new CursorPage<>(skus, null));
 
-        List<ProductsSku> result = productsSkuController.getAllProductSkus();
+        CursorPage<ProductsSku> result = productsSkuController.getAllProductSkus(null, 50, request).getBody();
 
-        assertEquals(2, result.size());
-        verify(productsSkuService, times(1)).getAllProductsSkus();
+        assertEquals(2, result.items().size());
+        assertNull(result.nextCursor());
+        verify(productsSkuService, times(1)).getProductsSkusPage(0, 50);
     }
 
     @Test
@@ -76,7 +111,7 @@ class ProductsSkuControllerTest {
         ProductsSku sku = createTestSku();
         when(productsSkuService.getProductsSkuById(1)).thenReturn(Optional.of(sku));
 
-        ResponseEntity<ProductsSku> response = productsSkuController.getProductSkuById(1);
+        ResponseEntity<ProductsSku> response = productsSkuController.getProductSkuById(1, request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.hasBody());
@@ -88,7 +123,7 @@ class ProductsSkuControllerTest {
     void getProductSkuById_shouldReturnNotFoundWhenNotExists() {
         when(productsSkuService.getProductsSkuById(999)).thenReturn(Optional.empty());
 
-        ResponseEntity<ProductsSku> response = productsSkuController.getProductSkuById(999);
+        ResponseEntity<ProductsSku> response = productsSkuController.getProductSkuById(999, request);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertFalse(response.hasBody());
@@ -153,13 +188,64 @@ class ProductsSkuControllerTest {
     @Test
     void getAllProductSkus_endpoint_shouldReturnOk() throws Exception {
         ProductsSku sku = createTestSku();
-        when(productsSkuService.getAllProductsSkus()).thenReturn(List.of(sku));
+        when(productsSkuService.getProductsSkusPage(0, 50)).thenReturn(new CursorPage<>(List.of(sku), null));
 
         mockMvc.perform(get("/smartmarket/product-skus")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].sku").value("SKU-001"));
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].sku").value("SKU-001"));
+    }
+
+    @Test
+    void getAllProductSkus_endpoint_shouldSeekFromCursor() throws Exception {
+        ProductsSku sku = createTestSku();
+        sku.setId(42);
+        when(productsSkuService.getProductsSkusPage(41, 1)).thenReturn(new CursorPage<>(List.of(sku), CursorPage.encodeCursor(42)));
+
+        mockMvc.perform(get("/smartmarket/product-skus")
+                .param("after", CursorPage.encodeCursor(41))
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(42))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encodeCursor(42)));
+    }
+
+    @Test
+    void getAllProductSkus_endpoint_shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/smartmarket/product-skus")
+                .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(productsSkuService);
+    }
+
+    @Test
+    void exportProductSkus_endpoint_shouldStreamNdjson() throws Exception {
+        when(ndjsonExporter.export(any(), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/smartmarket/product-skus/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonExporter.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void streamProductSkus_endpoint_shouldSubscribeToTheIds() throws Exception {
+        when(skuChangeBroadcaster.subscribe(List.of(1, 2))).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/smartmarket/product-skus/stream").param("ids", "1,2"))
+                .andExpect(request().asyncStarted());
+
+        verify(skuChangeBroadcaster).subscribe(List.of(1, 2));
     }
 
     @Test
@@ -174,6 +260,24 @@ class ProductsSkuControllerTest {
                 .andExpect(jsonPath("$.sku").value("SKU-001"));
     }
 
+    @Test
+    void getProductSkuById_endpoint_shouldTagTheQuantityWithTheVersion() throws Exception {
+        ProductsSku sku = createTestSku();
+        sku.setVersion(4L);
+        sku.setQuantity(10);
+        sku.setUpdatedAt(Instant.parse("2024-05-01T10:15:30Z"));
+        when(productsSkuService.getProductsSkuById(1)).thenReturn(Optional.of(sku));
+
+        mockMvc.perform(get("/smartmarket/product-skus/1").header("If-None-Match", "\"4-10\""))
+                .andExpect(status().isNotModified());
+        // Flash-sale stock moves in buckets without touching the row's version
+        sku.setQuantity(9);
+        mockMvc.perform(get("/smartmarket/product-skus/1").header("If-None-Match", "\"4-10\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4-9\""))
+                .andExpect(header().doesNotExist("Last-Modified"));
+    }
+
     @Test
     void getProductSkuById_endpoint_shouldReturnNotFound() throws Exception {
         when(productsSkuService.getProductsSkuById(999)).thenReturn(Optional.empty());
@@ -199,6 +303,52 @@ class ProductsSkuControllerTest {
                 .andExpect(jsonPath("$.sku").value("SKU-001"));
     }
 
+    @Test
+    void bulkUpsertProductSkus_endpoint_shouldReturnPerRowResults() throws Exception {
+        ProductsSku sku = createTestSku();
+        sku.setId(null);
+        when(productsSkuBulkService.upsertProductsSkus(anyList())).thenReturn(List.of(
+                new ProductsSkuBulkService.RowResult(0, "SKU-001", 1, ProductsSkuBulkService.Status.CREATED, null)));
+
+        mockMvc.perform(post("/smartmarket/product-skus/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(sku))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].status").value("CREATED"));
+    }
+
+    @Test
+    void decrementStock_endpoint_shouldReturnNewLevel() throws Exception {
+        when(productsSkuService.decrementStock(1, 2)).thenReturn(Optional.of(new ProductsSkuService.StockLevel(1, 8)));
+
+        mockMvc.perform(post("/smartmarket/product-skus/1/stock/decrement")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(8));
+    }
+
+    @Test
+    void decrementStock_endpoint_shouldReturnConflictWhenStockIsShort() throws Exception {
+        when(productsSkuService.decrementStock(1, 20)).thenThrow(new InsufficientStockException(1, 20, 10));
+
+        mockMvc.perform(post("/smartmarket/product-skus/1/stock/decrement")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":20}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void incrementStock_endpoint_shouldReturnNotFoundWhenSkuMissing() throws Exception {
+        when(productsSkuService.incrementStock(999, 1)).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/smartmarket/product-skus/999/stock/increment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":1}"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void updateProductsSku_endpoint_shouldReturnOk() throws Exception {
         ProductsSku skuDetails = createTestSku();
@@ -216,6 +366,26 @@ class ProductsSkuControllerTest {
                 .andExpect(jsonPath("$.sku").value("SKU-Updated"));
     }
 
+    @Test
+    void patchProductsSku_endpoint_shouldPassOnlyTheSentFields() throws Exception {
+        when(productsSkuService.patchProductsSku(eq(1), any(ProductsSku.class))).thenReturn(true);
+        when(productsSkuService.patchProductsSku(eq(999), any(ProductsSku.class))).thenReturn(false);
+
+        mockMvc.perform(patch("/smartmarket/product-skus/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\": 79.99}"))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
+        mockMvc.perform(patch("/smartmarket/product-skus/999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\": 79.99}"))
+                .andExpect(status().isNotFound());
+
+        verify(productsSkuService).patchProductsSku(eq(1), argThat(changes -> changes.getPrice() == 79.99
+                && changes.getQuantity() == null && changes.getSku() == null));
+        verify(productsSkuService, never()).updateProductsSku(any(), any());
+    }
+
     @Test
     void deleteProductsSku_endpoint_shouldReturnNoContent() throws Exception {
         mockMvc.perform(delete("/smartmarket/product-skus/1")
@@ -224,4 +394,39 @@ class ProductsSkuControllerTest {
 
         verify(productsSkuService, times(1)).deleteProductsSku(1);
     }
+
+    @Test
+    void getInStockProductSkus_endpoint_shouldPassProductAndPrice() throws Exception {
+        when(skuAvailabilityService.getInStock(1, 50.0)).thenReturn(List.of(
+                new SkuColumnStore.Row(3, 1, 1, 2, 49.5, 4)));
+
+        mockMvc.perform(get("/smartmarket/product-skus/in-stock").param("productId", "1").param("maxPrice", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].quantity").value(4));
+    }
+
+    @Test
+    void getProductSkuByCode_endpoint_shouldReturnSkuOrNotFound() throws Exception {
+        when(skuLookupService.getBySku("SKU-001")).thenReturn(Optional.of(createTestSku()));
+        when(skuLookupService.getBySku("nope")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/smartmarket/product-skus/by-code/SKU-001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+        mockMvc.perform(get("/smartmarket/product-skus/by-code/nope"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getProductSkusByCode_endpoint_shouldReturnFoundSkus() throws Exception {
+        when(skuLookupService.getBySkus(List.of("SKU-001", "nope"))).thenReturn(List.of(createTestSku()));
+
+        mockMvc.perform(post("/smartmarket/product-skus/by-code")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of("SKU-001", "nope"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].sku").value("SKU-001"));
+    }
 }
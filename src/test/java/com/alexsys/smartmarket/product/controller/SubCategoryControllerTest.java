@@ -1,19 +1,30 @@
 package com.alexsys.smartmarket.product.controller;
 
+import com.alexsys.smartmarket.product.cache.ResponseBodyCache;
+import com.alexsys.smartmarket.product.cache.TableVersions;
+import com.alexsys.smartmarket.product.config.CacheConfig;
 import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.service.SubCategoryService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Arrays;
 import java.util.List;
@@ -32,10 +43,18 @@ class SubCategoryControllerTest {
     @Mock
     private SubCategoryService subCategoryService;
 
+    private final TableVersions tableVersions = new TableVersions();
+
+    @Spy
+    private ResponseBodyCache responseBodyCache = new ResponseBodyCache(tableVersions,
+            new ConcurrentMapCacheManager(CacheConfig.RESPONSE_BODIES), JsonMapper.builder().findAndAddModules().build());
+
     @InjectMocks
     private SubCategoryController subCategoryController;
 
     private MockMvc mockMvc;
+
+    private final WebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private SubCategory createTestSubCategory() {
@@ -53,19 +72,20 @@ class SubCategoryControllerTest {
     }
 
     @Test
-    void getAllSubCategories_shouldReturnListOfSubCategories() {
+    void getAllSubCategories_shouldReturnListOfSubCategories() throws Exception {
         SubCategory sub1 = createTestSubCategory();
         SubCategory sub2 = createTestSubCategory();
         sub2.setId(2);
         sub2.setName("Tablets");
 
         List<SubCategory> subCategories = Arrays.asList(sub1, sub2);
-        when(subCategoryService.getAllSubCategories()).thenReturn(subCategories);
+        when(subCategoryService.getSubCategoriesPage(0, 50)).thenReturn(new CursorPage<>(subCategories, null));
 
-        List<SubCategory> result = subCategoryController.getAllSubCategories();
+        JsonNode result = objectMapper.readTree(subCategoryController.getAllSubCategories(null, 50, request).getBody());
 
-        assertEquals(2, result.size());
-        verify(subCategoryService, times(1)).getAllSubCategories();
+        assertEquals(2, result.get("items").size());
+        assertTrue(result.get("nextCursor").isNull());
+        verify(subCategoryService, times(1)).getSubCategoriesPage(0, 50);
     }
 
     @Test
@@ -73,7 +93,7 @@ class SubCategoryControllerTest {
         SubCategory subCategory = createTestSubCategory();
         when(subCategoryService.getSubCategoryById(1)).thenReturn(Optional.of(subCategory));
 
-        ResponseEntity<SubCategory> response = subCategoryController.getSubCategoryById(1);
+        ResponseEntity<SubCategory> response = subCategoryController.getSubCategoryById(1, request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.hasBody());
@@ -85,7 +105,7 @@ class SubCategoryControllerTest {
     void getSubCategoryById_shouldReturnNotFoundWhenNotExists() {
         when(subCategoryService.getSubCategoryById(999)).thenReturn(Optional.empty());
 
-        ResponseEntity<SubCategory> response = subCategoryController.getSubCategoryById(999);
+        ResponseEntity<SubCategory> response = subCategoryController.getSubCategoryById(999, request);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertFalse(response.hasBody());
@@ -150,13 +170,13 @@ class SubCategoryControllerTest {
     @Test
     void getAllSubCategories_endpoint_shouldReturnOk() throws Exception {
         SubCategory sub = createTestSubCategory();
-        when(subCategoryService.getAllSubCategories()).thenReturn(List.of(sub));
+        when(subCategoryService.getSubCategoriesPage(0, 50)).thenReturn(new CursorPage<>(List.of(sub), null));
 
         mockMvc.perform(get("/smartmarket/subcategories")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].name").value("Smartphones"));
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Smartphones"));
     }
 
     @Test
@@ -0,0 +1,52 @@
+package com.alexsys.smartmarket.product.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesFilterTest {
+
+    private static final long NOW = 1_000_000;
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5), () -> NOW);
+
+    private boolean pinnedDuring(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        boolean[] pinned = new boolean[1];
+        filter.doFilter(request, response, (req, res) -> pinned[0] = ReadYourWrites.isPinnedToPrimary());
+        assertFalse(ReadYourWrites.isPinnedToPrimary());
+        return pinned[0];
+    }
+
+    @Test
+    void writes_shouldBePinnedAndStartTheWindow() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        assertTrue(pinnedDuring(new MockHttpServletRequest("PUT", "/smartmarket/categories/1"), response));
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE);
+        assertNotNull(cookie);
+        assertEquals(Long.toString(NOW + 5_000), cookie.getValue());
+        assertEquals(5, cookie.getMaxAge());
+    }
+
+    @Test
+    void reads_shouldBePinnedOnlyWithinTheWindow() throws Exception {
+        var inWindow = new MockHttpServletRequest("GET", "/smartmarket/categories/1");
+        inWindow.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(NOW + 1)));
+        var expired = new MockHttpServletRequest("GET", "/smartmarket/categories/1");
+        expired.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(NOW)));
+        var garbled = new MockHttpServletRequest("GET", "/smartmarket/categories/1");
+        garbled.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, "soon"));
+        var response = new MockHttpServletResponse();
+
+        assertTrue(pinnedDuring(inWindow, response));
+        assertFalse(pinnedDuring(expired, response));
+        assertFalse(pinnedDuring(garbled, response));
+        assertFalse(pinnedDuring(new MockHttpServletRequest("GET", "/smartmarket/categories/1"), response));
+        assertNull(response.getCookie(ReadYourWritesFilter.COOKIE));
+    }
+}
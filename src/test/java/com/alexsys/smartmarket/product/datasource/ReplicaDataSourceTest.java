@@ -0,0 +1,104 @@
+package com.alexsys.smartmarket.product.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaDataSourceTest {
+
+    private final AtomicLong nanos = new AtomicLong(-1_000);
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource first = mock(DataSource.class);
+    private final DataSource second = mock(DataSource.class);
+    private final Connection onPrimary = mock(Connection.class);
+    private final Connection onFirst = mock(Connection.class);
+    private final Connection onSecond = mock(Connection.class);
+    private final ReplicaDataSource replicas =
+            new ReplicaDataSource(primary, List.of(first, second), Duration.ofSeconds(30), nanos::get);
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void getConnection_shouldTakeReplicasInTurn() throws SQLException {
+        when(first.getConnection()).thenReturn(onFirst);
+        when(second.getConnection()).thenReturn(onSecond);
+
+        assertSame(onFirst, replicas.getConnection());
+        assertSame(onSecond, replicas.getConnection());
+        assertSame(onFirst, replicas.getConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_shouldSkipAFailedReplicaUntilTheRetryInterval() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLException("down", "08S01")).thenReturn(onFirst);
+        when(second.getConnection()).thenReturn(onSecond);
+
+        assertSame(onSecond, replicas.getConnection());
+        assertSame(onSecond, replicas.getConnection());
+        assertEquals(1, replicas.healthyReplicas());
+
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertEquals(2, replicas.healthyReplicas());
+        assertSame(onFirst, replicas.getConnection());
+        verify(first, times(2)).getConnection();
+    }
+
+    @Test
+    void getConnection_shouldFallBackToThePrimaryWhenNoReplicaAnswers() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLException("down", "08S01"));
+        when(second.getConnection()).thenThrow(new SQLException("down", "08S01"));
+        when(primary.getConnection()).thenReturn(onPrimary);
+
+        assertSame(onPrimary, replicas.getConnection());
+        assertSame(onPrimary, replicas.getConnection());
+        assertEquals(0, replicas.healthyReplicas());
+        verify(first).getConnection();
+        verify(second).getConnection();
+    }
+
+    @Test
+    void getConnection_shouldKeepABusyReplicaIn() throws SQLException {
+        when(first.getConnection())
+                .thenThrow(new SQLTransientConnectionException("replica-1 - Connection is not available, request timed out"))
+                .thenReturn(onFirst);
+        when(second.getConnection()).thenReturn(onSecond);
+
+        assertSame(onSecond, replicas.getConnection());
+        assertEquals(2, replicas.healthyReplicas());
+        assertSame(onSecond, replicas.getConnection());
+        assertSame(onFirst, replicas.getConnection());
+    }
+
+    @Test
+    void getConnection_shouldMarkAReplicaDownWhenTheTimeoutCarriesAConnectFailure() throws SQLException {
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException(
+                "replica-1 - Connection is not available, request timed out", "08S01", new SQLException("Communications link failure", "08S01")));
+        when(second.getConnection()).thenReturn(onSecond);
+
+        assertSame(onSecond, replicas.getConnection());
+        assertEquals(1, replicas.healthyReplicas());
+    }
+
+    @Test
+    void getConnection_shouldUseThePrimaryWhilePinned() throws SQLException {
+        when(primary.getConnection()).thenReturn(onPrimary);
+        ReadYourWrites.pinToPrimary();
+
+        assertSame(onPrimary, replicas.getConnection());
+        verifyNoInteractions(first, second);
+    }
+}
@@ -0,0 +1,98 @@
+package com.alexsys.smartmarket.product.datasource;
+
+import com.alexsys.smartmarket.product.config.ReplicaRoutingConfig;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two H2 databases stand in for the MySQL primary and a replica; the replica is a copy of the
+ * primary taken mid-test, so later primary writes show up as replication lag.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "smartmarket.datasource.replica-urls=" + ReplicaRoutingTest.REPLICA_URL})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ReplicaRoutingConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+        categoryRepository.deleteAll();
+    }
+
+    private void replicate() {
+        var primary = new JdbcTemplate(primaryDataSource);
+        var replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+
+    private String nameOf(Integer id) {
+        return categoryRepository.findById(id).orElseThrow().getName();
+    }
+
+    @Test
+    void readOnlyTransactions_shouldUseTheReplicaAndWritesThePrimary() {
+        Category category = new Category();
+        category.setName("Shoes");
+        Integer id = categoryRepository.save(category).getId();
+        replicate();
+        category.setName("Footwear");
+        categoryRepository.save(category);
+
+        // Spring Data reads are read-only transactions of their own
+        assertEquals("Shoes", nameOf(id));
+        var readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertEquals("Shoes", readOnly.execute(status -> nameOf(id)));
+        assertEquals("Footwear", new TransactionTemplate(transactionManager).execute(status -> nameOf(id)));
+    }
+
+    @Test
+    void pinnedThreads_shouldReadThePrimary() {
+        Category category = new Category();
+        category.setName("Hats");
+        Integer id = categoryRepository.save(category).getId();
+        replicate();
+        category.setName("Caps");
+        categoryRepository.save(category);
+
+        ReadYourWrites.pinToPrimary();
+        assertEquals("Caps", nameOf(id));
+        ReadYourWrites.clear();
+        assertEquals("Hats", nameOf(id));
+    }
+}
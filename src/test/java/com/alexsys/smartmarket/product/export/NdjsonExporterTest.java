@@ -0,0 +1,65 @@
+package com.alexsys.smartmarket.product.export;
+
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NdjsonExporterTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ProductsSku createTestSku(int id) {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(id);
+        sku.setProductId(1);
+        sku.setSku("SKU-00" + id);
+        sku.setPrice(9.99);
+        sku.setQuantity(3);
+        return sku;
+    }
+
+    @Test
+    void export_shouldWriteOneJsonObjectPerLineAndDetachRows() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(objectMapper, entityManager);
+        ProductsSku sku1 = createTestSku(1);
+        ProductsSku sku2 = createTestSku(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exporter.export(() -> Stream.of(sku1, sku2), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        assertEquals("SKU-001", objectMapper.readTree(lines[0]).get("sku").asText());
+        assertEquals(2, objectMapper.readTree(lines[1]).get("id").asInt());
+        verify(entityManager).detach(sku1);
+        verify(entityManager).detach(sku2);
+    }
+
+    @Test
+    void export_shouldWriteNothingForEmptyStream() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(objectMapper, entityManager);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exporter.export(Stream::empty, out);
+
+        assertEquals(0, written);
+        assertEquals(0, out.size());
+        verifyNoInteractions(entityManager);
+    }
+}
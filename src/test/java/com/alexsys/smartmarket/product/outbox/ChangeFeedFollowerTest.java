@@ -0,0 +1,132 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.OutboxEventRepository;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.service.ChangeFeedService;
+import com.alexsys.smartmarket.product.service.FlashSaleStockService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import com.alexsys.smartmarket.product.service.SkuAvailabilityService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// No scheduled runs: the test numbers changes and follows the feed itself
+@DataJpaTest(properties = {"smartmarket.changes.sequence-interval=PT1H", "smartmarket.changes.follow-interval=PT1H"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, ChangeFeedService.class, ChangeFeedFollower.class, OutboxWriter.class, OutboxSequencer.class,
+        PartialUpdates.class, ProductsSkuService.class, FlashSaleStockService.class, ProductsSkuMapperImpl.class, SkuAvailabilityService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChangeFeedFollowerTest {
+
+    @Autowired
+    private ChangeFeedFollower changeFeedFollower;
+
+    @Autowired
+    private OutboxSequencer outboxSequencer;
+
+    @Autowired
+    private SkuAvailabilityService skuAvailabilityService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @BeforeEach
+    void setUp() {
+        skuAvailabilityService.rebuild();
+        changeFeedFollower.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAllInBatch();
+        productsSkuRepository.deleteAllInBatch();
+    }
+
+    // A write as another instance makes it: the row and its outbox event, but no event on this one
+    private ProductsSku writtenElsewhere(String code, double price) {
+        return transactionTemplate.execute(status -> {
+            ProductsSku sku = new ProductsSku();
+            sku.setProductId(1);
+            sku.setSku(code);
+            sku.setPrice(price);
+            sku.setQuantity(4);
+            var saved = productsSkuRepository.save(sku);
+            outboxEventRepository.save(OutboxEvent.of(ProductsSku.class, saved.getId(), OutboxEvent.Change.SAVED));
+            return saved;
+        });
+    }
+
+    @Test
+    void follow_shouldApplyWritesMadeOnOtherInstances() {
+        Integer skuId = writtenElsewhere("REMOTE-1", 15.0).getId();
+        assertThat(skuAvailabilityService.getSku(skuId)).isEmpty();
+        long events = outboxEventRepository.count();
+
+        outboxSequencer.sequence();
+        changeFeedFollower.follow();
+
+        assertThat(skuAvailabilityService.getSku(skuId)).hasValueSatisfying(row -> {
+            assertThat(row.price()).isEqualTo(15.0);
+            assertThat(row.quantity()).isEqualTo(4);
+        });
+        // Replays don't go back into the outbox
+        assertThat(outboxEventRepository.count()).isEqualTo(events);
+    }
+
+    @Test
+    void follow_shouldApplyDeletesMadeOnOtherInstances() {
+        Integer skuId = writtenElsewhere("REMOTE-2", 3.0).getId();
+        outboxSequencer.sequence();
+        changeFeedFollower.follow();
+        assertThat(skuAvailabilityService.getSku(skuId)).isPresent();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productsSkuRepository.deleteById(skuId);
+            outboxEventRepository.save(OutboxEvent.of(ProductsSku.class, skuId, OutboxEvent.Change.DELETED));
+        });
+        outboxSequencer.sequence();
+        changeFeedFollower.follow();
+
+        assertThat(skuAvailabilityService.getSku(skuId)).isEmpty();
+    }
+
+    @Test
+    void follow_shouldEvictCachedRowsWrittenOnOtherInstances() {
+        Integer skuId = writtenElsewhere("REMOTE-3", 8.0).getId();
+        assertThat(productsSkuService.getProductsSkuById(skuId).get().getPrice()).isEqualTo(8.0);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productsSkuRepository.findById(skuId).get().setPrice(9.0);
+            outboxEventRepository.save(OutboxEvent.of(ProductsSku.class, skuId, OutboxEvent.Change.SAVED));
+        });
+        outboxSequencer.sequence();
+        changeFeedFollower.follow();
+
+        assertThat(productsSkuService.getProductsSkuById(skuId).get().getPrice()).isEqualTo(9.0);
+    }
+}
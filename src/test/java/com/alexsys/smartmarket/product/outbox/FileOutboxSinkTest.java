@@ -0,0 +1,37 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOutboxSinkTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void publish_shouldAppendOneLinePerEvent() throws Exception {
+        Path file = dir.resolve("outbox.ndjson");
+        var sink = new FileOutboxSink(file, JsonMapper.builder().build());
+        var first = OutboxEvent.of(ProductsSku.class, 7, OutboxEvent.Change.SAVED);
+        first.setId(1L);
+        var second = OutboxEvent.of(ProductsSku.class, 7, OutboxEvent.Change.DELETED);
+        second.setId(2L);
+
+        sink.publish(List.of(first));
+        sink.publish(List.of(second));
+
+        assertEquals(List.of(
+                "{\"id\":1,\"aggregateType\":\"ProductsSku\",\"aggregateId\":7,\"change\":\"SAVED\",\"createdAt\":null}",
+                "{\"id\":2,\"aggregateType\":\"ProductsSku\",\"aggregateId\":7,\"change\":\"DELETED\",\"createdAt\":null}"),
+                Files.readAllLines(file));
+    }
+}
@@ -0,0 +1,189 @@
+package com.alexsys.smartmarket.product.outbox;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.config.OutboxConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.JobLease;
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.JobLeaseRepository;
+import com.alexsys.smartmarket.product.repository.OutboxEventRepository;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.service.FlashSaleStockService;
+import com.alexsys.smartmarket.product.service.ProductsSkuService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+// The scheduled relay is pushed out of the way; the tests run it themselves
+@DataJpaTest(properties = {"smartmarket.outbox.batch-size=2", "smartmarket.outbox.relay-interval=PT1H"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, OutboxConfig.class, OutboxWriter.class, OutboxRelay.class, OutboxRelayTest.Metrics.class,
+        ProductsSkuService.class, FlashSaleStockService.class, PartialUpdates.class, ProductsSkuMapperImpl.class})
+// Writes commit for real, as the outbox only means anything across commits and rollbacks
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @SpyBean
+    private OutboxSink sink;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAllInBatch();
+        jobLeaseRepository.deleteAllInBatch();
+        productsSkuRepository.deleteAllInBatch();
+    }
+
+    private ProductsSku sku(String code) {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku(code);
+        sku.setQuantity(5);
+        return sku;
+    }
+
+    // The sink outlives each test with the cached context: only what a test added counts
+    private List<OutboxEvent> publishedSince(int before) {
+        var events = ((InMemoryOutboxSink) sink).events();
+        return events.subList(before, events.size());
+    }
+
+    private int published() {
+        return ((InMemoryOutboxSink) sink).events().size();
+    }
+
+    @Test
+    void relay_shouldPublishEveryWriteInCommitOrder() {
+        int before = published();
+        double counted = meterRegistry.counter(OutboxRelay.PUBLISHED).count();
+        Integer id = productsSkuService.saveProductsSku(sku("OUT-1")).getId();
+        ProductsSku changes = new ProductsSku();
+        changes.setPrice(9.5);
+        productsSkuService.updateProductsSku(id, changes);
+        productsSkuService.decrementStock(id, 2);
+        productsSkuService.deleteProductsSku(id);
+
+        outboxRelay.relay();
+
+        assertThat(publishedSince(before))
+                .extracting(OutboxEvent::getAggregateType, OutboxEvent::getAggregateId, OutboxEvent::getChange)
+                .containsExactly(
+                        tuple("ProductsSku", id, OutboxEvent.Change.SAVED),
+                        tuple("ProductsSku", id, OutboxEvent.Change.SAVED),
+                        tuple("ProductsSku", id, OutboxEvent.Change.STOCK),
+                        tuple("ProductsSku", id, OutboxEvent.Change.DELETED));
+        assertThat(outboxEventRepository.findAll()).allMatch(event -> event.getPublishedAt() != null);
+        assertThat(meterRegistry.counter(OutboxRelay.PUBLISHED).count()).isEqualTo(counted + 4);
+    }
+
+    @Test
+    void rolledBackWrites_shouldLeaveNoEvent() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productsSkuService.saveProductsSku(sku("OUT-2"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    void failingSink_shouldLeaveTheBatchForTheNextRun() {
+        int before = published();
+        productsSkuService.saveProductsSku(sku("OUT-3"));
+        doThrow(new IllegalStateException("broker down")).when(sink).publish(anyList());
+
+        assertThatThrownBy(outboxRelay::relay).hasMessage("broker down");
+        assertThat(outboxEventRepository.findAll()).allMatch(event -> event.getPublishedAt() == null);
+
+        reset(sink);
+        outboxRelay.relay();
+        assertThat(publishedSince(before)).hasSize(1);
+    }
+
+    @Test
+    void relay_shouldLeaveTheEventsToTheInstanceHoldingTheLease() {
+        var lease = JobLease.expired(OutboxRelay.LEASE);
+        lease.setOwner("another-pod");
+        lease.setLeaseUntil(Instant.now().plusSeconds(60));
+        jobLeaseRepository.save(lease);
+        productsSkuService.saveProductsSku(sku("OUT-4"));
+        int before = published();
+
+        outboxRelay.relay();
+
+        assertThat(publishedSince(before)).isEmpty();
+        assertThat(outboxEventRepository.findAll()).allMatch(event -> event.getPublishedAt() == null);
+
+        // Once it runs out, this instance takes over
+        lease.setLeaseUntil(Instant.now().minusSeconds(1));
+        jobLeaseRepository.save(lease);
+        outboxRelay.relay();
+        assertThat(publishedSince(before)).hasSize(1);
+    }
+
+    @Test
+    void eventsOutsideATransaction_shouldBeRejected() {
+        assertThatThrownBy(() -> eventPublisher.publishEvent(EntityChangedEvent.deleted(ProductsSku.class, 1)))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+}
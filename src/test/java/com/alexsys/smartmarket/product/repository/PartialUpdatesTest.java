@@ -0,0 +1,80 @@
+package com.alexsys.smartmarket.product.repository;
+
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(PartialUpdates.class)
+class PartialUpdatesTest {
+
+    @Autowired
+    private PartialUpdates partialUpdates;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private ProductsSku sku() {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku("PATCH-1");
+        sku.setPrice(20.0);
+        sku.setQuantity(5);
+        return productsSkuRepository.saveAndFlush(sku);
+    }
+
+    @Test
+    void update_shouldWriteOnlyTheNonNullFields() {
+        ProductsSku saved = sku();
+        ProductsSku changes = new ProductsSku();
+        changes.setPrice(15.5);
+
+        assertThat(partialUpdates.update(ProductsSku.class, saved.getId(), changes)).isEqualTo(1);
+
+        ProductsSku reloaded = productsSkuRepository.findById(saved.getId()).orElseThrow();
+        assertThat(reloaded.getPrice()).isEqualTo(15.5);
+        assertThat(reloaded.getQuantity()).isEqualTo(5);
+        assertThat(reloaded.getSku()).isEqualTo("PATCH-1");
+        assertThat(reloaded.getVersion()).isEqualTo(saved.getVersion() + 1);
+        assertThat(reloaded.getUpdatedAt()).isAfterOrEqualTo(saved.getUpdatedAt());
+    }
+
+    @Test
+    void update_shouldIgnoreIdAndVersionInTheChanges() {
+        Category category = new Category();
+        category.setName("Kitchen");
+        Category saved = categoryRepository.saveAndFlush(category);
+        Category changes = new Category();
+        changes.setId(saved.getId() + 100);
+        changes.setVersion(42L);
+        changes.setDescription("Pots and pans");
+
+        assertThat(partialUpdates.update(Category.class, saved.getId(), changes)).isEqualTo(1);
+
+        Category reloaded = categoryRepository.findById(saved.getId()).orElseThrow();
+        assertThat(reloaded.getName()).isEqualTo("Kitchen");
+        assertThat(reloaded.getDescription()).isEqualTo("Pots and pans");
+        assertThat(reloaded.getVersion()).isEqualTo(saved.getVersion() + 1);
+        assertThat(categoryRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void update_shouldReportZeroRowsForAnUnknownId() {
+        ProductsSku changes = new ProductsSku();
+        changes.setPrice(1.0);
+
+        assertThat(partialUpdates.update(ProductsSku.class, 999_999, changes)).isZero();
+    }
+}
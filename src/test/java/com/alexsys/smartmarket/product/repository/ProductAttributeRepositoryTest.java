@@ -68,6 +68,21 @@ class ProductAttributeRepositoryTest {
         assertThat(attributes).hasSize(2);
     }
 
+    @Test
+    void findByProductIdOrderByIdAsc_shouldReturnOnlyThatProductsAttributes() {
+        productAttributeRepository.save(testAttribute);
+
+        ProductAttribute otherProduct = new ProductAttribute();
+        otherProduct.setValue("XL");
+        otherProduct.setType(ProductAttributeType.SIZE);
+        otherProduct.setProductId(2);
+        productAttributeRepository.save(otherProduct);
+
+        List<ProductAttribute> attributes = productAttributeRepository.findByProductIdOrderByIdAsc(1);
+
+        assertThat(attributes).extracting(ProductAttribute::getValue).containsExactly("Red");
+    }
+
     @Test
     void delete_shouldRemoveProductAttribute() {
         ProductAttribute savedAttribute = productAttributeRepository.save(testAttribute);
@@ -6,12 +6,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -76,6 +80,75 @@ class ProductsSkuRepositoryTest {
         assertThat(skus).hasSize(2);
     }
 
+    @Test
+    void findByIdGreaterThanOrderByIdAsc_shouldSeekPastCursor() {
+        ProductsSku first = productsSkuRepository.save(testSku);
+
+        ProductsSku second = new ProductsSku();
+        second.setProductId(1);
+        second.setSku("SKU-002");
+        second.setPrice(10.0);
+        second.setQuantity(1);
+        productsSkuRepository.save(second);
+
+        List<ProductsSku> page = productsSkuRepository.findByIdGreaterThanOrderByIdAsc(first.getId(), Limit.of(10));
+
+        assertThat(page).extracting(ProductsSku::getSku).containsExactly("SKU-002");
+    }
+
+    @Test
+    void streamAllByOrderByIdAsc_shouldStreamEveryRowInIdOrder() {
+        ProductsSku first = productsSkuRepository.save(testSku);
+
+        ProductsSku second = new ProductsSku();
+        second.setProductId(2);
+        second.setSku("SKU-002");
+        productsSkuRepository.save(second);
+
+        try (Stream<ProductsSku> stream = productsSkuRepository.streamAllByOrderByIdAsc()) {
+            assertThat(stream.map(ProductsSku::getId)).containsExactly(first.getId(), second.getId());
+        }
+    }
+
+    @Test
+    void findByProductIdOrderByIdAsc_shouldReturnOnlyThatProductsSkus() {
+        productsSkuRepository.save(testSku);
+
+        ProductsSku otherProduct = new ProductsSku();
+        otherProduct.setProductId(2);
+        otherProduct.setSku("SKU-002");
+        productsSkuRepository.save(otherProduct);
+
+        List<ProductsSku> skus = productsSkuRepository.findByProductIdOrderByIdAsc(1);
+
+        assertThat(skus).extracting(ProductsSku::getSku).containsExactly("SKU-001");
+    }
+
+    @Test
+    void decrementQuantity_shouldOnlyUpdateWhenStockSuffices() {
+        ProductsSku saved = productsSkuRepository.save(testSku);
+
+        assertThat(productsSkuRepository.decrementQuantity(saved.getId(), 20)).isEqualTo(1);
+        assertThat(productsSkuRepository.decrementQuantity(saved.getId(), 40)).isZero();
+        assertThat(productsSkuRepository.findQuantityById(saved.getId())).contains(30);
+
+        assertThat(productsSkuRepository.incrementQuantity(saved.getId(), 5)).isEqualTo(1);
+        assertThat(productsSkuRepository.findQuantityById(saved.getId())).contains(35);
+    }
+
+    @Test
+    void stockUpdates_shouldBumpTheVersion() {
+        ProductsSku saved = productsSkuRepository.saveAndFlush(testSku);
+        assertThat(saved.getVersion()).isZero();
+
+        productsSkuRepository.decrementQuantity(saved.getId(), 1);
+        productsSkuRepository.incrementQuantity(saved.getId(), 1);
+
+        ProductsSku reloaded = productsSkuRepository.findById(saved.getId()).orElseThrow();
+        assertThat(reloaded.getVersion()).isEqualTo(2);
+        assertThat(reloaded.getUpdatedAt()).isNotNull();
+    }
+
     @Test
     void delete_shouldRemoveProductsSku() {
         ProductsSku savedSku = productsSkuRepository.save(testSku);
@@ -107,4 +180,15 @@ class ProductsSkuRepositoryTest {
         assertThat(updatedSku.getQuantity()).isEqualTo(100);
         assertThat(updatedSku.getId()).isEqualTo(savedSku.getId());
     }
+
+    @Test
+    void save_shouldRejectADuplicateSkuCode() {
+        productsSkuRepository.saveAndFlush(testSku);
+        ProductsSku duplicate = new ProductsSku();
+        duplicate.setProductId(2);
+        duplicate.setSku("SKU-001");
+
+        assertThatThrownBy(() -> productsSkuRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
 }
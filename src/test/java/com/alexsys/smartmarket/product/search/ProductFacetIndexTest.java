@@ -0,0 +1,139 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.enums.ProductAttributeType;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+    private int nextRowId = 100;
+
+    private Product product(int id, int categoryId) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategoryId(categoryId);
+        return product;
+    }
+
+    private ProductAttribute attribute(int id, int productId, ProductAttributeType type, String value) {
+        ProductAttribute attribute = new ProductAttribute();
+        attribute.setId(id);
+        attribute.setProductId(productId);
+        attribute.setType(type);
+        attribute.setValue(value);
+        return attribute;
+    }
+
+    private ProductsSku sku(int id, int productId, double price) {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(id);
+        sku.setProductId(productId);
+        sku.setPrice(price);
+        return sku;
+    }
+
+    // Product with one attribute row per value and one SKU per price
+    private void add(int id, int categoryId, String color, String size, double... prices) {
+        index.putProduct(product(id, categoryId));
+        index.putAttribute(attribute(nextRowId++, id, ProductAttributeType.COLOR, color));
+        index.putAttribute(attribute(nextRowId++, id, ProductAttributeType.SIZE, size));
+        for (double price : prices) {
+            index.putSku(sku(nextRowId++, id, price));
+        }
+    }
+
+    private ProductFacetIndex.Query query(Set<Integer> categories, Set<String> colors, Set<String> sizes,
+                                          Double minPrice, Double maxPrice) {
+        return new ProductFacetIndex.Query(categories, Map.of(
+                ProductAttributeType.COLOR, colors == null ? Set.of() : colors,
+                ProductAttributeType.SIZE, sizes == null ? Set.of() : sizes), minPrice, maxPrice);
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex();
+        add(1, 5, "Red", "M", 19.99);
+        add(2, 5, "red", "L", 49.99, 120.0);
+        add(3, 5, "Blue", "M", 60.0);
+        add(4, 6, "Red", "M", 30.0);
+        add(5, 5, "Red", "S", 50.0);
+    }
+
+    @Test
+    void filter_shouldIntersectDimensionsAndMatchValuesCaseInsensitively() {
+        var result = index.filter(query(Set.of(5), Set.of("RED"), Set.of("m", "l"), null, 50.0), 0, 10);
+
+        assertEquals(List.of(1, 2), result.ids());
+        assertEquals(2, result.total());
+    }
+
+    @Test
+    void filter_shouldCountEachFacetAgainstTheOtherFilters() {
+        var facets = index.filter(query(Set.of(5), Set.of("red"), Set.of(), null, null), 0, 10).facets();
+
+        // Colours ignore the colour filter but keep the category one
+        assertEquals(Map.of("red", 3, "blue", 1), facets.get("COLOR"));
+        assertEquals(Map.of("m", 1, "l", 1, "s", 1), facets.get("SIZE"));
+        assertEquals(Map.of("5", 3, "6", 1), facets.get(ProductFacetIndex.CATEGORY));
+        assertEquals(List.of("10-25", "25-50", "50-100", "100-250"), List.copyOf(facets.get(ProductFacetIndex.PRICE).keySet()));
+    }
+
+    @Test
+    void filter_shouldResolvePriceBoundsInsideBandsExactly() {
+        assertEquals(List.of(1, 2, 4), index.filter(query(null, null, null, null, 50.0), 0, 10).ids());
+        assertEquals(List.of(2, 3, 5), index.filter(query(null, null, null, 49.99, 100.0), 0, 10).ids());
+        assertEquals(List.of(2), index.filter(query(null, null, null, 100.0, null), 0, 10).ids());
+    }
+
+    @Test
+    void filter_shouldPageAfterIdWithOneExtraIdWhenMoreFollow() {
+        var result = index.filter(query(null, Set.of("red"), null, null, null), 1, 2);
+
+        assertEquals(List.of(2, 4, 5), result.ids());
+        assertEquals(4, result.total());
+    }
+
+    @Test
+    void writes_shouldMoveProductsBetweenBitmaps() {
+        index.putProduct(product(4, 5));
+        // Product 2's only red row becomes blue; product 1 keeps red through a second row
+        index.putAttribute(attribute(103, 2, ProductAttributeType.COLOR, "Blue"));
+        index.putAttribute(attribute(999, 1, ProductAttributeType.COLOR, "Red"));
+        index.removeAttribute(100);
+        index.putSku(sku(106, 2, 80.0));
+        index.removeProduct(5);
+
+        assertEquals(List.of(1, 4), index.filter(query(Set.of(5), Set.of("red"), null, null, null), 0, 10).ids());
+        assertEquals(List.of(2, 3), index.filter(query(null, Set.of("blue"), null, null, null), 0, 10).ids());
+        assertEquals(List.of(), index.filter(query(null, null, null, 100.0, null), 0, 10).ids());
+        assertEquals(List.of(1, 2, 4), index.filter(query(null, null, null, null, 50.0), 0, 10).ids());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void load_shouldNotOverwriteWritesMadeDuringTheLoad() {
+        index = new ProductFacetIndex();
+        index.beginLoad();
+        index.putProduct(product(1, 7));
+        index.removeSku(10);
+
+        index.loadProducts(List.of(product(1, 5), product(2, 5)));
+        index.loadSkus(List.of(sku(10, 2, 5.0), sku(11, 2, 500.0)));
+        index.endLoad();
+
+        assertEquals(List.of(1), index.filter(query(Set.of(7), null, null, null, null), 0, 10).ids());
+        assertEquals(Map.of("500-1000", 1), index.filter(query(null, null, null, null, null), 0, 10)
+                .facets().get(ProductFacetIndex.PRICE));
+    }
+}
@@ -0,0 +1,104 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.product.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFuzzyIndexTest {
+
+    private Product product(int id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategoryId(1);
+        return product;
+    }
+
+    private ProductFuzzyIndex indexOf(Product... products) {
+        ProductFuzzyIndex index = new ProductFuzzyIndex();
+        for (Product product : products) {
+            index.put(product);
+        }
+        return index;
+    }
+
+    private List<Integer> ids(List<ProductFuzzyIndex.Match> matches) {
+        return matches.stream().map(ProductFuzzyIndex.Match::id).toList();
+    }
+
+    @Test
+    void distance_shouldCountTranspositionsAsOneEditAndStopPastTheBound() {
+        assertEquals(0, ProductFuzzyIndex.distance("shirt", "shirt", 2));
+        assertEquals(1, ProductFuzzyIndex.distance("tshrit", "tshirt", 2));
+        assertEquals(2, ProductFuzzyIndex.distance("lether", "leathr", 2));
+        assertEquals(3, ProductFuzzyIndex.distance("wallet", "charger", 2));
+        assertEquals(2, ProductFuzzyIndex.distance("ab", "abcdef", 1));
+    }
+
+    @Test
+    void search_shouldFindMisspelledHyphenatedName() {
+        ProductFuzzyIndex index = indexOf(
+                product(1, "Basic T-Shirt"),
+                product(2, "Shirt dress"),
+                product(3, "Desk lamp"));
+
+        var matches = index.search("tshrit", 10);
+
+        assertEquals(1, matches.get(0).id());
+        assertEquals(1, matches.get(0).edits());
+        assertFalse(ids(matches).contains(3));
+    }
+
+    @Test
+    void search_shouldRankByTotalEditsAndRequireEveryWord() {
+        ProductFuzzyIndex index = indexOf(
+                product(1, "Leather wallet"),
+                product(2, "Lether wallet"),
+                product(3, "Leather belt"),
+                product(4, "Wallet chain"));
+
+        assertEquals(List.of(1, 2), ids(index.search("leather walet", 10)));
+        assertEquals(List.of(2, 1), ids(index.search("lether wallet", 10)));
+    }
+
+    @Test
+    void search_shouldOnlyMatchShortWordsExactly() {
+        ProductFuzzyIndex index = indexOf(product(1, "USB cable"), product(2, "4G router"));
+
+        assertEquals(List.of(2), ids(index.search("4g", 10)));
+        assertTrue(index.search("5g", 10).isEmpty());
+        assertEquals(List.of(1), ids(index.search("usd", 10)));
+    }
+
+    @Test
+    void putAndRemove_shouldKeepVocabularyInStep() {
+        ProductFuzzyIndex index = indexOf(product(1, "Red shoe"), product(2, "Red scarf"));
+        assertEquals(5, index.vocabularySize());
+
+        index.put(product(1, "Blue shoe"));
+        assertEquals(List.of(1), ids(index.search("bleu", 10)));
+        assertEquals(List.of(2), ids(index.search("scraf", 10)));
+
+        index.remove(2);
+        assertTrue(index.search("scarf", 10).isEmpty());
+        assertEquals(3, index.vocabularySize());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void search_shouldCapAtLimitPreferringExactMatchesThenLowerIds() {
+        ProductFuzzyIndex index = indexOf(
+                product(5, "Mugs"),
+                product(4, "Mug"),
+                product(3, "Mug"),
+                product(2, "Smug"));
+
+        var matches = index.search("mug", 3);
+
+        assertEquals(List.of(3, 4, 2), ids(matches));
+        assertEquals(List.of(0, 0, 1), matches.stream().map(ProductFuzzyIndex.Match::edits).toList());
+    }
+}
@@ -0,0 +1,128 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.product.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private Product product(int id, String name, String summary, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setSummary(summary);
+        product.setDescription(description);
+        product.setCategoryId(1);
+        return product;
+    }
+
+    private ProductSearchIndex indexOf(Product... products) {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (Product product : products) {
+            index.put(ProductSearchIndex.Document.of(product));
+        }
+        return index;
+    }
+
+    @Test
+    void tokenize_shouldLowercaseAndStripAccents() {
+        assertEquals(List.of("telephone", "4g", "ecran", "oled"), Tokenizer.tokenize("Téléphone-4G, écran OLED!"));
+        assertTrue(Tokenizer.tokenize("  ").isEmpty());
+    }
+
+    @Test
+    void search_shouldRankNameMatchesAboveDescriptionMatches() {
+        ProductSearchIndex index = indexOf(
+                product(1, "Leather wallet", "Slim", "Fits a phone"),
+                product(2, "Phone case", "Protective", "Silicone case"),
+                product(3, "Desk lamp", "LED", "Warm light"));
+
+        var hits = index.search("phone", 10);
+
+        assertEquals(List.of(2, 1), hits.stream().map(ProductSearchIndex.Hit::id).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void search_shouldPreferRarerTermsAndMatchAccentInsensitively() {
+        ProductSearchIndex index = indexOf(
+                product(1, "Café noir", null, "Arabica"),
+                product(2, "Cafe latte", null, "Arabica milk"),
+                product(3, "Thé vert", null, "Arabica free"));
+
+        var hits = index.search("cafe milk", 10);
+
+        assertEquals(2, hits.get(0).id());
+        assertEquals(2, hits.size());
+    }
+
+    @Test
+    void search_shouldCapAtLimitWithDeterministicTies() {
+        ProductSearchIndex index = indexOf(
+                product(3, "Mug", null, null),
+                product(1, "Mug", null, null),
+                product(2, "Mug", null, null));
+
+        assertEquals(List.of(1, 2), index.search("mug", 2).stream().map(ProductSearchIndex.Hit::id).toList());
+    }
+
+    @Test
+    void putAndRemove_shouldReplacePostings() {
+        ProductSearchIndex index = indexOf(product(1, "Red shoe", null, null));
+
+        index.put(ProductSearchIndex.Document.of(product(1, "Blue shoe", null, null)));
+        assertTrue(index.search("red", 10).isEmpty());
+        assertEquals(1, index.search("blue", 10).size());
+
+        index.remove(1);
+        assertTrue(index.search("shoe", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void putAndRemove_shouldKeepSharedPostingsConsistent() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int id = 1; id <= 50; id++) {
+            index.put(ProductSearchIndex.Document.of(product(id, "Shoe " + (id % 2 == 0 ? "red" : "blue"), null, null)));
+        }
+
+        // Scattered removals and renames move entries around inside the shared lists
+        for (int id = 3; id <= 50; id += 3) {
+            index.remove(id);
+        }
+        for (int id = 5; id <= 50; id += 5) {
+            index.put(ProductSearchIndex.Document.of(product(id, "Boot red", null, null)));
+        }
+        index.remove(1);
+
+        List<Integer> shoes = index.search("shoe", 100).stream().map(ProductSearchIndex.Hit::id).sorted().toList();
+        List<Integer> expected = IntStream.rangeClosed(2, 50)
+                .filter(id -> id % 3 != 0 && id % 5 != 0).boxed().toList();
+        assertEquals(expected, shoes);
+        assertEquals(10, index.search("boot", 100).size());
+        assertEquals(expected.size() + 10, index.size());
+    }
+
+    @Test
+    void load_shouldNotOverwriteWritesMadeDuringTheLoad() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.beginLoad();
+        index.put(ProductSearchIndex.Document.of(product(1, "New name", null, null)));
+        index.remove(2);
+
+        index.load(List.of(
+                ProductSearchIndex.Document.of(product(1, "Old name", null, null)),
+                ProductSearchIndex.Document.of(product(2, "Deleted", null, null)),
+                ProductSearchIndex.Document.of(product(3, "Untouched", null, null))));
+        index.endLoad();
+
+        assertEquals(1, index.search("new", 10).size());
+        assertTrue(index.search("old", 10).isEmpty());
+        assertTrue(index.search("deleted", 10).isEmpty());
+        assertEquals(1, index.search("untouched", 10).size());
+    }
+}
@@ -0,0 +1,141 @@
+package com.alexsys.smartmarket.product.search;
+
+import com.alexsys.smartmarket.product.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSuggesterTest {
+
+    private Product product(int id, String name, Integer popularity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPopularity(popularity);
+        product.setCategoryId(1);
+        return product;
+    }
+
+    private ProductSuggester suggesterOf(Product... products) {
+        ProductSuggester suggester = new ProductSuggester();
+        for (Product product : products) {
+            suggester.put(product);
+        }
+        return suggester;
+    }
+
+    private List<Integer> ids(List<ProductSuggester.Suggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggester.Suggestion::id).toList();
+    }
+
+    @Test
+    void suggest_shouldReturnPrefixMatchesByPopularity() {
+        ProductSuggester suggester = suggesterOf(
+                product(1, "Phone case", 5),
+                product(2, "Phone charger", 50),
+                product(3, "Photo frame", 20),
+                product(4, "Lamp", 100));
+
+        assertEquals(List.of(2, 3, 1), ids(suggester.suggest("Pho", 10)));
+        assertEquals(List.of(2, 1), ids(suggester.suggest("phone", 10)));
+        assertEquals(List.of(2), ids(suggester.suggest("phone", 1)));
+        assertTrue(suggester.suggest("phones", 10).isEmpty());
+        assertTrue(suggester.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_shouldFoldCaseAccentsAndPunctuation() {
+        ProductSuggester suggester = suggesterOf(
+                product(1, "Café-Crème  Mug", null),
+                product(2, "Cafetière", null));
+
+        assertEquals(List.of(1), ids(suggester.suggest("cafe cr", 10)));
+        assertEquals("Café-Crème  Mug", suggester.suggest("CAFÉ ", 10).get(0).name());
+        assertEquals(List.of(1, 2), ids(suggester.suggest("caf", 10)));
+    }
+
+    @Test
+    void suggest_shouldBreakTiesByNameThenId() {
+        ProductSuggester suggester = suggesterOf(
+                product(3, "Mug b", 1),
+                product(2, "Mug a", 1),
+                product(1, "Mug a", 1));
+
+        assertEquals(List.of(1, 2, 3), ids(suggester.suggest("mug", 10)));
+    }
+
+    @Test
+    void putAndRemove_shouldRenameAndReweight() {
+        ProductSuggester suggester = suggesterOf(
+                product(1, "Red shoe", 1),
+                product(2, "Red scarf", 2));
+
+        suggester.put(product(1, "Blue shoe", 1));
+        assertEquals(List.of(2), ids(suggester.suggest("red", 10)));
+        assertEquals(List.of(1), ids(suggester.suggest("blue", 10)));
+
+        suggester.put(product(2, "Red scarf", 0));
+        suggester.put(product(3, "Red sock", 5));
+        assertEquals(List.of(3, 2), ids(suggester.suggest("red s", 10)));
+
+        suggester.remove(3);
+        suggester.remove(2);
+        assertTrue(suggester.suggest("red", 10).isEmpty());
+        assertEquals(1, suggester.size());
+    }
+
+    @Test
+    void load_shouldNotOverwriteWritesMadeDuringTheLoad() {
+        ProductSuggester suggester = new ProductSuggester();
+        suggester.beginLoad();
+        suggester.put(product(1, "New name", 0));
+        suggester.remove(2);
+
+        suggester.load(List.of(product(1, "Old name", 0), product(2, "Deleted", 0), product(3, "Untouched", 0)));
+        suggester.endLoad();
+
+        assertEquals(List.of(1), ids(suggester.suggest("n", 10)));
+        assertTrue(suggester.suggest("old", 10).isEmpty());
+        assertTrue(suggester.suggest("del", 10).isEmpty());
+        assertEquals(List.of(3), ids(suggester.suggest("u", 10)));
+    }
+
+    @Test
+    void suggest_shouldMatchBruteForceUnderRandomWrites() {
+        String[] words = {"a", "ab", "abc", "b", "ba", "bab", "c"};
+        Random random = new Random(7);
+        ProductSuggester suggester = new ProductSuggester();
+        Map<Integer, Product> live = new HashMap<>();
+        for (int step = 0; step < 3000; step++) {
+            int id = random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                suggester.remove(id);
+                live.remove(id);
+            } else {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                Product product = product(id, name, random.nextInt(10));
+                suggester.put(product);
+                live.put(id, product);
+            }
+        }
+
+        for (String prefix : List.of("a", "ab", "abc ", "b", "ba b", "bab c", "c", "ca")) {
+            List<Integer> expected = live.values().stream()
+                    .filter(product -> ProductSuggester.key(product.getName()).startsWith(ProductSuggester.key(prefix)))
+                    .sorted(Comparator.comparing(Product::getPopularity).reversed()
+                            .thenComparing(Product::getName)
+                            .thenComparing(Product::getId))
+                    .limit(15)
+                    .map(Product::getId)
+                    .toList();
+            assertEquals(expected, ids(suggester.suggest(prefix, 15)), prefix);
+        }
+        assertEquals(live.size(), suggester.size());
+    }
+}
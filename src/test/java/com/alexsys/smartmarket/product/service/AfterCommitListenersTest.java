@@ -0,0 +1,81 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.cache.TableVersions;
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.store.SkuColumnStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The in-memory views follow writes only once they commit
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, TableVersions.class, ProductsSkuService.class, FlashSaleStockService.class, PartialUpdates.class,
+        ProductsSkuMapperImpl.class, SkuAvailabilityService.class, SkuLookupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AfterCommitListenersTest {
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private SkuAvailabilityService skuAvailabilityService;
+
+    @Autowired
+    private SkuLookupService skuLookupService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @AfterEach
+    void tearDown() {
+        productsSkuRepository.deleteAllInBatch();
+    }
+
+    private Integer sku(String code, double price) {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku(code);
+        sku.setPrice(price);
+        sku.setQuantity(5);
+        return productsSkuService.saveProductsSku(sku).getId();
+    }
+
+    @Test
+    void rolledBackWrite_shouldLeaveTheIndexesAsTheyWere() {
+        Integer a = sku("ROLL-A", 10.0);
+        Integer b = sku("ROLL-B", 20.0);
+        assertThat(skuAvailabilityService.getSku(b)).map(SkuColumnStore.Row::price).contains(20.0);
+        long version = tableVersions.current(ProductsSku.class);
+
+        // Fails on the unique code at commit, after the service published its event
+        ProductsSku changes = new ProductsSku();
+        changes.setSku("ROLL-A");
+        changes.setPrice(25.0);
+        assertThatThrownBy(() -> productsSkuService.updateProductsSku(b, changes))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(skuAvailabilityService.getSku(b)).map(SkuColumnStore.Row::price).contains(20.0);
+        assertThat(skuLookupService.getBySku("ROLL-A")).map(ProductsSku::getId).contains(a);
+        assertThat(skuLookupService.getBySku("ROLL-B")).map(ProductsSku::getId).contains(b);
+        assertThat(tableVersions.current(ProductsSku.class)).isEqualTo(version);
+    }
+}
@@ -0,0 +1,143 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.model.PendingPurge;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.ProductsSkuStockBucket;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
+import com.alexsys.smartmarket.product.repository.ProductAttributeRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuStockBucketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"smartmarket.purge.chunk-size=2", "smartmarket.purge.interval=PT1H"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, CatalogPurgeService.class, CatalogPurgeServiceTest.Metrics.class})
+class CatalogPurgeServiceTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private CatalogPurgeService catalogPurgeService;
+
+    @Autowired
+    private PendingPurgeRepository pendingPurgeRepository;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private ProductsSkuStockBucketRepository bucketRepository;
+
+    @Autowired
+    private ProductAttributeRepository productAttributeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Integer sku(Integer productId, String code) {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(productId);
+        sku.setSku(code);
+        sku.setQuantity(1);
+        return productsSkuRepository.save(sku).getId();
+    }
+
+    private void attribute(Integer productId, String value) {
+        ProductAttribute attribute = new ProductAttribute();
+        attribute.setProductId(productId);
+        attribute.setValue(value);
+        productAttributeRepository.save(attribute);
+    }
+
+    @Test
+    void purgePending_shouldRemoveTheProductsRowsInChunks() {
+        for (int i = 0; i < 5; i++) {
+            sku(1, "GONE-" + i);
+        }
+        Integer hot = sku(1, "GONE-HOT");
+        ProductsSkuStockBucket bucket = new ProductsSkuStockBucket();
+        bucket.setSkuId(hot);
+        bucket.setBucket(0);
+        bucket.setQuantity(3);
+        bucketRepository.save(bucket);
+        attribute(1, "red");
+        attribute(1, "blue");
+        attribute(1, "green");
+        Integer kept = sku(2, "KEPT-1");
+        attribute(2, "steel");
+        pendingPurgeRepository.saveAndFlush(PendingPurge.of(PendingPurge.Target.PRODUCT, 1));
+        var skusPurged = meterRegistry.counter(CatalogPurgeService.PURGED_ROWS, "table", "products_skus");
+        var attributesPurged = meterRegistry.counter(CatalogPurgeService.PURGED_ROWS, "table", "product_attributes");
+        double skusBefore = skusPurged.count();
+        double attributesBefore = attributesPurged.count();
+
+        catalogPurgeService.purgePending();
+
+        assertThat(productsSkuRepository.findAll()).extracting(ProductsSku::getId).containsExactly(kept);
+        assertThat(productAttributeRepository.findAll()).extracting(ProductAttribute::getValue).containsExactly("steel");
+        assertThat(bucketRepository.count()).isZero();
+        assertThat(catalogPurgeService.getPendingPurges()).isEmpty();
+        assertThat(skusPurged.count() - skusBefore).isEqualTo(6);
+        assertThat(attributesPurged.count() - attributesBefore).isEqualTo(3);
+    }
+
+    @Test
+    void purgePending_shouldLeaveEntriesAnotherInstanceHolds() {
+        sku(1, "HELD-1");
+        var purge = PendingPurge.of(PendingPurge.Target.PRODUCT, 1);
+        purge.setClaimedBy("other-instance");
+        purge.setClaimedUntil(Instant.now().plus(Duration.ofMinutes(1)));
+        Integer id = pendingPurgeRepository.saveAndFlush(purge).getId();
+
+        catalogPurgeService.purgePending();
+
+        assertThat(productsSkuRepository.count()).isEqualTo(1);
+        assertThat(pendingPurgeRepository.existsById(id)).isTrue();
+    }
+
+    @Test
+    void purgePending_shouldTakeOverEntriesWhoseClaimRanOut() {
+        sku(1, "ABANDONED-1");
+        var purge = PendingPurge.of(PendingPurge.Target.PRODUCT, 1);
+        purge.setClaimedBy("dead-instance");
+        purge.setClaimedUntil(Instant.now().minus(Duration.ofMinutes(1)));
+        pendingPurgeRepository.saveAndFlush(purge);
+
+        catalogPurgeService.purgePending();
+
+        assertThat(productsSkuRepository.count()).isZero();
+        assertThat(catalogPurgeService.getPendingPurges()).isEmpty();
+    }
+
+    @Test
+    void purgePending_shouldDoNothingWithAnEmptyQueue() {
+        sku(1, "KEPT-1");
+
+        catalogPurgeService.purgePending();
+
+        assertThat(productsSkuRepository.count()).isEqualTo(1);
+    }
+}
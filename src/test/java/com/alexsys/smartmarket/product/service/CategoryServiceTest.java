@@ -1,17 +1,22 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
 import com.alexsys.smartmarket.product.mapper.CategoryMapper;
 import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.PendingPurge;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +31,12 @@ class CategoryServiceTest {
     @Mock
     private CategoryMapper categoryMapper;
 
+    @Mock
+    private PendingPurgeRepository pendingPurgeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -43,18 +54,19 @@ class CategoryServiceTest {
     }
 
     @Test
-    void getAllCategories_shouldReturnAllCategories() {
+    void getCategoriesPage_shouldReturnLastPageWithoutCursor() {
         Category cat1 = createTestCategory();
         Category cat2 = createTestCategory();
         cat2.setId(2);
         cat2.setName("Clothing");
 
-        when(categoryRepository.findAll()).thenReturn(Arrays.asList(cat1, cat2));
+        when(categoryRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(51))).thenReturn(Arrays.asList(cat1, cat2));
 
-        List<Category> categories = categoryService.getAllCategories();
+        CursorPage<Category> page = categoryService.getCategoriesPage(0, 50);
 
-        assertEquals(2, categories.size());
-        verify(categoryRepository, times(1)).findAll();
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        verify(categoryRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(51));
     }
 
     @Test
@@ -127,9 +139,27 @@ class CategoryServiceTest {
     }
 
     @Test
-    void deleteCategory_shouldCallRepositoryDelete() {
+    void deleteCategory_shouldTombstoneAndQueueThePurge() {
+        when(categoryRepository.softDelete(1)).thenReturn(1);
+
         categoryService.deleteCategory(1);
-        verify(categoryRepository, times(1)).deleteById(1);
+
+        verify(categoryRepository, never()).deleteById(any());
+        verify(pendingPurgeRepository).save(argThat(purge ->
+                purge.getTarget() == PendingPurge.Target.CATEGORY && purge.getTargetId() == 1));
+    }
+
+    @Test
+    void writes_shouldPublishChangeEvents() {
+        Category category = createTestCategory();
+        when(categoryRepository.save(category)).thenReturn(category);
+        when(categoryRepository.softDelete(1)).thenReturn(1);
+
+        categoryService.saveCategory(category);
+        categoryService.deleteCategory(1);
+
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.saved(Category.class, 1, category));
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.deleted(Category.class, 1));
     }
 
     @Test
@@ -0,0 +1,186 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.mapper.CategoryMapperImpl;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.OutboxEvent;
+import com.alexsys.smartmarket.product.outbox.OutboxSequencer;
+import com.alexsys.smartmarket.product.outbox.OutboxWriter;
+import com.alexsys.smartmarket.product.pagination.ChangePage;
+import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.alexsys.smartmarket.product.repository.OutboxEventRepository;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// No scheduled runs: the test numbers committed changes itself
+@DataJpaTest(properties = "smartmarket.changes.sequence-interval=PT1H")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, ChangeFeedService.class, OutboxWriter.class, OutboxSequencer.class, PartialUpdates.class,
+        ProductsSkuService.class, FlashSaleStockService.class, ProductsSkuMapperImpl.class,
+        CategoryService.class, CategoryMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChangeFeedServiceTest {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private OutboxSequencer outboxSequencer;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PendingPurgeRepository pendingPurgeRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAllInBatch();
+        productsSkuRepository.deleteAllInBatch();
+        pendingPurgeRepository.deleteAllInBatch();
+        // Tombstoned categories are out of reach of JPQL deletes
+        categoryRepository.deleteAllInBatch();
+    }
+
+    private ProductsSku sku(String code, double price) {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku(code);
+        sku.setPrice(price);
+        sku.setQuantity(5);
+        return productsSkuService.saveProductsSku(sku);
+    }
+
+    private Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return categoryService.saveCategory(category);
+    }
+
+    @Test
+    void changes_shouldReturnTheLatestStateOfEachChangedRowInCommitOrder() {
+        var start = changeFeedService.getChanges(null, 100);
+        assertThat(start.changes()).isEmpty();
+
+        Integer skuId = sku("FEED-1", 10.0).getId();
+        ProductsSku changes = new ProductsSku();
+        changes.setPrice(12.0);
+        productsSkuService.updateProductsSku(skuId, changes);
+        Integer categoryId = category("Garden").getId();
+        categoryService.deleteCategory(categoryId);
+        outboxSequencer.sequence();
+
+        var page = changeFeedService.getChanges(start.cursor(), 100);
+
+        assertThat(page.changes())
+                .extracting(ChangePage.Change::type, ChangePage.Change::id, ChangePage.Change::deleted)
+                .containsExactly(tuple("ProductsSku", skuId, false), tuple("Category", categoryId, true));
+        assertThat(((ProductsSku) page.changes().get(0).data()).getPrice()).isEqualTo(12.0);
+        assertThat(page.changes().get(0).sequence()).isLessThan(page.changes().get(1).sequence());
+        assertThat(page.hasMore()).isFalse();
+        assertThat(changeFeedService.getChanges(page.cursor(), 100).changes()).isEmpty();
+    }
+
+    @Test
+    void changes_shouldPageThroughWithTheCursor() {
+        var start = changeFeedService.getChanges(null, 100);
+        Integer first = sku("FEED-2", 1.0).getId();
+        Integer second = sku("FEED-3", 2.0).getId();
+        outboxSequencer.sequence();
+
+        var page = changeFeedService.getChanges(start.cursor(), 1);
+        assertThat(page.changes()).extracting(ChangePage.Change::id).containsExactly(first);
+        assertThat(page.hasMore()).isTrue();
+
+        page = changeFeedService.getChanges(page.cursor(), 1);
+        assertThat(page.changes()).extracting(ChangePage.Change::id).containsExactly(second);
+        assertThat(page.hasMore()).isFalse();
+    }
+
+    @Test
+    void changes_shouldListAWriteThatCommitsAfterALaterOne() throws Exception {
+        var start = changeFeedService.getChanges(null, 100);
+        var inserted = new CountDownLatch(1);
+        var commit = new CountDownLatch(1);
+        // Takes the lower outbox id, then holds its transaction open
+        var slow = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            outboxEventRepository.saveAndFlush(OutboxEvent.of(ProductsSku.class, 1, OutboxEvent.Change.SAVED));
+            inserted.countDown();
+            await(commit);
+        }));
+        inserted.await();
+        Integer fast = sku("FEED-4", 4.0).getId();
+        outboxSequencer.sequence();
+
+        var page = changeFeedService.getChanges(start.cursor(), 100);
+        assertThat(page.changes()).extracting(ChangePage.Change::id).containsExactly(fast);
+
+        commit.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        outboxSequencer.sequence();
+
+        assertThat(changeFeedService.getChanges(page.cursor(), 100).changes())
+                .extracting(ChangePage.Change::id).containsExactly(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void changes_shouldRejectCursorsOlderThanTheRetention() {
+        var expired = ChangePage.encodeCursor(new ChangePage.Position(1, Instant.EPOCH));
+
+        assertThatThrownBy(() -> changeFeedService.getChanges(expired, 100))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GONE));
+        assertThatThrownBy(() -> changeFeedService.getChanges("not-a-cursor", 100))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,176 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.exception.InsufficientStockException;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.model.ProductsSkuStockBucket;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuStockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, ProductsSkuService.class, FlashSaleStockService.class, PartialUpdates.class, ProductsSkuMapperImpl.class})
+class FlashSaleStockServiceTest {
+
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private ProductsSkuStockBucketRepository bucketRepository;
+
+    private Integer skuId;
+
+    @BeforeEach
+    void setUp() {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku("HOT-001");
+        sku.setQuantity(10);
+        skuId = productsSkuRepository.save(sku).getId();
+    }
+
+    @Test
+    void enable_shouldSplitStockAcrossBucketsAndZeroTheRow() {
+        var hot = flashSaleStockService.enable(skuId, 4);
+
+        assertThat(hot).contains(new FlashSaleStockService.HotSku(skuId, 4, 10));
+        assertThat(flashSaleStockService.isHot(skuId)).isTrue();
+        assertThat(bucketRepository.findForUpdateBySkuIdOrderByBucketAsc(skuId))
+                .extracting(ProductsSkuStockBucket::getQuantity)
+                .containsExactly(3, 3, 2, 2);
+        assertThat(productsSkuRepository.findQuantityById(skuId)).contains(0);
+        assertThat(productsSkuService.getProductsSkuById(skuId).get().getQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void enable_shouldReturnEmptyForUnknownSku() {
+        assertThat(flashSaleStockService.enable(999_999, 4)).isEmpty();
+        assertThat(flashSaleStockService.isHot(999_999)).isFalse();
+    }
+
+    @Test
+    void decrementStock_shouldTakeFromSeveralBucketsWhenNoneHoldsEnough() {
+        flashSaleStockService.enable(skuId, 4);
+
+        assertThat(productsSkuService.decrementStock(skuId, 2).get().quantity()).isEqualTo(8);
+        assertThat(productsSkuService.decrementStock(skuId, 7).get().quantity()).isEqualTo(1);
+        assertThatThrownBy(() -> productsSkuService.decrementStock(skuId, 2))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(bucketRepository.sumQuantityBySkuId(skuId)).contains(1L);
+    }
+
+    @Test
+    void disable_shouldFoldBucketsBackIntoTheRow() {
+        flashSaleStockService.enable(skuId, 3);
+        productsSkuService.decrementStock(skuId, 4);
+        productsSkuService.incrementStock(skuId, 1);
+
+        var level = flashSaleStockService.disable(skuId);
+
+        assertThat(level).contains(new ProductsSkuService.StockLevel(skuId, 7));
+        assertThat(flashSaleStockService.isHot(skuId)).isFalse();
+        assertThat(bucketRepository.sumQuantityBySkuId(skuId)).isEmpty();
+        assertThat(productsSkuRepository.findQuantityById(skuId)).contains(7);
+    }
+
+    @Test
+    void decrementStock_shouldFindBucketsCreatedOnAnotherInstance() {
+        switchOnElsewhere(4, 3);
+
+        assertThat(flashSaleStockService.isHot(skuId)).isFalse();
+        assertThat(productsSkuService.getProductsSkuById(skuId).get().getQuantity()).isEqualTo(12);
+        assertThat(productsSkuService.decrementStock(skuId, 5).get().quantity()).isEqualTo(7);
+        assertThat(flashSaleStockService.isHot(skuId)).isTrue();
+        assertThatThrownBy(() -> productsSkuService.decrementStock(skuId, 8))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void reads_shouldUseTheRowOnceBucketsAreFoldedOnAnotherInstance() {
+        flashSaleStockService.enable(skuId, 2);
+        bucketRepository.deleteBySkuId(skuId);
+        productsSkuRepository.setQuantity(skuId, 6);
+
+        assertThat(productsSkuService.getProductsSkuById(skuId).get().getQuantity()).isEqualTo(6);
+        assertThat(flashSaleStockService.isHot(skuId)).isFalse();
+    }
+
+    @Test
+    void disable_shouldKeepStockWrittenToTheRowWhileHot() {
+        flashSaleStockService.enable(skuId, 2);
+        productsSkuRepository.setQuantity(skuId, 3);
+
+        assertThat(flashSaleStockService.disable(skuId)).contains(new ProductsSkuService.StockLevel(skuId, 13));
+    }
+
+    @Test
+    void decrementStock_shouldSellStockWrittenToTheRowWhileHot() {
+        flashSaleStockService.enable(skuId, 2);
+        productsSkuRepository.setQuantity(skuId, 3);
+
+        assertThat(productsSkuService.getProductsSkuById(skuId).get().getQuantity()).isEqualTo(13);
+        assertThat(productsSkuService.decrementStock(skuId, 13).get().quantity()).isEqualTo(0);
+        assertThat(bucketRepository.sumQuantityBySkuId(skuId)).contains(0L);
+        assertThat(productsSkuRepository.findQuantityById(skuId)).contains(0);
+    }
+
+    @Test
+    void streamAllProductsSkus_shouldAddBucketsCreatedOnAnotherInstance() {
+        switchOnElsewhere(2, 3);
+        ProductsSku soldOut = new ProductsSku();
+        soldOut.setProductId(1);
+        soldOut.setSku("SOLD-OUT-001");
+        soldOut.setQuantity(0);
+        Integer soldOutId = productsSkuRepository.save(soldOut).getId();
+
+        try (Stream<ProductsSku> stream = productsSkuService.streamAllProductsSkus()) {
+            assertThat(stream.toList())
+                    .extracting(ProductsSku::getId, ProductsSku::getQuantity)
+                    .containsExactly(tuple(skuId, 6), tuple(soldOutId, 0));
+        }
+        assertThat(flashSaleStockService.isHot(skuId)).isTrue();
+    }
+
+    @Test
+    void reload_shouldRebuildHotSetFromBuckets() {
+        flashSaleStockService.enable(skuId, 2);
+
+        flashSaleStockService.reload();
+
+        assertThat(flashSaleStockService.getHotSkus()).containsExactly(new FlashSaleStockService.HotSku(skuId, 2, 10));
+    }
+
+    // Buckets as FlashSaleStockService.enable on another instance leaves them, unknown to this one
+    private void switchOnElsewhere(int buckets, int perBucket) {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            var row = new ProductsSkuStockBucket();
+            row.setSkuId(skuId);
+            row.setBucket(bucket);
+            row.setQuantity(perBucket);
+            bucketRepository.save(row);
+        }
+        productsSkuRepository.setQuantity(skuId, 0);
+    }
+}
@@ -1,7 +1,9 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
 import com.alexsys.smartmarket.product.mapper.ProductAttributeMapper;
 import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.repository.ProductAttributeRepository;
 import com.alexsys.smartmarket.enums.ProductAttributeType;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,9 +12,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +30,9 @@ class ProductAttributeServiceTest {
     @Mock
     private ProductAttributeMapper productAttributeMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductAttributeService productAttributeService;
 
@@ -45,18 +51,19 @@ class ProductAttributeServiceTest {
     }
 
     @Test
-    void getAllProductAttributes_shouldReturnAllAttributes() {
+    void getProductAttributesPage_shouldReturnLastPageWithoutCursor() {
         ProductAttribute attr1 = createTestProductAttribute();
         ProductAttribute attr2 = createTestProductAttribute();
         attr2.setId(2);
         attr2.setValue("Blue");
 
-        when(productAttributeRepository.findAll()).thenReturn(Arrays.asList(attr1, attr2));
+        when(productAttributeRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(51))).thenReturn(Arrays.asList(attr1, attr2));
 
-        List<ProductAttribute> attributes = productAttributeService.getAllProductAttributes();
+        CursorPage<ProductAttribute> page = productAttributeService.getProductAttributesPage(0, 50);
 
-        assertEquals(2, attributes.size());
-        verify(productAttributeRepository, times(1)).findAll();
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        verify(productAttributeRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(51));
     }
 
     @Test
@@ -131,6 +138,7 @@ class ProductAttributeServiceTest {
     void deleteProductAttribute_shouldCallRepositoryDelete() {
         productAttributeService.deleteProductAttribute(1);
         verify(productAttributeRepository, times(1)).deleteById(1);
+        verify(eventPublisher).publishEvent(EntityChangedEvent.deleted(ProductAttribute.class, 1));
     }
 
     @Test
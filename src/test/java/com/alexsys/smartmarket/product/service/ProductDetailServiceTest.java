@@ -0,0 +1,118 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductDetailServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductAttributeService productAttributeService;
+
+    @Mock
+    private ProductsSkuService productsSkuService;
+
+    private ExecutorService executor;
+    private ProductDetailService productDetailService;
+
+    private Product createTestProduct() {
+        Product product = new Product();
+        product.setId(1);
+        product.setName("iPhone 15");
+        product.setCategoryId(1);
+        return product;
+    }
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        productDetailService = new ProductDetailService(productService, productAttributeService, productsSkuService, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void getProductDetail_shouldCombineProductAttributesAndSkus() {
+        ProductAttribute attribute = new ProductAttribute();
+        attribute.setProductId(1);
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        when(productService.getProductById(1)).thenReturn(Optional.of(createTestProduct()));
+        when(productAttributeService.getProductAttributesByProductId(1)).thenReturn(List.of(attribute));
+        when(productsSkuService.getProductsSkusByProductId(1)).thenReturn(List.of(sku));
+
+        Optional<ProductDetailService.ProductDetail> detail = productDetailService.getProductDetail(1);
+
+        assertTrue(detail.isPresent());
+        assertEquals("iPhone 15", detail.get().product().getName());
+        assertEquals(List.of(attribute), detail.get().attributes());
+        assertEquals(List.of(sku), detail.get().skus());
+    }
+
+    @Test
+    void getProductDetail_shouldReturnEmptyWhenProductNotExists() {
+        when(productService.getProductById(999)).thenReturn(Optional.empty());
+        when(productAttributeService.getProductAttributesByProductId(999)).thenReturn(List.of());
+        when(productsSkuService.getProductsSkusByProductId(999)).thenReturn(List.of());
+
+        assertFalse(productDetailService.getProductDetail(999).isPresent());
+    }
+
+    @Test
+    void getProductDetail_shouldFetchChildrenConcurrently() {
+        // Each fetch waits for the other two: this only completes if all three run at once
+        CountDownLatch allStarted = new CountDownLatch(3);
+        when(productService.getProductById(1)).thenAnswer(invocation -> {
+            awaitOthers(allStarted);
+            return Optional.of(createTestProduct());
+        });
+        when(productAttributeService.getProductAttributesByProductId(1)).thenAnswer(invocation -> {
+            awaitOthers(allStarted);
+            return List.of();
+        });
+        when(productsSkuService.getProductsSkusByProductId(1)).thenAnswer(invocation -> {
+            awaitOthers(allStarted);
+            return List.of();
+        });
+
+        assertTrue(productDetailService.getProductDetail(1).isPresent());
+    }
+
+    @Test
+    void getProductDetail_shouldPropagateRepositoryFailures() {
+        when(productService.getProductById(1)).thenReturn(Optional.of(createTestProduct()));
+        when(productAttributeService.getProductAttributesByProductId(1)).thenThrow(new IllegalStateException("db down"));
+        when(productsSkuService.getProductsSkusByProductId(1)).thenReturn(List.of());
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> productDetailService.getProductDetail(1));
+        assertEquals("db down", e.getMessage());
+    }
+
+    private static void awaitOthers(CountDownLatch latch) throws InterruptedException {
+        latch.countDown();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
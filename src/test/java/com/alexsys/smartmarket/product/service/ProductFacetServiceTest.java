@@ -0,0 +1,122 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.enums.ProductAttributeType;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.model.ProductAttribute;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.ProductAttributeRepository;
+import com.alexsys.smartmarket.product.repository.ProductRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.search.ProductFacetIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFacetServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductAttributeRepository productAttributeRepository;
+
+    @Mock
+    private ProductsSkuRepository productsSkuRepository;
+
+    @InjectMocks
+    private ProductFacetService productFacetService;
+
+    private Product product(int id, int categoryId) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setCategoryId(categoryId);
+        return product;
+    }
+
+    private ProductAttribute color(int id, int productId, String value) {
+        ProductAttribute attribute = new ProductAttribute();
+        attribute.setId(id);
+        attribute.setProductId(productId);
+        attribute.setType(ProductAttributeType.COLOR);
+        attribute.setValue(value);
+        return attribute;
+    }
+
+    private static ProductFacetIndex.Query query(Set<Integer> categoryIds, Set<String> colors) {
+        return new ProductFacetIndex.Query(categoryIds,
+                Map.of(ProductAttributeType.COLOR, colors, ProductAttributeType.SIZE, Set.of()), null, null);
+    }
+
+    @Test
+    void rebuild_shouldPageThroughProductsAttributesAndSkus() {
+        int pageSize = ProductFacetService.LOAD_PAGE_SIZE;
+        List<Product> firstPage = IntStream.rangeClosed(1, pageSize).mapToObj(id -> product(id, 1)).toList();
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(pageSize))).thenReturn(firstPage);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(pageSize, Limit.of(pageSize)))
+                .thenReturn(List.of(product(pageSize + 1, 2)));
+        when(productAttributeRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(pageSize)))
+                .thenReturn(List.of(color(1, pageSize + 1, "Red")));
+        when(productsSkuRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(pageSize))).thenReturn(List.of());
+        when(productRepository.findAllById(List.of(pageSize + 1))).thenReturn(List.of(product(pageSize + 1, 2)));
+
+        productFacetService.rebuild();
+        var page = productFacetService.filter(query(null, Set.of("red")), 0, 10);
+
+        assertEquals(List.of(pageSize + 1), page.items().stream().map(Product::getId).toList());
+        assertEquals(1, page.total());
+        assertEquals(Map.of("2", 1), page.facets().get(ProductFacetIndex.CATEGORY));
+        verify(productRepository, times(2)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void filter_shouldKeepIndexOrderAndDropProductsDeletedSinceIndexing() {
+        IntStream.rangeClosed(1, 4).forEach(id ->
+                productFacetService.onEntityChanged(EntityChangedEvent.saved(Product.class, id, product(id, 5))));
+        // Product 2 is gone from the database but its delete event has not arrived yet
+        when(productRepository.findAllById(List.of(1, 2, 3)))
+                .thenReturn(List.of(product(3, 5), product(1, 5)));
+
+        var page = productFacetService.filter(query(Set.of(5), Set.of()), 0, 3);
+
+        assertEquals(List.of(1, 3), page.items().stream().map(Product::getId).toList());
+        assertEquals(4, page.total());
+        assertEquals(3, CursorPage.decodeCursor(page.nextCursor()));
+    }
+
+    @Test
+    void onEntityChanged_shouldApplyAttributeAndSkuChanges() {
+        productFacetService.onEntityChanged(EntityChangedEvent.saved(Product.class, 1, product(1, 5)));
+        productFacetService.onEntityChanged(EntityChangedEvent.saved(ProductAttribute.class, 10, color(10, 1, "Blue")));
+        ProductsSku sku = new ProductsSku();
+        sku.setId(20);
+        sku.setProductId(1);
+        sku.setPrice(15.0);
+        productFacetService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 20, sku));
+
+        var facets = productFacetService.filter(query(null, Set.of()), 0, 10).facets();
+        assertEquals(Map.of("blue", 1), facets.get("COLOR"));
+        assertEquals(Map.of("10-25", 1), facets.get(ProductFacetIndex.PRICE));
+
+        productFacetService.onEntityChanged(EntityChangedEvent.deleted(ProductAttribute.class, 10));
+        productFacetService.onEntityChanged(EntityChangedEvent.deleted(ProductsSku.class, 20));
+        productFacetService.onEntityChanged(EntityChangedEvent.deleted(Product.class, 1));
+
+        assertEquals(0, productFacetService.filter(query(null, Set.of()), 0, 10).total());
+    }
+}
@@ -0,0 +1,102 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.repository.ProductRepository;
+import com.alexsys.smartmarket.product.search.ProductSearchIndex;
+import com.alexsys.smartmarket.product.search.ProductSuggester;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSearchService productSearchService;
+
+    private Product product(int id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategoryId(1);
+        return product;
+    }
+
+    @Test
+    void rebuild_shouldPageThroughTheWholeCatalog() {
+        List<Product> firstPage = new ArrayList<>(IntStream.rangeClosed(1, ProductSearchService.LOAD_PAGE_SIZE)
+                .mapToObj(id -> product(id, "Filler " + id)).toList());
+        firstPage.set(0, product(1, "Wireless headphones"));
+        int last = ProductSearchService.LOAD_PAGE_SIZE;
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(last))).thenReturn(firstPage);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(last, Limit.of(last)))
+                .thenReturn(List.of(product(last + 1, "Wired headphones")));
+
+        productSearchService.rebuild();
+
+        assertEquals(List.of(1, last + 1), productSearchService.search("headphones", 10).stream()
+                .map(ProductSearchIndex.Hit::id).sorted().toList());
+        assertEquals(List.of(last + 1, 1), productSearchService.suggest("wi", 10).stream()
+                .map(ProductSuggester.Suggestion::id).toList());
+        verify(productRepository, times(2)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void onEntityChanged_shouldIndexSavedAndDropDeletedProducts() {
+        productSearchService.onEntityChanged(EntityChangedEvent.saved(Product.class, 7, product(7, "Garden hose")));
+        assertEquals(7, productSearchService.search("hose", 10).get(0).id());
+        assertEquals(7, productSearchService.suggest("gard", 10).get(0).id());
+
+        productSearchService.onEntityChanged(EntityChangedEvent.deleted(Product.class, 7));
+        assertTrue(productSearchService.search("hose", 10).isEmpty());
+        assertTrue(productSearchService.suggest("gard", 10).isEmpty());
+    }
+
+    @Test
+    void fuzzySearch_shouldDescribeMatchesAndScoreByEdits() {
+        productSearchService.onEntityChanged(EntityChangedEvent.saved(Product.class, 1, product(1, "Basic T-Shirt")));
+        productSearchService.onEntityChanged(EntityChangedEvent.saved(Product.class, 2, product(2, "Basic tee")));
+
+        var hits = productSearchService.fuzzySearch("basic tshrit", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals("Basic T-Shirt", hits.get(0).name());
+        assertEquals(0.5, hits.get(0).score());
+        assertTrue(productSearchService.search("tshrit", 10).isEmpty());
+    }
+
+    @Test
+    void onEntityChanged_shouldIgnoreOtherEntities() {
+        Category category = new Category();
+        category.setId(1);
+        category.setName("Garden");
+
+        productSearchService.onEntityChanged(EntityChangedEvent.saved(Category.class, 1, category));
+
+        assertTrue(productSearchService.search("garden", 10).isEmpty());
+    }
+
+    @Test
+    void search_shouldClampLimit() {
+        IntStream.rangeClosed(1, ProductSearchService.MAX_LIMIT + 5).forEach(id ->
+                productSearchService.onEntityChanged(EntityChangedEvent.saved(Product.class, id, product(id, "Sock"))));
+
+        assertEquals(ProductSearchService.MAX_LIMIT, productSearchService.search("sock", 1000).size());
+        assertEquals(1, productSearchService.search("sock", 0).size());
+    }
+}
@@ -1,7 +1,11 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
 import com.alexsys.smartmarket.product.mapper.ProductMapper;
+import com.alexsys.smartmarket.product.model.PendingPurge;
 import com.alexsys.smartmarket.product.model.Product;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
 import com.alexsys.smartmarket.product.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +13,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +32,12 @@ class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private PendingPurgeRepository pendingPurgeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -46,18 +58,19 @@ class ProductServiceTest {
     }
 
     @Test
-    void getAllProducts_shouldReturnAllProducts() {
+    void getProductsPage_shouldReturnLastPageWithoutCursor() {
         Product p1 = createTestProduct();
         Product p2 = createTestProduct();
         p2.setId(2);
         p2.setName("Product Two");
 
-        when(productRepository.findAll()).thenReturn(Arrays.asList(p1, p2));
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(51))).thenReturn(Arrays.asList(p1, p2));
 
-        List<Product> products = productService.getAllProducts();
+        CursorPage<Product> page = productService.getProductsPage(0, 50);
 
-        assertEquals(2, products.size());
-        verify(productRepository, times(1)).findAll();
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        verify(productRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(51));
     }
 
     @Test
@@ -130,9 +143,23 @@ class ProductServiceTest {
     }
 
     @Test
-    void deleteProduct_shouldCallRepositoryDelete() {
+    void deleteProduct_shouldTombstoneAndQueueThePurge() {
+        when(productRepository.softDeleteAllById(List.of(1))).thenReturn(1);
+
         productService.deleteProduct(1);
-        verify(productRepository, times(1)).deleteById(1);
+
+        verify(productRepository, never()).deleteById(any());
+        verify(pendingPurgeRepository).save(argThat(purge ->
+                purge.getTarget() == PendingPurge.Target.PRODUCT && purge.getTargetId() == 1));
+    }
+
+    @Test
+    void deleteProduct_shouldNotQueueAPurgeForAMissingProduct() {
+        when(productRepository.softDeleteAllById(List.of(999))).thenReturn(0);
+
+        productService.deleteProduct(999);
+
+        verifyNoInteractions(pendingPurgeRepository, eventPublisher);
     }
 
     @Test
@@ -150,4 +177,17 @@ class ProductServiceTest {
         assertTrue(result.isPresent());
         verify(productMapper, times(1)).update(existingProduct, productDetails);
     }
+
+    @Test
+    void writes_shouldPublishEntityChangedEvents() {
+        Product product = createTestProduct();
+        when(productRepository.save(product)).thenReturn(product);
+        when(productRepository.softDeleteAllById(List.of(1))).thenReturn(1);
+
+        productService.saveProduct(product);
+        productService.deleteProduct(1);
+
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.saved(Product.class, 1, product));
+        verify(eventPublisher, times(1)).publishEvent(EntityChangedEvent.deleted(Product.class, 1));
+    }
 }
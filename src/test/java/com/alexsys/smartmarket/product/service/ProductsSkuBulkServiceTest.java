@@ -0,0 +1,154 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapper;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductsSkuBulkServiceTest {
+
+    @Mock
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Mock
+    private ProductsSkuMapper productsSkuMapper;
+
+    @Mock
+    private FlashSaleStockService flashSaleStockService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCT_SKUS);
+
+    private ProductsSkuBulkService productsSkuBulkService;
+
+    private ProductsSku createTestSku(String code) {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku(code);
+        sku.setPrice(19.99);
+        sku.setQuantity(5);
+        return sku;
+    }
+
+    @BeforeEach
+    void setUp() {
+        productsSkuBulkService = new ProductsSkuBulkService(productsSkuRepository, productsSkuMapper, flashSaleStockService, entityManager, transactionManager, cacheManager, eventPublisher);
+    }
+
+    @Test
+    void upsertProductsSkus_shouldCreateNewAndUpdateExistingByCode() {
+        ProductsSku existing = createTestSku("SKU-001");
+        existing.setId(7);
+        ProductsSku update = createTestSku("SKU-001");
+        update.setPrice(29.99);
+        ProductsSku fresh = createTestSku("SKU-002");
+        doAnswer(invocation -> {
+            ((ProductsSku) invocation.getArgument(0)).setId(8);
+            return null;
+        }).when(entityManager).persist(fresh);
+        when(productsSkuRepository.findBySkuIn(List.of("SKU-001", "SKU-002"))).thenReturn(List.of(existing));
+        cacheManager.getCache(CacheConfig.PRODUCT_SKUS).put(7, existing);
+
+        List<ProductsSkuBulkService.RowResult> results = productsSkuBulkService.upsertProductsSkus(List.of(update, fresh));
+
+        assertEquals(ProductsSkuBulkService.Status.UPDATED, results.get(0).status());
+        assertEquals(7, results.get(0).id());
+        assertEquals(ProductsSkuBulkService.Status.CREATED, results.get(1).status());
+        assertEquals(8, results.get(1).id());
+        verify(productsSkuMapper, times(1)).update(existing, update);
+        verify(entityManager, times(1)).flush();
+        verify(transactionManager, times(1)).commit(any());
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_SKUS).get(7));
+        verify(eventPublisher).publishEvent(EntityChangedEvent.saved(ProductsSku.class, 7, existing));
+        verify(eventPublisher).publishEvent(EntityChangedEvent.saved(ProductsSku.class, 8, fresh));
+    }
+
+    @Test
+    void upsertProductsSkus_shouldFailInvalidAndSupersededRowsWithoutTouchingDatabase() {
+        ProductsSku noCode = createTestSku(null);
+        ProductsSku noProduct = createTestSku("SKU-003");
+        noProduct.setProductId(null);
+        ProductsSku first = createTestSku("SKU-004");
+        ProductsSku second = createTestSku("SKU-004");
+        when(productsSkuRepository.findBySkuIn(List.of("SKU-004"))).thenReturn(List.of());
+
+        List<ProductsSkuBulkService.RowResult> results =
+                productsSkuBulkService.upsertProductsSkus(List.of(noCode, noProduct, first, second));
+
+        assertEquals(ProductsSkuBulkService.Status.FAILED, results.get(0).status());
+        assertEquals(ProductsSkuBulkService.Status.FAILED, results.get(1).status());
+        assertEquals("superseded by row 3", results.get(2).error());
+        assertEquals(ProductsSkuBulkService.Status.CREATED, results.get(3).status());
+        verify(entityManager, never()).persist(first);
+    }
+
+    @Test
+    void upsertProductsSkus_shouldFailAQuantityForAFlashSaleSku() {
+        ProductsSku existing = createTestSku("SKU-001");
+        existing.setId(7);
+        ProductsSku update = createTestSku("SKU-001");
+        when(productsSkuRepository.findBySkuIn(List.of("SKU-001"))).thenReturn(List.of(existing));
+        when(flashSaleStockService.withBuckets(List.of(7))).thenReturn(Set.of(7));
+
+        List<ProductsSkuBulkService.RowResult> results = productsSkuBulkService.upsertProductsSkus(List.of(update));
+
+        assertEquals(ProductsSkuBulkService.Status.FAILED, results.get(0).status());
+        verify(productsSkuMapper, never()).update(any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void upsertProductsSkus_shouldFailOnlyTheChunkThatThrows() {
+        List<ProductsSku> rows = new ArrayList<>();
+        for (int i = 0; i < ProductsSkuBulkService.CHUNK_SIZE + 1; i++) {
+            rows.add(createTestSku("SKU-" + i));
+        }
+        when(productsSkuRepository.findBySkuIn(anyList()))
+                .thenThrow(new IllegalStateException("deadlock"))
+                .thenReturn(List.of());
+
+        List<ProductsSkuBulkService.RowResult> results = productsSkuBulkService.upsertProductsSkus(rows);
+
+        assertEquals("deadlock", results.get(0).error());
+        assertEquals(ProductsSkuBulkService.Status.FAILED, results.get(ProductsSkuBulkService.CHUNK_SIZE - 1).status());
+        assertEquals(ProductsSkuBulkService.Status.CREATED, results.get(ProductsSkuBulkService.CHUNK_SIZE).status());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void upsertProductsSkus_shouldRejectOversizedRequests() {
+        List<ProductsSku> rows = Collections.nCopies(ProductsSkuBulkService.MAX_ROWS + 1, createTestSku("SKU-001"));
+
+        assertThrows(ResponseStatusException.class, () -> productsSkuBulkService.upsertProductsSkus(rows));
+        verifyNoInteractions(productsSkuRepository, transactionManager);
+    }
+}
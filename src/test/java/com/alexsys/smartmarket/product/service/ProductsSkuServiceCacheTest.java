@@ -0,0 +1,140 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapper;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig({CacheConfig.class, ProductsSkuService.class})
+class ProductsSkuServiceCacheTest {
+
+    @MockBean
+    private ProductsSkuRepository productsSkuRepository;
+
+    @MockBean
+    private ProductsSkuMapper productsSkuMapper;
+
+    @MockBean
+    private FlashSaleStockService flashSaleStockService;
+
+    @MockBean
+    private PartialUpdates partialUpdates;
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private ProductsSku createTestProductsSku() {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(1);
+        sku.setProductId(1);
+        sku.setSku("SKU001");
+        sku.setPrice(99.99);
+        sku.setQuantity(10);
+        return sku;
+    }
+
+    private Cache<Object, Object> nativeCache() {
+        return ((CaffeineCache) cacheManager.getCache(CacheConfig.PRODUCT_SKUS)).getNativeCache();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.PRODUCT_SKUS).clear();
+        when(flashSaleStockService.withAggregatedQuantity(any())).thenAnswer(returnsFirstArg());
+    }
+
+    @Test
+    void getProductsSkuById_shouldHitRepositoryOnlyOnce() {
+        when(productsSkuRepository.findById(1)).thenReturn(Optional.of(createTestProductsSku()));
+        long hitsBefore = nativeCache().stats().hitCount();
+
+        productsSkuService.getProductsSkuById(1);
+        Optional<ProductsSku> cached = productsSkuService.getProductsSkuById(1);
+
+        assertTrue(cached.isPresent());
+        verify(productsSkuRepository, times(1)).findById(1);
+        assertEquals(hitsBefore + 1, nativeCache().stats().hitCount());
+    }
+
+    @Test
+    void getProductsSkuById_shouldLoadOnceForConcurrentMisses() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(productsSkuRepository.findById(1)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(createTestProductsSku());
+        });
+
+        var lookups = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> productsSkuService.getProductsSkuById(1)))
+                .toList();
+        Thread.sleep(100);
+        release.countDown();
+
+        for (var lookup : lookups) {
+            assertTrue(lookup.get().isPresent());
+        }
+        verify(productsSkuRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void updateProductsSku_shouldRefreshCachedEntry() {
+        ProductsSku existing = createTestProductsSku();
+        when(productsSkuRepository.findById(1)).thenReturn(Optional.of(existing));
+        when(productsSkuRepository.save(existing)).thenAnswer(invocation -> {
+            existing.setPrice(149.99);
+            return existing;
+        });
+        productsSkuService.getProductsSkuById(1);
+
+        productsSkuService.updateProductsSku(1, createTestProductsSku());
+        Optional<ProductsSku> cached = productsSkuService.getProductsSkuById(1);
+
+        assertEquals(149.99, cached.get().getPrice());
+        // One load for the first read, one for the update's own read-modify-write
+        verify(productsSkuRepository, times(2)).findById(1);
+    }
+
+    @Test
+    void saveProductsSku_shouldReplaceCachedMiss() {
+        when(productsSkuRepository.findById(1)).thenReturn(Optional.empty());
+        assertTrue(productsSkuService.getProductsSkuById(1).isEmpty());
+        when(productsSkuRepository.save(any())).thenReturn(createTestProductsSku());
+
+        productsSkuService.saveProductsSku(createTestProductsSku());
+
+        assertTrue(productsSkuService.getProductsSkuById(1).isPresent());
+        verify(productsSkuRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void deleteProductsSku_shouldEvictCachedEntry() {
+        when(productsSkuRepository.findById(1)).thenReturn(Optional.of(createTestProductsSku()));
+        productsSkuService.getProductsSkuById(1);
+
+        productsSkuService.deleteProductsSku(1);
+        productsSkuService.getProductsSkuById(1);
+
+        verify(productsSkuRepository, times(2)).findById(1);
+    }
+}
@@ -1,20 +1,30 @@
 package com.alexsys.smartmarket.product.service;
 
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.event.StockChangedEvent;
+import com.alexsys.smartmarket.product.exception.InsufficientStockException;
 import com.alexsys.smartmarket.product.mapper.ProductsSkuMapper;
 import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
 import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +36,15 @@ class ProductsSkuServiceTest {
     @Mock
     private ProductsSkuMapper productsSkuMapper;
 
+    @Mock
+    private FlashSaleStockService flashSaleStockService;
+
+    @Mock
+    private PartialUpdates partialUpdates;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductsSkuService productsSkuService;
 
@@ -43,22 +62,40 @@ class ProductsSkuServiceTest {
 
     @BeforeEach
     void setUp() {
-        // Optional setup if needed
+        lenient().when(flashSaleStockService.withAggregatedQuantity(any())).thenAnswer(returnsFirstArg());
+        lenient().when(flashSaleStockService.withAggregatedQuantities(any())).thenAnswer(returnsFirstArg());
     }
 
     @Test
-    void getAllProductsSkus_shouldReturnAllSkus() {
+    void getProductsSkusPage_shouldReturnLastPageWithoutCursor() {
         ProductsSku sku1 = createTestProductsSku();
         ProductsSku sku2 = createTestProductsSku();
         sku2.setId(2);
         sku2.setSku("SKU002");
 
-        when(productsSkuRepository.findAll()).thenReturn(Arrays.asList(sku1, sku2));
+        when(productsSkuRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(51))).thenReturn(Arrays.asList(sku1, sku2));
 
-        List<ProductsSku> skus = productsSkuService.getAllProductsSkus();
+        CursorPage<ProductsSku> page = productsSkuService.getProductsSkusPage(0, 50);
 
-        assertEquals(2, skus.size());
-        verify(productsSkuRepository, times(1)).findAll();
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        verify(productsSkuRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(51));
+    }
+
+    @Test
+    void getProductsSkusPage_shouldReturnCursorWhenMoreRowsExist() {
+        ProductsSku sku1 = createTestProductsSku();
+        ProductsSku sku2 = createTestProductsSku();
+        sku2.setId(2);
+        ProductsSku sku3 = createTestProductsSku();
+        sku3.setId(3);
+
+        when(productsSkuRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(3))).thenReturn(Arrays.asList(sku1, sku2, sku3));
+
+        CursorPage<ProductsSku> page = productsSkuService.getProductsSkusPage(0, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(2, CursorPage.decodeCursor(page.nextCursor()));
     }
 
     @Test
@@ -97,6 +134,7 @@ class ProductsSkuServiceTest {
         assertNotNull(result.getId());
         assertEquals(1, result.getId());
         verify(productsSkuRepository, times(1)).save(skuToSave);
+        verify(eventPublisher).publishEvent(EntityChangedEvent.saved(ProductsSku.class, 1, savedSku));
     }
 
     @Test
@@ -117,6 +155,20 @@ class ProductsSkuServiceTest {
         verify(productsSkuRepository, times(1)).findById(1);
     }
 
+    @Test
+    void updateProductsSku_shouldRejectAQuantityForAFlashSaleSku() {
+        ProductsSku skuDetails = createTestProductsSku();
+        skuDetails.setQuantity(50);
+        when(productsSkuRepository.findById(1)).thenReturn(Optional.of(createTestProductsSku()));
+        when(flashSaleStockService.hasBuckets(1)).thenReturn(true);
+
+        var e = assertThrows(ResponseStatusException.class, () -> productsSkuService.updateProductsSku(1, skuDetails));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        verify(productsSkuMapper, never()).update(any(), any());
+        verify(productsSkuRepository, never()).save(any());
+    }
+
     @Test
     void updateProductsSku_shouldReturnEmptyWhenSkuNotExists() {
         ProductsSku skuDetails = createTestProductsSku();
@@ -130,10 +182,122 @@ class ProductsSkuServiceTest {
         verify(productsSkuRepository, never()).save(any());
     }
 
+    @Test
+    void patchProductsSku_shouldUpdateWithoutLoadingFirst() {
+        ProductsSku changes = new ProductsSku();
+        changes.setPrice(79.99);
+        ProductsSku updated = createTestProductsSku();
+        updated.setPrice(79.99);
+        when(partialUpdates.update(ProductsSku.class, 1, changes)).thenReturn(1);
+        when(productsSkuRepository.findById(1)).thenReturn(Optional.of(updated));
+
+        assertTrue(productsSkuService.patchProductsSku(1, changes));
+
+        InOrder order = inOrder(partialUpdates, productsSkuRepository);
+        order.verify(partialUpdates).update(ProductsSku.class, 1, changes);
+        order.verify(productsSkuRepository).findById(1);
+        verify(productsSkuMapper, never()).update(any(), any());
+        verify(productsSkuRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(EntityChangedEvent.saved(ProductsSku.class, 1, updated));
+    }
+
+    @Test
+    void patchProductsSku_shouldRejectAQuantityForAFlashSaleSku() {
+        ProductsSku changes = new ProductsSku();
+        changes.setQuantity(50);
+        when(flashSaleStockService.hasBuckets(1)).thenReturn(true);
+
+        var e = assertThrows(ResponseStatusException.class, () -> productsSkuService.patchProductsSku(1, changes));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        verify(partialUpdates, never()).update(any(), any(), any());
+    }
+
+    @Test
+    void patchProductsSku_shouldReturnFalseWhenNoRowMatched() {
+        ProductsSku changes = new ProductsSku();
+        changes.setPrice(79.99);
+        when(partialUpdates.update(ProductsSku.class, 999, changes)).thenReturn(0);
+
+        assertFalse(productsSkuService.patchProductsSku(999, changes));
+
+        verify(productsSkuRepository, never()).findById(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void decrementStock_shouldReturnNewLevelWhenStockSuffices() {
+        when(productsSkuRepository.decrementQuantity(1, 3)).thenReturn(1);
+        when(productsSkuRepository.findQuantityById(1)).thenReturn(Optional.of(7));
+
+        Optional<ProductsSkuService.StockLevel> result = productsSkuService.decrementStock(1, 3);
+
+        assertEquals(Optional.of(new ProductsSkuService.StockLevel(1, 7)), result);
+        verify(eventPublisher).publishEvent(new StockChangedEvent(1, 7));
+    }
+
+    @Test
+    void decrementStock_shouldThrowConflictWhenStockIsShort() {
+        when(productsSkuRepository.decrementQuantity(1, 30)).thenReturn(0);
+        when(productsSkuRepository.findQuantityById(1)).thenReturn(Optional.of(10));
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> productsSkuService.decrementStock(1, 30));
+
+        assertEquals(10, e.getAvailable());
+        assertEquals(30, e.getRequested());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void decrementStock_shouldReturnEmptyWhenSkuNotExists() {
+        when(productsSkuRepository.decrementQuantity(999, 1)).thenReturn(0);
+        when(productsSkuRepository.findQuantityById(999)).thenReturn(Optional.empty());
+
+        assertFalse(productsSkuService.decrementStock(999, 1).isPresent());
+    }
+
+    @Test
+    void decrementStock_shouldTakeFromBucketsWhenSkuIsHot() {
+        when(flashSaleStockService.isHot(1)).thenReturn(true);
+        when(flashSaleStockService.decrement(1, 2)).thenReturn(Optional.of(new ProductsSkuService.StockLevel(1, 98)));
+
+        assertEquals(98, productsSkuService.decrementStock(1, 2).get().quantity());
+        verify(productsSkuRepository, never()).decrementQuantity(anyInt(), anyInt());
+        verify(eventPublisher).publishEvent(new StockChangedEvent(1, 98));
+    }
+
+    @Test
+    void decrementStock_shouldFallBackToRowWhenBucketsAreGone() {
+        when(flashSaleStockService.isHot(1)).thenReturn(true);
+        when(flashSaleStockService.decrement(1, 2)).thenReturn(Optional.empty());
+        when(productsSkuRepository.decrementQuantity(1, 2)).thenReturn(1);
+        when(productsSkuRepository.findQuantityById(1)).thenReturn(Optional.of(8));
+
+        assertEquals(8, productsSkuService.decrementStock(1, 2).get().quantity());
+    }
+
+    @Test
+    void decrementStock_shouldCheckTheBucketTableWhenTheRowFallsShort() {
+        when(productsSkuRepository.decrementQuantity(1, 2)).thenReturn(0);
+        when(flashSaleStockService.hasBuckets(1)).thenReturn(true);
+        when(flashSaleStockService.decrement(1, 2)).thenReturn(Optional.of(new ProductsSkuService.StockLevel(1, 48)));
+
+        assertEquals(48, productsSkuService.decrementStock(1, 2).get().quantity());
+        verify(eventPublisher).publishEvent(new StockChangedEvent(1, 48));
+    }
+
+    @Test
+    void incrementStock_shouldRejectNonPositiveAmount() {
+        assertThrows(ResponseStatusException.class, () -> productsSkuService.incrementStock(1, 0));
+        verify(productsSkuRepository, never()).incrementQuantity(anyInt(), anyInt());
+    }
+
     @Test
     void deleteProductsSku_shouldCallRepositoryDelete() {
         productsSkuService.deleteProductsSku(1);
         verify(productsSkuRepository, times(1)).deleteById(1);
+        verify(eventPublisher).publishEvent(EntityChangedEvent.deleted(ProductsSku.class, 1));
     }
 
     @Test
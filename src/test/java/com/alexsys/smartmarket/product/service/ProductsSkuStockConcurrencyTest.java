@@ -0,0 +1,154 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.CacheConfig;
+import com.alexsys.smartmarket.product.exception.InsufficientStockException;
+import com.alexsys.smartmarket.product.mapper.ProductsSkuMapperImpl;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.repository.ProductsSkuStockBucketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers one SKU from many threads and checks that every unit sold is accounted for and the
+ * quantity never goes negative.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({CacheConfig.class, ProductsSkuService.class, FlashSaleStockService.class, PartialUpdates.class, ProductsSkuMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductsSkuStockConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 500;
+
+    @Autowired
+    private ProductsSkuService productsSkuService;
+
+    @Autowired
+    private FlashSaleStockService flashSaleStockService;
+
+    @Autowired
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Autowired
+    private ProductsSkuStockBucketRepository bucketRepository;
+
+    @AfterEach
+    void tearDown() {
+        bucketRepository.deleteAllInBatch();
+        productsSkuRepository.deleteAllInBatch();
+        flashSaleStockService.reload();
+    }
+
+    @Test
+    void concurrentDecrements_shouldNeitherLoseUpdatesNorOversell() throws Exception {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku("STRESS-001");
+        sku.setQuantity(INITIAL_STOCK);
+        Integer id = productsSkuRepository.save(sku).getId();
+
+        assertSellsExactlyTheStock(id);
+        assertThat(productsSkuRepository.findQuantityById(id)).contains(0);
+    }
+
+    @Test
+    void concurrentDecrementsOnHotSku_shouldNeitherLoseUpdatesNorOversell() throws Exception {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku("STRESS-HOT");
+        sku.setQuantity(INITIAL_STOCK);
+        Integer id = productsSkuRepository.save(sku).getId();
+        flashSaleStockService.enable(id, 8);
+
+        assertSellsExactlyTheStock(id);
+        assertThat(bucketRepository.sumQuantityBySkuId(id)).contains(0L);
+    }
+
+    private void assertSellsExactlyTheStock(Integer id) throws Exception {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        productsSkuService.decrementStock(id, 1);
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // 800 attempts against 500 units: exactly 500 succeed, the rest get a conflict
+        assertThat(sold.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(rejected.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD - INITIAL_STOCK);
+    }
+
+    @Test
+    void concurrentIncrementsAndDecrements_shouldBalance() throws Exception {
+        ProductsSku sku = new ProductsSku();
+        sku.setProductId(1);
+        sku.setSku("STRESS-002");
+        sku.setQuantity(INITIAL_STOCK);
+        Integer id = productsSkuRepository.save(sku).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean restock = t % 2 == 0;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (restock) {
+                        productsSkuService.incrementStock(id, 2);
+                    } else {
+                        productsSkuService.decrementStock(id, 2);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(productsSkuRepository.findQuantityById(id)).contains(INITIAL_STOCK);
+    }
+}
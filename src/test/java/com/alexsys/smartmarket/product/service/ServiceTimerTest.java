@@ -0,0 +1,69 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.config.MetricsConfig;
+import com.alexsys.smartmarket.product.mapper.CategoryMapper;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.alexsys.smartmarket.product.repository.PartialUpdates;
+import com.alexsys.smartmarket.product.repository.PendingPurgeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig({MetricsConfig.class, ServiceTimerTest.Registry.class, CategoryService.class})
+class ServiceTimerTest {
+
+    @Configuration
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    static class Registry {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private CategoryRepository categoryRepository;
+
+    @MockBean
+    private CategoryMapper categoryMapper;
+
+    @MockBean
+    private PartialUpdates partialUpdates;
+
+    @MockBean
+    private PendingPurgeRepository pendingPurgeRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void serviceCalls_shouldBeTimedPerMethod() {
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(new Category()));
+
+        categoryService.getCategoryById(1);
+        categoryService.getCategoryById(1);
+
+        Timer timer = meterRegistry.find(MetricsConfig.SERVICE_TIMER)
+                .tag("class", CategoryService.class.getName())
+                .tag("method", "getCategoryById")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+}
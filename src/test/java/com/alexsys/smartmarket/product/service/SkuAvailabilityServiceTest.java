@@ -0,0 +1,94 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.event.StockChangedEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import com.alexsys.smartmarket.product.store.SkuColumnStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SkuAvailabilityServiceTest {
+
+    @Mock
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Mock
+    private FlashSaleStockService flashSaleStockService;
+
+    @InjectMocks
+    private SkuAvailabilityService skuAvailabilityService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(flashSaleStockService.withAggregatedQuantities(any())).thenAnswer(returnsFirstArg());
+    }
+
+    private ProductsSku sku(int id, int productId, double price, int quantity) {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(id);
+        sku.setProductId(productId);
+        sku.setPrice(price);
+        sku.setQuantity(quantity);
+        return sku;
+    }
+
+    private List<Integer> inStockIds(int productId, Double maxPrice) {
+        return skuAvailabilityService.getInStock(productId, maxPrice).stream().map(SkuColumnStore.Row::id).toList();
+    }
+
+    @Test
+    void rebuild_shouldPageThroughAllSkusWithFlashSaleQuantities() {
+        int pageSize = SkuAvailabilityService.LOAD_PAGE_SIZE;
+        List<ProductsSku> firstPage = IntStream.rangeClosed(1, pageSize).mapToObj(id -> sku(id, 2, 10.0, 1)).toList();
+        when(productsSkuRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(pageSize))).thenReturn(firstPage);
+        when(productsSkuRepository.findByIdGreaterThanOrderByIdAsc(pageSize, Limit.of(pageSize)))
+                .thenReturn(List.of(sku(pageSize + 1, 1, 10.0, 3)));
+
+        skuAvailabilityService.rebuild();
+
+        assertEquals(List.of(pageSize + 1), inStockIds(1, null));
+        assertEquals(pageSize, skuAvailabilityService.getInStock(2, 11.0).size());
+        verify(flashSaleStockService, times(2)).withAggregatedQuantities(any());
+    }
+
+    @Test
+    void events_shouldKeepTheStoreCurrent() {
+        skuAvailabilityService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 1, sku(1, 1, 10.0, 2)));
+        skuAvailabilityService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 2, sku(2, 1, 20.0, 2)));
+        assertEquals(List.of(1), inStockIds(1, 15.0));
+
+        skuAvailabilityService.onStockChanged(new StockChangedEvent(1, 0));
+        skuAvailabilityService.onEntityChanged(EntityChangedEvent.deleted(ProductsSku.class, 2));
+
+        assertEquals(List.of(), inStockIds(1, null));
+    }
+
+    @Test
+    void onEntityChanged_shouldKeepFlashSaleStockWhenTheRowIsSaved() {
+        skuAvailabilityService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 1, sku(1, 1, 10.0, 2)));
+        skuAvailabilityService.onStockChanged(new StockChangedEvent(1, 500));
+        when(flashSaleStockService.isHot(1)).thenReturn(true);
+
+        // The row of a hot SKU holds whatever was not moved to buckets, here nothing
+        skuAvailabilityService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 1, sku(1, 1, 8.0, 0)));
+
+        var row = skuAvailabilityService.getInStock(1, null).get(0);
+        assertEquals(500, row.quantity());
+        assertEquals(8.0, row.price());
+    }
+}
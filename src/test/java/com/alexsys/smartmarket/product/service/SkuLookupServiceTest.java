@@ -0,0 +1,118 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.repository.ProductsSkuRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SkuLookupServiceTest {
+
+    @Mock
+    private ProductsSkuRepository productsSkuRepository;
+
+    @Mock
+    private ProductsSkuService productsSkuService;
+
+    @InjectMocks
+    private SkuLookupService skuLookupService;
+
+    private ProductsSku sku(int id, String code) {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(id);
+        sku.setProductId(1);
+        sku.setSku(code);
+        return sku;
+    }
+
+    @Test
+    void getBySku_shouldServeIndexedCodesFromTheSkuCache() {
+        var sku = sku(7, "TS-RED-M");
+        skuLookupService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 7, sku));
+        when(productsSkuService.getProductsSkuById(7)).thenReturn(Optional.of(sku));
+
+        assertEquals(Optional.of(sku), skuLookupService.getBySku("TS-RED-M"));
+        verify(productsSkuService, never()).getProductsSkusBySkus(any());
+    }
+
+    @Test
+    void getBySkus_shouldKeepRequestOrderAndReadUnknownCodesInOneQuery() {
+        skuLookupService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 1, sku(1, "A")));
+        when(productsSkuService.getProductsSkuById(1)).thenReturn(Optional.of(sku(1, "A")));
+        when(productsSkuService.getProductsSkusBySkus(List.of("B", "missing")))
+                .thenReturn(List.of(sku(2, "B")));
+
+        var found = skuLookupService.getBySkus(List.of("B", "A", "missing", "A"));
+
+        assertEquals(List.of(2, 1), found.stream().map(ProductsSku::getId).toList());
+        // B is indexed now, so the next lookup goes through the cache
+        when(productsSkuService.getProductsSkuById(2)).thenReturn(Optional.of(sku(2, "B")));
+        assertTrue(skuLookupService.getBySku("B").isPresent());
+        verify(productsSkuService).getProductsSkusBySkus(any());
+    }
+
+    @Test
+    void getBySku_shouldFallBackWhenTheCachedRowHasAnotherCode() {
+        skuLookupService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 1, sku(1, "OLD")));
+        when(productsSkuService.getProductsSkuById(1)).thenReturn(Optional.of(sku(1, "NEW")));
+        when(productsSkuService.getProductsSkusBySkus(List.of("OLD"))).thenReturn(List.of());
+
+        assertTrue(skuLookupService.getBySku("OLD").isEmpty());
+    }
+
+    @Test
+    void onEntityChanged_shouldForgetDeletedSkus() {
+        skuLookupService.onEntityChanged(EntityChangedEvent.saved(ProductsSku.class, 1, sku(1, "A")));
+        skuLookupService.onEntityChanged(EntityChangedEvent.deleted(ProductsSku.class, 1));
+        when(productsSkuService.getProductsSkusBySkus(List.of("A"))).thenReturn(List.of());
+
+        assertTrue(skuLookupService.getBySku("A").isEmpty());
+        verify(productsSkuService, never()).getProductsSkuById(any());
+    }
+
+    @Test
+    void rebuild_shouldIndexEveryPage() {
+        int pageSize = SkuLookupService.LOAD_PAGE_SIZE;
+        List<ProductsSku> firstPage = IntStream.rangeClosed(1, pageSize).mapToObj(id -> sku(id, "C" + id)).toList();
+        when(productsSkuRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(pageSize))).thenReturn(firstPage);
+        when(productsSkuRepository.findByIdGreaterThanOrderByIdAsc(pageSize, Limit.of(pageSize)))
+                .thenReturn(List.of(sku(pageSize + 1, "LAST")));
+        when(productsSkuService.getProductsSkuById(pageSize + 1)).thenReturn(Optional.of(sku(pageSize + 1, "LAST")));
+
+        skuLookupService.rebuild();
+
+        assertEquals(pageSize + 1, skuLookupService.getBySku("LAST").orElseThrow().getId());
+    }
+
+    @Test
+    void getBySkus_shouldRejectOversizedBatches() {
+        var codes = IntStream.rangeClosed(0, SkuLookupService.MAX_CODES).mapToObj(i -> "C" + i).toList();
+
+        assertThrows(ResponseStatusException.class, () -> skuLookupService.getBySkus(codes));
+        verifyNoInteractions(productsSkuService);
+    }
+
+    @Test
+    void getBySkus_shouldCountRepeatedCodesOnce() {
+        when(productsSkuService.getProductsSkusBySkus(List.of("X"))).thenReturn(List.of(sku(1, "X")));
+
+        var found = skuLookupService.getBySkus(Collections.nCopies(SkuLookupService.MAX_CODES + 1, "X"));
+
+        assertEquals(List.of(1), found.stream().map(ProductsSku::getId).toList());
+    }
+}
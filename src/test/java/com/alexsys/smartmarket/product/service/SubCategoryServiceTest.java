@@ -2,6 +2,7 @@ package com.alexsys.smartmarket.product.service;
 
 import com.alexsys.smartmarket.product.mapper.SubCategoryMapper;
 import com.alexsys.smartmarket.product.model.SubCategory;
+import com.alexsys.smartmarket.product.pagination.CursorPage;
 import com.alexsys.smartmarket.product.repository.SubCategoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,9 +10,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +28,9 @@ class SubCategoryServiceTest {
     @Mock
     private SubCategoryMapper subCategoryMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private SubCategoryService subCategoryService;
 
@@ -44,18 +49,19 @@ class SubCategoryServiceTest {
     }
 
     @Test
-    void getAllSubCategories_shouldReturnAllSubCategories() {
+    void getSubCategoriesPage_shouldReturnLastPageWithoutCursor() {
         SubCategory sc1 = createTestSubCategory();
         SubCategory sc2 = createTestSubCategory();
         sc2.setId(2);
         sc2.setName("Laptops");
 
-        when(subCategoryRepository.findAll()).thenReturn(Arrays.asList(sc1, sc2));
+        when(subCategoryRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(51))).thenReturn(Arrays.asList(sc1, sc2));
 
-        List<SubCategory> subCategories = subCategoryService.getAllSubCategories();
+        CursorPage<SubCategory> page = subCategoryService.getSubCategoriesPage(0, 50);
 
-        assertEquals(2, subCategories.size());
-        verify(subCategoryRepository, times(1)).findAll();
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        verify(subCategoryRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(51));
     }
 
     @Test
@@ -0,0 +1,79 @@
+package com.alexsys.smartmarket.product.service;
+
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.repository.CategoryRepository;
+import com.alexsys.smartmarket.product.repository.SubCategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaxonomyServiceTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private SubCategoryRepository subCategoryRepository;
+
+    private TaxonomyService taxonomyService;
+
+    private Category createTestCategory(String name) {
+        Category category = new Category();
+        category.setId(1);
+        category.setName(name);
+        return category;
+    }
+
+    @BeforeEach
+    void setUp() {
+        taxonomyService = new TaxonomyService(categoryRepository, subCategoryRepository, new ObjectMapper());
+    }
+
+    @Test
+    void getSnapshot_shouldLoadOnceAndServeFromMemory() {
+        when(categoryRepository.findAll()).thenReturn(List.of(createTestCategory("Electronics")));
+        when(subCategoryRepository.findAll()).thenReturn(List.of());
+
+        taxonomyService.getSnapshot();
+        taxonomyService.getSnapshot();
+
+        verify(categoryRepository, times(1)).findAll();
+        verify(subCategoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void onEntityChanged_shouldSwapInUpdatedSnapshotWithoutDatabaseAccess() {
+        when(categoryRepository.findAll()).thenReturn(List.of(createTestCategory("Electronics")));
+        when(subCategoryRepository.findAll()).thenReturn(List.of());
+        var before = taxonomyService.getSnapshot();
+
+        taxonomyService.onEntityChanged(EntityChangedEvent.saved(Category.class, 1, createTestCategory("Tech")));
+        var after = taxonomyService.getSnapshot();
+
+        assertNotSame(before, after);
+        assertEquals("Electronics", before.tree().get(0).name());
+        assertEquals("Tech", after.tree().get(0).name());
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void onEntityChanged_shouldRemoveDeletedCategory() {
+        when(categoryRepository.findAll()).thenReturn(List.of(createTestCategory("Electronics")));
+        when(subCategoryRepository.findAll()).thenReturn(List.of());
+        taxonomyService.getSnapshot();
+
+        taxonomyService.onEntityChanged(EntityChangedEvent.deleted(Category.class, 1));
+
+        assertTrue(taxonomyService.getSnapshot().tree().isEmpty());
+    }
+}
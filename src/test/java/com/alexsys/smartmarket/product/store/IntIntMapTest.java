@@ -0,0 +1,54 @@
+package com.alexsys.smartmarket.product.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntMapTest {
+
+    @Test
+    void randomPutsAndRemoves_shouldMatchHashMap() {
+        Random random = new Random(11);
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> model = new HashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            // A small key space keeps probe runs long and removals frequent
+            int key = random.nextInt(5000) + 1;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                model.remove(key);
+            } else {
+                map.put(key, step);
+                model.put(key, step);
+            }
+        }
+
+        assertEquals(model.size(), map.size());
+        for (int key = 1; key <= 5000; key++) {
+            assertEquals(model.getOrDefault(key, -1), map.get(key, -1));
+        }
+    }
+
+    @Test
+    void put_shouldRejectKeysThatCollideWithTheEmptyMarker() {
+        assertThrows(IllegalArgumentException.class, () -> new IntIntMap().put(0, 1));
+    }
+
+    @Test
+    void get_shouldMissNonPositiveKeys() {
+        IntIntMap map = new IntIntMap();
+        map.put(7, 42);
+
+        assertEquals(-1, map.get(0, -1));
+        assertEquals(-1, map.get(-7, -1));
+    }
+
+    @Test
+    void remove_shouldRejectNonPositiveKeys() {
+        assertThrows(IllegalArgumentException.class, () -> new IntIntMap().remove(0));
+    }
+}
@@ -0,0 +1,66 @@
+package com.alexsys.smartmarket.product.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkuCodeIndexTest {
+
+    private final SkuCodeIndex index = new SkuCodeIndex();
+
+    @Test
+    void put_shouldFollowCodeChangesAndRemovals() {
+        index.put(1, "TS-RED-M");
+        index.put(2, "TS-RED-L");
+        index.put(1, "TS-RED-S");
+        index.remove(2);
+
+        assertEquals(1, index.get("TS-RED-S"));
+        assertEquals(SkuCodeIndex.MISSING, index.get("TS-RED-M"));
+        assertEquals(SkuCodeIndex.MISSING, index.get("TS-RED-L"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void put_shouldMoveACodeToItsNewestOwnerAndDropBlankCodes() {
+        index.put(1, "MUG-01");
+        index.put(2, "MUG-01");
+        index.put(3, "CAP-01");
+        index.put(3, " ");
+
+        assertEquals(2, index.get("MUG-01"));
+        assertEquals(SkuCodeIndex.MISSING, index.get("CAP-01"));
+        // Id 1 no longer owns anything, so giving it a new code must not disturb id 2
+        index.put(1, "MUG-02");
+        assertEquals(2, index.get("MUG-01"));
+        assertEquals(1, index.get("MUG-02"));
+    }
+
+    @Test
+    void randomWrites_shouldMatchAHashMapAcrossRebuilds() {
+        Random random = new Random(3);
+        Map<Integer, String> codeById = new HashMap<>();
+        for (int step = 0; step < 100_000; step++) {
+            int id = random.nextInt(20_000) + 1;
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                codeById.remove(id);
+            } else {
+                // Codes of varying length, some shared, so chars and tombstones both pile up
+                String code = "SKU-" + Integer.toString(random.nextInt(30_000), 36) + "-".repeat(random.nextInt(12));
+                index.put(id, code);
+                codeById.values().remove(code);
+                codeById.put(id, code);
+            }
+        }
+
+        assertEquals(codeById.size(), index.size());
+        codeById.forEach((id, code) -> assertEquals(id, index.get(code)));
+        assertEquals(SkuCodeIndex.MISSING, index.get("SKU-unknown"));
+        assertTrue(index.offHeapBytes() > 0);
+    }
+}
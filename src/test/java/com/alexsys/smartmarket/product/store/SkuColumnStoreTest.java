@@ -0,0 +1,127 @@
+package com.alexsys.smartmarket.product.store;
+
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkuColumnStoreTest {
+
+    private final SkuColumnStore store = new SkuColumnStore();
+
+    private ProductsSku sku(int id, int productId, Double price, Integer quantity) {
+        ProductsSku sku = new ProductsSku();
+        sku.setId(id);
+        sku.setProductId(productId);
+        sku.setSizeAttributeId(1);
+        sku.setPrice(price);
+        sku.setQuantity(quantity);
+        return sku;
+    }
+
+    private List<Integer> inStockIds(int productId, double maxPrice) {
+        return store.inStock(productId, maxPrice).stream().map(SkuColumnStore.Row::id).toList();
+    }
+
+    @Test
+    void inStock_shouldReturnProductSkusWithStockUnderPriceById() {
+        store.put(sku(3, 1, 20.0, 5));
+        store.put(sku(1, 1, 10.0, 2));
+        store.put(sku(2, 1, 15.0, 0));
+        store.put(sku(4, 1, 30.0, 1));
+        store.put(sku(5, 2, 5.0, 9));
+
+        assertEquals(List.of(1, 3), inStockIds(1, 30.0));
+        assertEquals(new SkuColumnStore.Row(1, 1, 1, null, 10.0, 2), store.get(1).orElseThrow());
+        assertEquals(3, store.countInStock(30.0));
+        assertEquals(List.of(), inStockIds(3, 100.0));
+    }
+
+    @Test
+    void put_shouldUpdateInPlaceAndMoveSkusBetweenProducts() {
+        store.put(sku(1, 1, 10.0, 2));
+        store.put(sku(2, 1, 12.0, 2));
+        store.put(sku(3, 1, 14.0, 2));
+
+        store.put(sku(2, 1, 11.0, 0));
+        store.put(sku(3, 2, 14.0, 2));
+
+        assertEquals(List.of(1), inStockIds(1, 100.0));
+        assertEquals(List.of(3), inStockIds(2, 100.0));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void remove_shouldFreeSlotsForReuseWithoutLeakingIntoScans() {
+        store.put(sku(1, 1, 10.0, 2));
+        store.put(sku(2, 1, 12.0, 2));
+        store.remove(1);
+        store.remove(99);
+
+        assertEquals(0, store.countInStock(11.0));
+        assertEquals(List.of(2), inStockIds(1, 100.0));
+
+        store.put(sku(3, 2, 1.0, 1));
+        assertEquals(1, store.countInStock(11.0));
+        assertEquals(Optional.empty(), store.get(1));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void nullPriceAndQuantity_shouldNeverMatch() {
+        store.put(sku(1, 1, null, 5));
+        store.put(sku(2, 1, 10.0, null));
+
+        assertEquals(List.of(), inStockIds(1, Double.POSITIVE_INFINITY));
+        var row = store.get(1).orElseThrow();
+        assertNull(row.price());
+        assertEquals(0, store.get(2).orElseThrow().quantity());
+    }
+
+    @Test
+    void stockWrites_shouldSurviveAConcurrentLoad() {
+        store.put(sku(1, 1, 10.0, 5));
+        store.beginLoad();
+        store.setQuantity(1, 0);
+        store.putPreservingQuantity(sku(1, 1, 8.0, 99));
+
+        store.load(List.of(sku(1, 1, 10.0, 5), sku(2, 1, 10.0, 3)));
+        store.endLoad();
+
+        assertEquals(new SkuColumnStore.Row(1, 1, 1, null, 8.0, 0), store.get(1).orElseThrow());
+        assertEquals(List.of(2), inStockIds(1, 100.0));
+    }
+
+    @Test
+    void randomWrites_shouldMatchABruteForceModel() {
+        Random random = new Random(7);
+        Map<Integer, ProductsSku> model = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(3000) + 1;
+            if (random.nextInt(4) == 0) {
+                store.remove(id);
+                model.remove(id);
+            } else {
+                var sku = sku(id, random.nextInt(200) + 1, (double) random.nextInt(100), random.nextInt(3));
+                store.put(sku);
+                model.put(id, sku);
+            }
+        }
+
+        assertEquals(model.size(), store.size());
+        assertEquals(model.values().stream().filter(sku -> sku.getQuantity() > 0 && sku.getPrice() < 50).count(),
+                store.countInStock(50));
+        for (int productId = 1; productId <= 200; productId++) {
+            int product = productId;
+            assertEquals(model.values().stream()
+                    .filter(sku -> sku.getProductId() == product && sku.getQuantity() > 0 && sku.getPrice() < 50)
+                    .map(ProductsSku::getId).sorted().toList(), inStockIds(productId, 50));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.alexsys.smartmarket.product.stream;
+
+import com.alexsys.smartmarket.product.event.EntityChangedEvent;
+import com.alexsys.smartmarket.product.event.StockChangedEvent;
+import com.alexsys.smartmarket.product.model.ProductsSku;
+import com.alexsys.smartmarket.product.service.SkuAvailabilityService;
+import com.alexsys.smartmarket.product.store.SkuColumnStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SkuChangeBroadcasterTest {
+
+    @RestController
+    static class StreamController {
+        private final SkuChangeBroadcaster broadcaster;
+
+        StreamController(SkuChangeBroadcaster broadcaster) {
+            this.broadcaster = broadcaster;
+        }
+
+        @GetMapping("/stream")
+        SseEmitter stream(@RequestParam("ids") List<Integer> ids) {
+            return broadcaster.subscribe(ids);
+        }
+    }
+
+    private final SkuAvailabilityService skuAvailabilityService = mock(SkuAvailabilityService.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private SkuChangeBroadcaster broadcaster;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new SkuChangeBroadcaster(skuAvailabilityService, executor, new SimpleMeterRegistry(), 3, Duration.ofMinutes(1));
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(broadcaster)).build();
+        level(1, 9.5, 3);
+        level(2, 20.0, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    private void level(int id, double price, int quantity) {
+        when(skuAvailabilityService.getSku(id)).thenReturn(Optional.of(new SkuColumnStore.Row(id, 1, null, null, price, quantity)));
+    }
+
+    private MockHttpServletResponse open(String ids) throws Exception {
+        return mockMvc.perform(get("/stream").param("ids", ids))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    private static int events(MockHttpServletResponse response) throws Exception {
+        return response.getContentAsString().split("event:", -1).length - 1;
+    }
+
+    @Test
+    void subscribe_shouldStartWithTheCurrentLevels() throws Exception {
+        var response = open("1");
+
+        await().until(() -> events(response) == 1);
+        assertTrue(response.getContentAsString().contains("event:sku\ndata:{\"id\":1,\"price\":9.5,\"quantity\":3}"));
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void bursts_shouldReachSubscribersAsTheLatestLevel() throws Exception {
+        var response = open("1");
+        await().until(() -> events(response) == 1);
+
+        for (int quantity = 2; quantity >= 0; quantity--) {
+            broadcaster.onStockChanged(new StockChangedEvent(1, quantity));
+        }
+        level(1, 9.5, 0);
+        broadcaster.onStockChanged(new StockChangedEvent(2, 6));
+        broadcaster.flush();
+
+        await().until(() -> events(response) == 2);
+        assertTrue(response.getContentAsString().endsWith("data:{\"id\":1,\"price\":9.5,\"quantity\":0}\n\n"));
+        // Nothing else pending: a further flush sends nothing
+        broadcaster.flush();
+        Thread.sleep(50);
+        assertEquals(2, events(response));
+    }
+
+    @Test
+    void deletedSkus_shouldBeAnnounced() throws Exception {
+        var response = open("1,2");
+        await().until(() -> events(response) == 2);
+
+        when(skuAvailabilityService.getSku(2)).thenReturn(Optional.empty());
+        broadcaster.onEntityChanged(EntityChangedEvent.deleted(ProductsSku.class, 2));
+        broadcaster.flush();
+
+        await().until(() -> events(response) == 3);
+        assertTrue(response.getContentAsString().endsWith("event:deleted\ndata:2\n\n"));
+    }
+
+    @Test
+    void replayedWrites_shouldOnlyBeSentWhenTheLevelMoved() throws Exception {
+        var response = open("1");
+        await().until(() -> events(response) == 1);
+
+        // This instance's own write, coming back through the change feed
+        broadcaster.onEntityChanged(EntityChangedEvent.replayed(ProductsSku.class, 1, new ProductsSku()));
+        broadcaster.flush();
+        Thread.sleep(50);
+        assertEquals(1, events(response));
+
+        // A write made on another instance
+        level(1, 8.0, 3);
+        broadcaster.onEntityChanged(EntityChangedEvent.replayed(ProductsSku.class, 1, new ProductsSku()));
+        broadcaster.flush();
+
+        await().until(() -> events(response) == 2);
+        assertTrue(response.getContentAsString().endsWith("data:{\"id\":1,\"price\":8.0,\"quantity\":3}\n\n"));
+    }
+
+    @Test
+    void subscribe_shouldRejectTooManyIds() throws Exception {
+        mockMvc.perform(get("/stream").param("ids", "1,2,3,4"))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.alexsys.smartmarket.product.taxonomy;
+
+import com.alexsys.smartmarket.product.model.Category;
+import com.alexsys.smartmarket.product.model.SubCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaxonomySnapshotTest {
+
+    private final ObjectWriter writer = new ObjectMapper().writer();
+
+    private Category createCategory(int id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private SubCategory createSubCategory(int id, String name, int categoryId) {
+        SubCategory subCategory = new SubCategory();
+        subCategory.setId(id);
+        subCategory.setName(name);
+        subCategory.setCategoryId(categoryId);
+        return subCategory;
+    }
+
+    @Test
+    void of_shouldGroupSubCategoriesUnderTheirCategoryInIdOrder() {
+        TaxonomySnapshot snapshot = TaxonomySnapshot.of(
+                List.of(createCategory(2, "Books"), createCategory(1, "Electronics")),
+                List.of(createSubCategory(11, "Laptops", 1), createSubCategory(10, "Phones", 1), createSubCategory(20, "Novels", 2)),
+                writer);
+
+        assertEquals(List.of(1, 2), snapshot.tree().stream().map(TaxonomySnapshot.CategoryNode::id).toList());
+        assertEquals(List.of("Phones", "Laptops"),
+                snapshot.tree().get(0).subCategories().stream().map(TaxonomySnapshot.SubCategoryNode::name).toList());
+    }
+
+    @Test
+    void etag_shouldNotDependOnLoadOrder() {
+        TaxonomySnapshot first = TaxonomySnapshot.of(
+                List.of(createCategory(1, "Electronics"), createCategory(2, "Books")), List.of(), writer);
+        TaxonomySnapshot second = TaxonomySnapshot.of(
+                List.of(createCategory(2, "Books"), createCategory(1, "Electronics")), List.of(), writer);
+
+        assertEquals(first.etag(), second.etag());
+    }
+
+    @Test
+    void with_shouldReturnNewSnapshotAndLeaveOriginalUntouched() {
+        TaxonomySnapshot original = TaxonomySnapshot.of(List.of(createCategory(1, "Electronics")), List.of(), writer);
+
+        TaxonomySnapshot updated = original
+                .withSubCategory(createSubCategory(10, "Phones", 1), writer)
+                .withCategory(createCategory(1, "Tech"), writer);
+
+        assertEquals("Electronics", original.tree().get(0).name());
+        assertTrue(original.tree().get(0).subCategories().isEmpty());
+        assertEquals("Tech", updated.tree().get(0).name());
+        assertEquals(1, updated.tree().get(0).subCategories().size());
+        assertNotEquals(original.etag(), updated.etag());
+    }
+
+    @Test
+    void without_shouldDropEntries() {
+        TaxonomySnapshot snapshot = TaxonomySnapshot.of(
+                List.of(createCategory(1, "Electronics"), createCategory(2, "Books")),
+                List.of(createSubCategory(10, "Phones", 1)), writer);
+
+        TaxonomySnapshot updated = snapshot.withoutSubCategory(10, writer).withoutCategory(2, writer);
+
+        assertEquals(1, updated.tree().size());
+        assertTrue(updated.tree().get(0).subCategories().isEmpty());
+    }
+}